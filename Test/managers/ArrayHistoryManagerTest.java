@@ -0,0 +1,60 @@
+package managers;
+
+import org.junit.jupiter.api.Test;
+import tasks.Task;
+
+import java.time.LocalDateTime;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ArrayHistoryManagerTest extends HistoryManagerTest {
+
+    // Задачи, которые общие тесты передают в историю, запоминаются для поиска по номеру.
+    @Override
+    HistoryManager createHistoryManager() {
+        Map<Integer, Task> viewed = new HashMap<>();
+        HistoryManager history = new ArrayHistoryManager(viewed::get);
+        return new HistoryManager() {
+            @Override
+            public void add(Task task) {
+                viewed.put(task.getId(), task);
+                history.add(task);
+            }
+
+            @Override
+            public void remove(int id) {
+                history.remove(id);
+            }
+
+            @Override
+            public List<Task> getHistory() {
+                return history.getHistory();
+            }
+        };
+    }
+
+    @Test
+    void testHistoryResolvesTasksThroughManager() {
+        TaskManager manager = new InMemoryTaskManager(new ArrayHistoryManager());
+        for (int i = 0; i < 100; i++) {
+            manager.createTask(new Task(TypeTask.TASK, "Задача" + i, "Описание" + i,
+                    LocalDateTime.of(2022, 8, 1, 0, 0).plusDays(i), (long) 60));
+        }
+        for (int id = 1; id <= 100; id++) {
+            manager.getTaskById(id);
+        }
+        manager.getTaskById(1);
+        for (int id = 2; id <= 100; id += 2) {
+            manager.deleteTaskById(id);
+        }
+
+        List<Task> history = manager.getHistory();
+        assertEquals(50, history.size(), "Неверное количество задач в истории.");
+        assertEquals(1, history.get(0).getId(), "Неправильный порядок задач в истории.");
+        assertEquals(99, history.get(1).getId(), "Неправильный порядок задач в истории.");
+        assertEquals(3, history.get(49).getId(), "Неправильный порядок задач в истории.");
+    }
+}
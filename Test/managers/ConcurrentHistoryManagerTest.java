@@ -0,0 +1,75 @@
+package managers;
+
+import org.junit.jupiter.api.Test;
+import tasks.Task;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ConcurrentHistoryManagerTest extends HistoryManagerTest {
+
+    @Override
+    HistoryManager createHistoryManager(InMemoryHistoryManager history) {
+        return new ConcurrentHistoryManager(history);
+    }
+
+    @Test
+    void testConcurrentViewsAreAllRecorded() throws InterruptedException {
+        HistoryManager history = createHistoryManager();
+        List<Thread> threads = new ArrayList<>();
+        for (int thread = 0; thread < 8; thread++) {
+            final int offset = thread * 1000;
+            threads.add(new Thread(() -> {
+                for (int i = 0; i < 1000; i++) {
+                    Task task = new Task(TypeTask.TASK, "Задача", "Описание", LocalDateTime.now(), 0L);
+                    task.setId(offset + i);
+                    history.add(task);
+                }
+            }));
+        }
+        for (Thread thread : threads) {
+            thread.start();
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+
+        Set<Integer> ids = new HashSet<>();
+        for (Task task : history.getHistory()) {
+            assertTrue(ids.add(task.getId()), "Задача повторяется в истории.");
+        }
+        assertEquals(8000, ids.size(), "Просмотры потеряны.");
+
+        history.remove(0);
+        assertEquals(7999, history.getHistory().size(), "Задача не удалена из истории.");
+    }
+
+    @Test
+    void testViewBufferedAfterRemoveIsDropped() {
+        HistoryManager history = createHistoryManager();
+        Task task1 = new Task(TypeTask.TASK, "Задача1", "Описание1", LocalDateTime.now(), 0L);
+        task1.setId(1);
+        Task task2 = new Task(TypeTask.TASK, "Задача2", "Описание2", LocalDateTime.now(), 0L);
+        task2.setId(2);
+        Map<Integer, Task> tasks = new HashMap<>();
+        tasks.put(task1.getId(), task1);
+        tasks.put(task2.getId(), task2);
+        history.bind(tasks::get);
+        history.add(task1);
+        history.add(task2);
+
+        // Задачу прочитали из таблицы до удаления, а просмотр записали уже после него.
+        tasks.remove(task1.getId());
+        history.remove(task1.getId());
+        history.add(task1);
+
+        assertEquals(List.of(task2), history.getHistory(), "Удалённая задача вернулась в историю.");
+    }
+}
@@ -0,0 +1,285 @@
+package managers;
+
+import org.junit.jupiter.api.Test;
+import tasks.Epic;
+import tasks.Subtask;
+import tasks.Task;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ConcurrentTaskManagerTest extends TaskManagerTest<ConcurrentTaskManager> {
+
+    @Override
+    ConcurrentTaskManager getManager() {
+        return new ConcurrentTaskManager();
+    }
+
+    @Test
+    void testConcurrentCreationKeepsPeriodsDisjoint() throws Exception {
+        ConcurrentTaskManager manager = getManager();
+        Epic epic = new Epic(TypeTask.EPIC, "Эпик", "Эпик.Описание", LocalDateTime.now(), 0L);
+        manager.createEpic(epic);
+        LocalDateTime start = LocalDateTime.of(2022, 8, 1, 0, 0);
+
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        List<Future<?>> futures = new ArrayList<>();
+        for (int thread = 0; thread < 8; thread++) {
+            final int offset = thread;
+            futures.add(executor.submit(() -> {
+                // Потоки пытаются занять одни и те же часы: успешно может только один.
+                for (int i = 0; i < 200; i++) {
+                    LocalDateTime startTime = start.plusHours(i).plusMinutes(offset);
+                    if (i % 2 == 0) {
+                        manager.createTask(new Task(TypeTask.TASK, "Задача" + i, "Описание",
+                                startTime, (long) 30));
+                    } else {
+                        manager.createSubTask(new Subtask(TypeTask.SUBTASK, "Подзадача" + i, "Описание",
+                                startTime, (long) 30, epic.getId()));
+                    }
+                }
+            }));
+        }
+        for (Future<?> future : futures) {
+            future.get();
+        }
+        executor.shutdown();
+
+        List<Task> prioritized = manager.getPrioritizedTasks();
+        assertEquals(200, prioritized.size(), "Неверное количество задач в расписании.");
+        for (int i = 1; i < prioritized.size(); i++) {
+            assertFalse(prioritized.get(i).getStartTime().isBefore(prioritized.get(i - 1).getEndTime()),
+                    "Периоды задач пересекаются.");
+        }
+        Set<Integer> ids = new HashSet<>();
+        for (Task task : prioritized) {
+            assertTrue(ids.add(task.getId()), "Повторяющийся номер задачи.");
+        }
+        assertEquals(100, manager.getListSubTasks(epic.getId()).size(), "Неверное количество подзадач эпика.");
+    }
+
+    @Test
+    void testConcurrentDeleteAndUpdateKeepScheduleConsistent() throws Exception {
+        ConcurrentTaskManager manager = getManager();
+        LocalDateTime start = LocalDateTime.of(2022, 8, 1, 0, 0);
+        List<Task> created = new ArrayList<>();
+        for (int i = 0; i < 500; i++) {
+            Task task = new Task(TypeTask.TASK, "Задача" + i, "Описание", start.plusHours(i), (long) 30);
+            manager.createTask(task);
+            created.add(task);
+        }
+
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+        Future<?> deletion = executor.submit(() -> {
+            for (Task task : created) {
+                manager.deleteTaskById(task.getId());
+            }
+        });
+        Future<?> update = executor.submit(() -> {
+            for (Task task : created) {
+                Task taskUpdate = new Task(TypeTask.TASK, task.getName(), "Описание - new",
+                        task.getStartTime(), (long) 30);
+                taskUpdate.setId(task.getId());
+                manager.updatedTask(taskUpdate);
+            }
+        });
+        deletion.get();
+        update.get();
+        executor.shutdown();
+
+        Set<Integer> scheduled = new HashSet<>();
+        for (Task task : manager.getPrioritizedTasks()) {
+            scheduled.add(task.getId());
+        }
+        Set<Integer> stored = new HashSet<>();
+        for (Task task : manager.getAllTasks()) {
+            stored.add(task.getId());
+        }
+        assertEquals(stored, scheduled, "Расписание не совпадает с таблицей задач.");
+    }
+
+    @Test
+    void testConcurrentEarliestPlacementKeepsPeriodsDisjoint() throws Exception {
+        ConcurrentTaskManager manager = getManager();
+        LocalDateTime start = LocalDateTime.of(2022, 8, 1, 0, 0);
+
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        List<Future<?>> futures = new ArrayList<>();
+        for (int thread = 0; thread < 8; thread++) {
+            final int number = thread;
+            futures.add(executor.submit(() -> {
+                // Задачи со сроками борются за одни и те же промежутки, задачи без продолжительности
+                // создаются между ними и расписание не занимают.
+                for (int i = 0; i < 50; i++) {
+                    manager.createTaskAtEarliest(new Task(TypeTask.TASK, "Задача" + number + "-" + i, "Описание",
+                            null, (long) (30 + 30 * (i % 3))), start);
+                    manager.createTask(new Task(TypeTask.TASK, "Заметка" + number + "-" + i, "Описание",
+                            start.minusDays(1), 0L));
+                }
+            }));
+        }
+        for (Future<?> future : futures) {
+            future.get();
+        }
+        executor.shutdown();
+
+        List<Task> prioritized = manager.getPrioritizedTasks();
+        assertEquals(800, prioritized.size(), "Неверное количество задач в списке приоритетов.");
+        for (int i = 1; i < 400; i++) {
+            assertFalse(prioritized.get(i).getStartTime().isBefore(prioritized.get(i - 1).getEndTime()),
+                    "Периоды задач пересекаются.");
+        }
+        for (int i = 400; i < 800; i++) {
+            assertEquals(0L, prioritized.get(i).getDuration(), "Задачи без продолжительности идут не в конце.");
+        }
+        Set<Integer> ids = new HashSet<>();
+        for (Task task : prioritized) {
+            assertTrue(ids.add(task.getId()), "Повторяющийся номер задачи.");
+        }
+        assertEquals(start, prioritized.get(0).getStartTime(), "Первый промежуток не занят.");
+    }
+
+    @Test
+    void testTransactionIsRolledBackOnException() {
+        ConcurrentTaskManager manager = getManager();
+        Task task = new Task(TypeTask.TASK, "Задача", "Задача.Описание",
+                LocalDateTime.of(2022, 8, 1, 0, 0), 60L);
+        manager.createTask(task);
+        Epic epic = new Epic(TypeTask.EPIC, "Эпик", "Эпик.Описание", LocalDateTime.now(), 0L);
+        manager.createEpic(epic);
+        Subtask subtask = new Subtask(TypeTask.SUBTASK, "Подзадача", "Подзадача.Описание",
+                LocalDateTime.of(2022, 8, 2, 0, 0), 60L, epic.getId());
+        manager.createSubTask(subtask);
+        manager.getTaskById(task.getId());
+        TaskSnapshot snapshot = manager.snapshot();
+        LocalDateTime epicEnd = epic.getEndTimeEpic();
+
+        assertThrows(IllegalStateException.class, () -> manager.transaction(tx -> {
+            Subtask done = new Subtask(TypeTask.SUBTASK, "Подзадача", "Подзадача.Описание",
+                    LocalDateTime.of(2022, 8, 5, 0, 0), 60L, epic.getId());
+            done.setId(subtask.getId());
+            done.setStatus(StatusTask.DONE);
+            tx.updatedSubTask(done);
+            tx.createSubTask(new Subtask(TypeTask.SUBTASK, "Подзадача2", "Подзадача2.Описание",
+                    LocalDateTime.of(2022, 8, 6, 0, 0), 60L, epic.getId()));
+            tx.deleteTaskById(task.getId());
+            tx.createTask(new Task(TypeTask.TASK, "Задача2", "Задача2.Описание",
+                    LocalDateTime.of(2022, 8, 1, 0, 0), 60L));
+            tx.getEpicById(epic.getId()).setName("Эпик2");
+            throw new IllegalStateException("Отмена");
+        }), "Исключение из транзакции потеряно.");
+
+        assertEquals(List.of(task), manager.getAllTasks(), "Задачи не восстановлены.");
+        assertEquals(List.of(subtask), manager.getAllSubtasks(), "Подзадачи не восстановлены.");
+        assertEquals(List.of(subtask), epic.getListSubTask(), "Подзадачи эпика не восстановлены.");
+        assertEquals(StatusTask.NEW, manager.getStatusById(epic.getId()), "Статус эпика не восстановлен.");
+        assertEquals(epicEnd, epic.getEndTimeEpic(), "Сроки эпика не восстановлены.");
+        assertEquals("Эпик", epic.getName(), "Изменение через сеттер не отменено.");
+        assertEquals(List.of(task, subtask), manager.getPrioritizedTasks(), "Расписание не восстановлено.");
+        assertSame(snapshot, manager.snapshot(), "Откат опубликовал изменения.");
+        assertTrue(manager.getHistory().contains(task), "Удаление из истории не отменено.");
+        assertEquals(3, manager.getByStatus(StatusTask.NEW).size(), "Индекс статусов изменён.");
+
+        Task next = new Task(TypeTask.TASK, "Задача3", "Задача3.Описание", LocalDateTime.now(), 0L);
+        manager.createTask(next);
+        assertEquals(subtask.getId() + 1, next.getId(), "Счётчик номеров не восстановлен.");
+    }
+
+    @Test
+    void testTransactionPublishesOnceAndBlocksWriters() throws Exception {
+        ConcurrentTaskManager manager = getManager();
+        LocalDateTime start = LocalDateTime.of(2022, 8, 1, 0, 0);
+        CountDownLatch isStarted = new CountDownLatch(1);
+        CountDownLatch isReleased = new CountDownLatch(1);
+
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+        Future<?> transaction = executor.submit(() -> manager.transaction(tx -> {
+            Epic epic = new Epic(TypeTask.EPIC, "Эпик", "Эпик.Описание", LocalDateTime.now(), 0L);
+            tx.createEpic(epic);
+            for (int i = 0; i < 10; i++) {
+                tx.createSubTask(new Subtask(TypeTask.SUBTASK, "Подзадача" + i, "Описание",
+                        start.plusHours(i), 30L, epic.getId()));
+            }
+            isStarted.countDown();
+            try {
+                isReleased.await();
+            } catch (InterruptedException exception) {
+                throw new IllegalStateException(exception);
+            }
+        }));
+        isStarted.await();
+        assertEquals(0, manager.snapshot().size(), "Срез показал незафиксированную транзакцию.");
+        assertTrue(manager.search("Подзадача", 20).isEmpty(), "Индекс показал незафиксированную транзакцию.");
+        Future<?> writer = executor.submit(() -> manager.createTask(new Task(TypeTask.TASK, "Заметка",
+                "Описание", start.minusDays(1), 0L)));
+        assertThrows(TimeoutException.class, () -> writer.get(100, TimeUnit.MILLISECONDS),
+                "Запись не дождалась конца транзакции.");
+
+        isReleased.countDown();
+        transaction.get();
+        writer.get();
+        executor.shutdown();
+
+        assertEquals(12, manager.snapshot().size(), "Транзакция опубликована не целиком.");
+        assertEquals(10, manager.getListSubTasks(1).size(), "Неверное количество подзадач эпика.");
+        assertEquals(12, manager.getAllTasks().get(0).getId(), "Номер после транзакции выдан неверно.");
+    }
+
+    @Test
+    void testSnapshotShowsWholeOperations() throws Exception {
+        ConcurrentTaskManager manager = getManager();
+        LocalDateTime start = LocalDateTime.of(2022, 8, 1, 0, 0);
+        AtomicBoolean isDone = new AtomicBoolean();
+
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+        Future<?> writer = executor.submit(() -> {
+            for (int i = 0; i < 200; i++) {
+                Epic epic = new Epic(TypeTask.EPIC, "Эпик" + i, "Эпик.Описание", LocalDateTime.now(), 0L);
+                manager.createEpic(epic);
+                List<Subtask> batch = new ArrayList<>();
+                for (int j = 0; j < 10; j++) {
+                    batch.add(new Subtask(TypeTask.SUBTASK, "Подзадача" + j, "Описание",
+                            start.plusHours(i * 10 + j), (long) 30, epic.getId()));
+                }
+                manager.createAll(batch);
+                manager.deleteEpicById(epic.getId());
+            }
+            isDone.set(true);
+        });
+        Future<Boolean> reader = executor.submit(() -> {
+            while (!isDone.get()) {
+                TaskSnapshot snapshot = manager.snapshot();
+                for (Subtask subtask : snapshot.getAllSubtasks()) {
+                    if (!snapshot.getEpic().containsKey(subtask.getIdEpic())) {
+                        return false;
+                    }
+                }
+                for (Epic epic : snapshot.getAllEpics()) {
+                    int size = snapshot.getListSubTasks(epic.getId()).size();
+                    if (size != 0 && size != 10) {
+                        return false;
+                    }
+                }
+            }
+            return true;
+        });
+        writer.get();
+        boolean isConsistent = reader.get();
+        executor.shutdown();
+
+        assertTrue(isConsistent, "Срез показал незавершённую операцию.");
+        assertEquals(0, manager.snapshot().size(), "Срез не совпадает с хранилищем.");
+    }
+}
@@ -1,9 +1,17 @@
 package managers;
 
 import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import tasks.Epic;
+import tasks.Subtask;
 import tasks.Task;
 
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
 import java.time.LocalDateTime;
+import java.util.ArrayList;
 import java.util.List;
 
 import static org.junit.jupiter.api.Assertions.*;
@@ -31,4 +39,437 @@ class FileBackedTasksManagerTest extends TaskManagerTest<FileBackedTasksManager>
         assertEquals(1, tasks.size(), "Неверное количество задач.");
         assertEquals(task, tasks.get(0), "Задачи не совпадают.");
     }
-}
\ No newline at end of file
+
+    @Test
+    void testJournalRecovery(@TempDir Path directory) {
+        String fileName = directory.resolve("tasks.csv").toString();
+        String journalFileName = directory.resolve("tasks.journal").toString();
+        FileBackedTasksManager manager = new FileBackedTasksManager(fileName, journalFileName, 3);
+
+        Task task = new Task(TypeTask.TASK, "Задача1", "Задача1.Описание",
+                LocalDateTime.of(2022, 8, 1, 0, 0), (long) (60 * 24 * 3));
+        manager.createTask(task);
+        Epic epic = new Epic(TypeTask.EPIC, "Эпик", "Эпик.Описание", LocalDateTime.now(), 0L);
+        manager.createEpic(epic);
+        Subtask subtask = new Subtask(TypeTask.SUBTASK, "Подзадача1", "Подзадача1.Описание",
+                LocalDateTime.of(2022, 8, 10, 0, 0), (long) (60 * 24 * 5), epic.getId());
+        subtask.setStatus(StatusTask.DONE);
+        manager.createSubTask(subtask);
+        Task task2 = new Task(TypeTask.TASK, "Задача2", "Задача2.Описание",
+                LocalDateTime.of(2022, 9, 1, 0, 0), (long) (60 * 24));
+        manager.createTask(task2);
+        manager.getTaskById(task.getId());
+        manager.deleteTaskById(task2.getId());
+        manager.close();
+
+        FileBackedTasksManager restored = FileBackedTasksManager.loadFromFile(fileName, journalFileName, 3);
+
+        assertEquals(List.of(task), restored.getAllTasks(), "Задачи не восстановлены из журнала.");
+        assertEquals(List.of(subtask), restored.getAllSubtasks(), "Подзадачи не восстановлены из журнала.");
+        assertEquals(StatusTask.DONE, restored.getStatusById(epic.getId()), "Статус эпика не восстановлен.");
+        assertEquals(List.of(task, epic), restored.getHistory(), "История не восстановлена из журнала.");
+        assertEquals(2, restored.getPrioritizedTasks().size(), "Неверное количество приоритетных задач.");
+        restored.close();
+    }
+
+    @Test
+    void testBatchedPolicyWritesOnFlush(@TempDir Path directory) {
+        Path file = directory.resolve("tasks.csv");
+        FileBackedTasksManager manager = new FileBackedTasksManager(file.toString(),
+                PersistencePolicy.batched(100, 60_000));
+        Task task = new Task(TypeTask.TASK, "Задача1", "Задача1.Описание",
+                LocalDateTime.of(2022, 8, 1, 0, 0), (long) (60 * 24 * 3));
+        manager.createTask(task);
+
+        assertFalse(Files.exists(file), "Изменения записаны до группового сброса.");
+
+        manager.flush();
+        final List<Task> tasks = FileBackedTasksManager.loadFromFile(file.toString()).getAllTasks();
+
+        assertEquals(List.of(task), tasks, "Задачи не записаны при сбросе.");
+    }
+
+    @Test
+    void testBatchedPolicyWritesWhenIdle(@TempDir Path directory) throws InterruptedException {
+        Path file = directory.resolve("tasks.csv");
+        FileBackedTasksManager manager = new FileBackedTasksManager(file.toString(),
+                PersistencePolicy.batched(100, 50));
+        Task task1 = new Task(TypeTask.TASK, "Задача1", "Задача1.Описание",
+                LocalDateTime.of(2022, 8, 1, 0, 0), (long) 60);
+        manager.createTask(task1);
+        Task task2 = new Task(TypeTask.TASK, "Задача2", "Задача2.Описание",
+                LocalDateTime.of(2022, 8, 2, 0, 0), (long) 60);
+        manager.createTask(task2);
+
+        Thread.sleep(300);
+
+        assertEquals(List.of(task1, task2), FileBackedTasksManager.loadFromFile(file.toString()).getAllTasks(),
+                "Изменения не записаны по истечении интервала.");
+        manager.close();
+    }
+
+    @Test
+    void testBackgroundWriteFailureIsReported(@TempDir Path directory) throws IOException, InterruptedException {
+        Path file = directory.resolve("tasks.csv");
+        FileBackedTasksManager manager = new FileBackedTasksManager(file.toString(),
+                PersistencePolicy.batched(100, 200));
+        Task task = new Task(TypeTask.TASK, "Задача1", "Задача1.Описание",
+                LocalDateTime.of(2022, 8, 1, 0, 0), (long) 60);
+        manager.createTask(task);
+        // Каталог на месте файла снимка: фоновая запись завершится ошибкой.
+        Files.createDirectory(file);
+
+        Thread.sleep(600);
+        Files.delete(file);
+
+        assertThrows(ManagerSaveException.class, manager::flush, "Ошибка фоновой записи потеряна.");
+        manager.flush();
+        assertEquals(List.of(task), FileBackedTasksManager.loadFromFile(file.toString()).getAllTasks(),
+                "Изменения не записаны после ошибки.");
+        manager.close();
+    }
+
+    @Test
+    void testBatchedPolicyWritesViewsWhenIdle(@TempDir Path directory) throws InterruptedException {
+        Path file = directory.resolve("tasks.csv");
+        FileBackedTasksManager manager = new FileBackedTasksManager(file.toString(),
+                PersistencePolicy.batched(1, 50));
+        Task task = new Task(TypeTask.TASK, "Задача1", "Задача1.Описание",
+                LocalDateTime.of(2022, 8, 1, 0, 0), (long) 60);
+        manager.createTask(task);
+        manager.getTaskById(task.getId());
+
+        Thread.sleep(300);
+
+        assertEquals(List.of(task), FileBackedTasksManager.loadFromFile(file.toString()).getHistory(),
+                "Просмотр не записан по истечении интервала.");
+        manager.close();
+    }
+
+    @Test
+    void testViewDoesNotRewriteFile(@TempDir Path directory) throws IOException {
+        Path file = directory.resolve("tasks.csv");
+        FileBackedTasksManager manager = new FileBackedTasksManager(file.toString());
+        Task task = new Task(TypeTask.TASK, "Задача1", "Задача1.Описание",
+                LocalDateTime.of(2022, 8, 1, 0, 0), (long) (60 * 24 * 3));
+        manager.createTask(task);
+        String content = Files.readString(file);
+
+        manager.getTaskById(task.getId());
+
+        assertEquals(content, Files.readString(file), "Просмотр задачи перезаписал файл.");
+        manager.flush();
+        assertEquals(List.of(task), FileBackedTasksManager.loadFromFile(file.toString()).getHistory(),
+                "История не записана при сбросе.");
+    }
+
+    @Test
+    void testAsyncJournalWriter(@TempDir Path directory) {
+        String fileName = directory.resolve("tasks.csv").toString();
+        String journalFileName = directory.resolve("tasks.journal").toString();
+        FileBackedTasksManager manager = new FileBackedTasksManager(fileName, journalFileName, 5,
+                PersistencePolicy.async(2, false));
+
+        for (int i = 0; i < 10; i++) {
+            manager.createTask(new Task(TypeTask.TASK, "Задача" + i, "Описание" + i,
+                    LocalDateTime.of(2022, 8, 1, 0, 0).plusDays(i), (long) 60));
+        }
+        manager.lastWrite().join();
+        AsyncJournalWriter writer = manager.getAsyncWriter();
+
+        assertEquals(10, writer.getWrittenRecords(), "Неверное количество записанных операций.");
+        assertTrue(writer.getFlushCount() > 0, "Журнал не сбрасывался на диск.");
+
+        final List<Task> tasks = manager.getAllTasks();
+        manager.close();
+        FileBackedTasksManager restored = FileBackedTasksManager.loadFromFile(fileName, journalFileName, 5);
+
+        assertEquals(tasks, restored.getAllTasks(), "Задачи не восстановлены после асинхронной записи.");
+        restored.close();
+    }
+
+    @Test
+    void testBinarySnapshotRoundTrip(@TempDir Path directory) {
+        String fileName = directory.resolve("tasks.bin").toString();
+        FileBackedTasksManager manager = new FileBackedTasksManager(fileName, PersistencePolicy.immediate(),
+                new BinarySerializator());
+
+        Task task = new Task(TypeTask.TASK, "Задача, с запятой", "Описание, тоже с запятой",
+                LocalDateTime.of(2022, 8, 1, 9, 0), (long) 30);
+        manager.createTask(task);
+        Epic epic = new Epic(TypeTask.EPIC, "Эпик", "Эпик.Описание", LocalDateTime.now(), 0L);
+        manager.createEpic(epic);
+        manager.createSubTask(new Subtask(TypeTask.SUBTASK, "Подзадача", "Подзадача.Описание",
+                LocalDateTime.of(2022, 8, 2, 9, 0), (long) 45, epic.getId()));
+        manager.getTaskById(task.getId());
+        manager.getEpicById(epic.getId());
+        manager.flush();
+
+        FileBackedTasksManager restored = FileBackedTasksManager.loadFromFile(fileName, new BinarySerializator());
+
+        assertEquals(manager.getAllTasks(), restored.getAllTasks(), "Задачи не восстановлены из двоичного снимка.");
+        assertEquals(manager.getAllEpics(), restored.getAllEpics(), "Эпики не восстановлены из двоичного снимка.");
+        assertEquals(manager.getAllSubtasks(), restored.getAllSubtasks(),
+                "Подзадачи не восстановлены из двоичного снимка.");
+        assertEquals(manager.getHistory(), restored.getHistory(), "История не восстановлена из двоичного снимка.");
+    }
+
+    @Test
+    void testCorruptBinaryCountsAreRejected(@TempDir Path directory) throws IOException {
+        Path file = directory.resolve("tasks.bin");
+        byte[] header = {'T', 'M', 'S', 'B', 1};
+        // Число задач Integer.MAX_VALUE, -1 и задача с длиной названия около 2^31.
+        byte[][] corruptions = {
+                {(byte) 0xFF, (byte) 0xFF, (byte) 0xFF, (byte) 0xFF, 0x07},
+                {(byte) 0xFF, (byte) 0xFF, (byte) 0xFF, (byte) 0xFF, 0x0F},
+                {1, 1, 0, 0, 0, 0, (byte) 0xFF, (byte) 0xFF, (byte) 0xFF, (byte) 0xFF, 0x07}
+        };
+        for (byte[] corruption : corruptions) {
+            byte[] bytes = new byte[header.length + corruption.length];
+            System.arraycopy(header, 0, bytes, 0, header.length);
+            System.arraycopy(corruption, 0, bytes, header.length, corruption.length);
+            Files.write(file, bytes);
+
+            assertThrows(ManagerSaveException.class,
+                    () -> FileBackedTasksManager.loadFromFile(file.toString(), new BinarySerializator()),
+                    "Повреждённый снимок не отвергнут.");
+        }
+    }
+
+    @Test
+    void testMappedSnapshotLoadsTasksOnDemand(@TempDir Path directory) {
+        String fileName = directory.resolve("tasks.bin").toString();
+        FileBackedTasksManager manager = new FileBackedTasksManager(fileName, PersistencePolicy.immediate(),
+                new BinarySerializator());
+        for (int i = 0; i < 10; i++) {
+            manager.createTask(new Task(TypeTask.TASK, "Задача" + i, "Описание" + i,
+                    LocalDateTime.of(2022, 8, 1, 0, 0).plusDays(i), (long) 60));
+        }
+        Epic epic = new Epic(TypeTask.EPIC, "Эпик", "Эпик.Описание", LocalDateTime.now(), 0L);
+        manager.createEpic(epic);
+        Subtask subtask = new Subtask(TypeTask.SUBTASK, "Подзадача", "Подзадача.Описание",
+                LocalDateTime.of(2022, 9, 1, 0, 0), (long) 45, epic.getId());
+        subtask.setStatus(StatusTask.DONE);
+        manager.createSubTask(subtask);
+        manager.getTaskById(3);
+        manager.flush();
+
+        FileBackedTasksManager restored = FileBackedTasksManager.loadMapped(fileName);
+
+        // В истории эпик (просмотрен при создании подзадачи) и задача 3; эпик загружается с подзадачей.
+        assertEquals(3, restored.materializedCount(), "При старте загружены лишние задачи.");
+        assertEquals(manager.getHistory(), restored.getHistory(), "История не восстановлена из снимка.");
+        assertEquals(subtask, restored.getSubTaskById(subtask.getId()), "Подзадача не восстановлена.");
+        assertEquals(StatusTask.DONE, restored.getStatusById(epic.getId()), "Статус эпика не восстановлен.");
+        assertEquals(manager.getTask().get(5), restored.getTaskById(5), "Задача не загружена по запросу.");
+        assertEquals(4, restored.materializedCount(), "Загружены лишние задачи.");
+        assertEquals(manager.getAllTasks(), restored.getAllTasks(), "Задачи не восстановлены из снимка.");
+        assertEquals(manager.getPrioritizedTasks(), restored.getPrioritizedTasks(),
+                "Неверный порядок приоритетных задач.");
+    }
+
+    @Test
+    void testMappedSnapshotWritesOnlyTouchedTasks(@TempDir Path directory) {
+        String fileName = directory.resolve("tasks.bin").toString();
+        FileBackedTasksManager manager = new FileBackedTasksManager(fileName, PersistencePolicy.immediate(),
+                new BinarySerializator());
+        for (int i = 0; i < 10; i++) {
+            manager.createTask(new Task(TypeTask.TASK, "Задача" + i, "Описание" + i,
+                    LocalDateTime.of(2022, 8, 1, 0, 0).plusDays(i), (long) 60));
+        }
+        manager.flush();
+
+        FileBackedTasksManager restored = FileBackedTasksManager.loadMapped(fileName);
+        Task update = new Task(TypeTask.TASK, "Задача2", "Описание2",
+                LocalDateTime.of(2022, 8, 3, 0, 0), (long) 60);
+        update.setId(3);
+        update.setStatus(StatusTask.DONE);
+        restored.updatedTask(update);
+        restored.deleteTaskById(5);
+
+        assertEquals(2, restored.materializedCount(), "Изменение одной задачи загрузило весь снимок.");
+
+        // Файл снимка заменён, а ещё не загруженные задачи читаются из прежнего отображения.
+        assertEquals(manager.getTask().get(7), restored.getTaskById(7), "Задача не загружена после записи.");
+        FileBackedTasksManager reopened = FileBackedTasksManager.loadMapped(fileName);
+        assertEquals(9, reopened.getAllTasks().size(), "Незагруженные задачи потеряны при записи.");
+        assertEquals(StatusTask.DONE, reopened.getTaskById(3).getStatus(), "Изменение задачи не записано.");
+        assertNull(reopened.getTaskById(5), "Удаление задачи не записано.");
+    }
+
+    @Test
+    void testCsvQuotedFieldsRoundTrip(@TempDir Path directory) {
+        String fileName = directory.resolve("tasks.csv").toString();
+        FileBackedTasksManager manager = new FileBackedTasksManager(fileName);
+        Task task = new Task(TypeTask.TASK, "Задача, \"важная\"", "Строка 1,\nстрока 2",
+                LocalDateTime.of(2022, 8, 1, 9, 0), (long) 30);
+        manager.createTask(task);
+        manager.getTaskById(task.getId());
+        manager.flush();
+
+        FileBackedTasksManager restored = FileBackedTasksManager.loadFromFile(fileName);
+
+        assertEquals(List.of(task), restored.getAllTasks(), "Поля с запятыми и кавычками не восстановлены.");
+        assertEquals(List.of(task), restored.getHistory(), "История не восстановлена.");
+    }
+
+    @Test
+    void testOversizedDurationIsRejected(@TempDir Path directory) throws IOException {
+        Path file = directory.resolve("tasks.csv");
+        Files.writeString(file, "id,type,name,status,description,epic\n"
+                + "1,TASK,Задача,NEW,Описание,01.08.22 00:00 ,92233720368547758080,\n\n");
+
+        assertThrows(NumberFormatException.class, () -> FileBackedTasksManager.loadFromFile(file.toString()),
+                "Переполнение длительности не обнаружено.");
+    }
+
+    @Test
+    void testSubtaskCreationWritesSingleEpicView(@TempDir Path directory) throws IOException {
+        String fileName = directory.resolve("tasks.csv").toString();
+        String journalFileName = directory.resolve("tasks.journal").toString();
+        FileBackedTasksManager manager = new FileBackedTasksManager(fileName, journalFileName, 100);
+        Epic epic = new Epic(TypeTask.EPIC, "Эпик", "Эпик.Описание", LocalDateTime.now(), 0L);
+        manager.createEpic(epic);
+        manager.createSubTask(new Subtask(TypeTask.SUBTASK, "Подзадача", "Подзадача.Описание",
+                LocalDateTime.of(2022, 8, 1, 9, 0), (long) 30, epic.getId()));
+        manager.close();
+
+        long views = Files.readAllLines(Path.of(journalFileName)).stream()
+                .filter(line -> line.startsWith(TaskJournal.VIEW + ","))
+                .count();
+
+        assertEquals(1, views, "Просмотр эпика записан в журнал несколько раз.");
+    }
+
+    @Test
+    void testTornJournalRecordIsDropped(@TempDir Path directory) throws IOException {
+        String fileName = directory.resolve("tasks.csv").toString();
+        String journalFileName = directory.resolve("tasks.journal").toString();
+        FileBackedTasksManager manager = new FileBackedTasksManager(fileName, journalFileName, 100);
+        Task task = new Task(TypeTask.TASK, "Задача", "Описание\nв две строки",
+                LocalDateTime.of(2022, 8, 1, 9, 0), (long) 30);
+        manager.createTask(task);
+        manager.close();
+        // Сбой посреди записи: удаление задачи 1 оборвано на полуслове.
+        Files.writeString(Path.of(journalFileName), "D,", StandardOpenOption.APPEND);
+
+        FileBackedTasksManager restored = FileBackedTasksManager.loadFromFile(fileName, journalFileName, 100);
+        Task task2 = new Task(TypeTask.TASK, "Задача2", "Описание2",
+                LocalDateTime.of(2022, 8, 2, 9, 0), (long) 30);
+        restored.createTask(task2);
+        restored.close();
+        FileBackedTasksManager reopened = FileBackedTasksManager.loadFromFile(fileName, journalFileName, 100);
+
+        assertEquals(List.of(task, task2), reopened.getAllTasks(), "Оборванная запись журнала не отброшена.");
+        reopened.close();
+    }
+
+    @Test
+    void testBulkLoadOfLargeSnapshot(@TempDir Path directory) throws IOException {
+        String fileName = directory.resolve("tasks.csv").toString();
+        FileBackedTasksManager manager = new FileBackedTasksManager(fileName, PersistencePolicy.batched(100000,
+                60000));
+        String description = "Описание, длинное".repeat(30);
+        for (int i = 0; i < 3000; i++) {
+            manager.createTask(new Task(TypeTask.TASK, "Задача" + i, description,
+                    LocalDateTime.of(2022, 1, 1, 0, 0).plusHours(i), (long) 30));
+        }
+        Epic epic = new Epic(TypeTask.EPIC, "Эпик", "Эпик.Описание", LocalDateTime.now(), 0L);
+        manager.createEpic(epic);
+        Subtask subtask1 = new Subtask(TypeTask.SUBTASK, "Подзадача1", "Подзадача1.Описание",
+                LocalDateTime.of(2023, 1, 1, 0, 0), (long) 60, epic.getId());
+        subtask1.setStatus(StatusTask.DONE);
+        manager.createSubTask(subtask1);
+        Subtask subtask2 = new Subtask(TypeTask.SUBTASK, "Подзадача2", "Подзадача2.Описание",
+                LocalDateTime.of(2023, 1, 5, 0, 0), (long) 60, epic.getId());
+        manager.createSubTask(subtask2);
+        manager.getTaskById(10);
+        manager.flush();
+        byte[] content = Files.readAllBytes(Path.of(fileName));
+        assertTrue(content.length > 1 << 20, "Снимок слишком мал для параллельного разбора.");
+
+        FileBackedTasksManager restored = FileBackedTasksManager.loadFromFile(fileName);
+
+        assertEquals(manager.getAllTasks(), restored.getAllTasks(), "Задачи не восстановлены.");
+        assertEquals(manager.getAllSubtasks(), restored.getAllSubtasks(), "Подзадачи не восстановлены.");
+        Epic restoredEpic = restored.getEpic().get(epic.getId());
+        assertEquals(StatusTask.IN_PROGRESS, restoredEpic.getStatus(), "Статус эпика не пересчитан.");
+        assertEquals(subtask1.getStartTime(), restoredEpic.getStartTime(), "Начало эпика не пересчитано.");
+        assertEquals(subtask2.getEndTime(), restoredEpic.getEndTimeEpic(), "Окончание эпика не пересчитано.");
+        assertEquals(manager.getPrioritizedTasks(), restored.getPrioritizedTasks(),
+                "Неверный порядок приоритетных задач.");
+        assertArrayEquals(content, Files.readAllBytes(Path.of(fileName)), "Загрузка изменила файл.");
+    }
+
+    @Test
+    void testBoundedHistoryKeepsSnapshotSmall(@TempDir Path directory) {
+        String fileName = directory.resolve("tasks.csv").toString();
+        FileBackedTasksManager manager = new FileBackedTasksManager(fileName, PersistencePolicy.immediate(),
+                new CSVSerializator(), Managers.getDefaultHistory(2));
+        for (int i = 0; i < 5; i++) {
+            Task task = new Task(TypeTask.TASK, "Задача" + i, "Описание" + i,
+                    LocalDateTime.of(2022, 8, 1, 0, 0).plusDays(i), (long) 60);
+            manager.createTask(task);
+            manager.getTaskById(task.getId());
+        }
+        manager.flush();
+
+        FileBackedTasksManager restored = FileBackedTasksManager.loadFromFile(fileName);
+
+        assertEquals(List.of(manager.getTask().get(5), manager.getTask().get(4)), restored.getHistory(),
+                "В снимок попала история сверх ограничения.");
+    }
+
+    @Test
+    void testCreateAllIsPersisted(@TempDir Path directory) {
+        String fileName = directory.resolve("tasks.csv").toString();
+        FileBackedTasksManager manager = new FileBackedTasksManager(fileName);
+        Epic epic = new Epic(TypeTask.EPIC, "Эпик", "Эпик.Описание", LocalDateTime.now(), 0L);
+        manager.createEpic(epic);
+        List<Task> batch = new ArrayList<>();
+        for (int i = 0; i < 100; i++) {
+            batch.add(new Subtask(TypeTask.SUBTASK, "Подзадача" + i, "Описание" + i,
+                    LocalDateTime.of(2022, 8, 1, 0, 0).plusHours(i), 60L, epic.getId()));
+        }
+
+        assertTrue(manager.createAll(batch).isAllCreated(), "Пакет создан не полностью.");
+
+        FileBackedTasksManager restored = FileBackedTasksManager.loadFromFile(fileName);
+        assertEquals(manager.getAllSubtasks(), restored.getAllSubtasks(), "Пакет не сохранён.");
+        assertEquals(100, restored.getListSubTasks(epic.getId()).size(), "Подзадачи не привязаны к эпику.");
+    }
+
+    @Test
+    void testTransactionIsJournaledAsOneGroup(@TempDir Path directory) throws IOException {
+        String fileName = directory.resolve("tasks.csv").toString();
+        String journalFileName = directory.resolve("tasks.journal").toString();
+        FileBackedTasksManager manager = new FileBackedTasksManager(fileName, journalFileName, 100);
+        Task task = new Task(TypeTask.TASK, "Задача1", "Задача1.Описание",
+                LocalDateTime.of(2022, 8, 1, 0, 0), 60L);
+        Task task2 = new Task(TypeTask.TASK, "Задача2", "Задача2.Описание",
+                LocalDateTime.of(2022, 8, 2, 0, 0), 60L);
+        manager.transaction(tx -> {
+            tx.createTask(task);
+            tx.createTask(task2);
+        });
+        assertThrows(IllegalStateException.class, () -> manager.transaction(tx -> {
+            tx.deleteTaskById(task.getId());
+            throw new IllegalStateException("Отмена");
+        }));
+        manager.close();
+        // Сбой посреди записи следующей транзакции: заголовок есть, записей нет.
+        Files.writeString(Path.of(journalFileName), "T,2\nD,1\n", StandardOpenOption.APPEND);
+
+        FileBackedTasksManager restored = FileBackedTasksManager.loadFromFile(fileName, journalFileName, 100);
+        assertEquals(List.of(task, task2), restored.getAllTasks(), "Транзакции восстановлены неверно.");
+        Task task3 = new Task(TypeTask.TASK, "Задача3", "Задача3.Описание",
+                LocalDateTime.of(2022, 8, 3, 0, 0), 60L);
+        restored.createTask(task3);
+        restored.close();
+
+        FileBackedTasksManager reopened = FileBackedTasksManager.loadFromFile(fileName, journalFileName, 100);
+        assertEquals(List.of(task, task2, task3), reopened.getAllTasks(),
+                "Недописанная транзакция не отброшена.");
+        reopened.close();
+    }
+}
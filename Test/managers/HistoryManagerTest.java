@@ -7,7 +7,12 @@ import tasks.Epic;
 import tasks.Subtask;
 import tasks.Task;
 
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
 import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
 import java.util.List;
 
 import static org.junit.jupiter.api.Assertions.*;
@@ -20,9 +25,17 @@ class HistoryManagerTest {
     private Epic epic;
     private Subtask subtask;
 
+    HistoryManager createHistoryManager() {
+        return createHistoryManager(new InMemoryHistoryManager());
+    }
+
+    HistoryManager createHistoryManager(InMemoryHistoryManager history) {
+        return history;
+    }
+
     @BeforeEach
     void init() {
-        historyManager = new InMemoryHistoryManager();
+        historyManager = createHistoryManager();
 
         task = new Task(TypeTask.TASK, "Задача1", "Задача1.Описание",
                 LocalDateTime.of(2022, 8, 1, 0, 0),
@@ -125,4 +138,57 @@ class HistoryManagerTest {
         assertEquals(subtask, history.get(0), "Неправильный порядок задач в истории.");
         assertEquals(epic, history.get(1), "Неправильный порядок задач в истории.");
     }
-}
\ No newline at end of file
+
+    @Test
+    void testBoundedHistoryEvictsLeastRecentlyViewed() {
+        InMemoryHistoryManager bounded = new InMemoryHistoryManager(2);
+        HistoryManager history = createHistoryManager(bounded);
+        history.add(task);
+        history.add(epic);
+        history.add(subtask);
+        history.add(epic);
+
+        assertEquals(List.of(epic, subtask), history.getHistory(), "Вытеснен не самый давний просмотр.");
+        assertEquals(1, bounded.getEvictionCount(), "Неверное количество вытеснений.");
+        assertEquals(0.25, bounded.getHitRate(), "Неверная доля повторных просмотров.");
+    }
+
+    @Test
+    void testHistoryExpiresAfterTimeToLive() {
+        MutableClock clock = new MutableClock();
+        InMemoryHistoryManager bounded = new InMemoryHistoryManager(10, Duration.ofHours(1), clock);
+        HistoryManager history = createHistoryManager(bounded);
+        history.add(task);
+        assertEquals(List.of(task), history.getHistory(), "Просмотр не добавлен в историю.");
+        clock.advance(Duration.ofMinutes(30));
+        history.add(epic);
+        assertEquals(List.of(epic, task), history.getHistory(), "Просмотр удалён раньше времени.");
+        clock.advance(Duration.ofMinutes(40));
+
+        assertEquals(List.of(epic), history.getHistory(), "Устаревший просмотр не удалён.");
+        assertEquals(1, bounded.getExpirationCount(), "Неверное количество устаревших просмотров.");
+    }
+
+    private static class MutableClock extends Clock {
+        private Instant now = Instant.parse("2022-08-01T00:00:00Z");
+
+        void advance(Duration duration) {
+            now = now.plus(duration);
+        }
+
+        @Override
+        public ZoneId getZone() {
+            return ZoneOffset.UTC;
+        }
+
+        @Override
+        public Clock withZone(ZoneId zone) {
+            return this;
+        }
+
+        @Override
+        public Instant instant() {
+            return now;
+        }
+    }
+}
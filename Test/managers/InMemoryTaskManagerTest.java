@@ -1,5 +1,13 @@
 package managers;
 
+import org.junit.jupiter.api.Test;
+import tasks.Epic;
+import tasks.Subtask;
+import tasks.Task;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
 import static org.junit.jupiter.api.Assertions.*;
 
 class InMemoryTaskManagerTest extends TaskManagerTest<InMemoryTaskManager> {
@@ -8,4 +16,100 @@ class InMemoryTaskManagerTest extends TaskManagerTest<InMemoryTaskManager> {
     InMemoryTaskManager getManager() {
         return new InMemoryTaskManager();
     }
+
+    @Test
+    void testTransactionIsRolledBackOnException() {
+        InMemoryTaskManager manager = getManager();
+        Task task = new Task(TypeTask.TASK, "Задача", "Задача.Описание",
+                LocalDateTime.of(2022, 8, 1, 0, 0), 60L);
+        manager.createTask(task);
+        Epic epic = new Epic(TypeTask.EPIC, "Эпик", "Эпик.Описание", LocalDateTime.now(), 0L);
+        manager.createEpic(epic);
+        Subtask subtask = new Subtask(TypeTask.SUBTASK, "Подзадача", "Подзадача.Описание",
+                LocalDateTime.of(2022, 8, 2, 0, 0), 60L, epic.getId());
+        manager.createSubTask(subtask);
+        manager.getTaskById(task.getId());
+        List<Task> history = manager.getHistory();
+        LocalDateTime epicEnd = epic.getEndTimeEpic();
+
+        assertThrows(IllegalStateException.class, () -> manager.transaction(tx -> {
+            Subtask done = new Subtask(TypeTask.SUBTASK, "Подзадача", "Подзадача.Описание",
+                    LocalDateTime.of(2022, 8, 5, 0, 0), 60L, epic.getId());
+            done.setId(subtask.getId());
+            done.setStatus(StatusTask.DONE);
+            tx.updatedSubTask(done);
+            tx.createSubTask(new Subtask(TypeTask.SUBTASK, "Подзадача2", "Подзадача2.Описание",
+                    LocalDateTime.of(2022, 8, 6, 0, 0), 60L, epic.getId()));
+            tx.deleteTaskById(task.getId());
+            tx.createTask(new Task(TypeTask.TASK, "Задача2", "Задача2.Описание",
+                    LocalDateTime.of(2022, 8, 1, 0, 0), 60L));
+            throw new IllegalStateException("Отмена");
+        }), "Исключение из транзакции потеряно.");
+
+        assertEquals(List.of(task), manager.getAllTasks(), "Задачи не восстановлены.");
+        assertEquals(List.of(subtask), manager.getAllSubtasks(), "Подзадачи не восстановлены.");
+        assertEquals(List.of(subtask), epic.getListSubTask(), "Подзадачи эпика не восстановлены.");
+        assertEquals(StatusTask.NEW, manager.getStatusById(epic.getId()), "Статус эпика не восстановлен.");
+        assertEquals(epicEnd, epic.getEndTimeEpic(), "Сроки эпика не восстановлены.");
+        assertEquals(List.of(task, subtask), manager.getPrioritizedTasks(), "Расписание не восстановлено.");
+        assertEquals(history, manager.getHistory(), "История не восстановлена.");
+        assertEquals(3, manager.getByStatus(StatusTask.NEW).size(), "Индекс статусов не восстановлен.");
+        assertTrue(manager.getByStatus(StatusTask.DONE).isEmpty(), "Индекс статусов не восстановлен.");
+
+        Task next = new Task(TypeTask.TASK, "Задача3", "Задача3.Описание", LocalDateTime.now(), 0L);
+        manager.createTask(next);
+        assertEquals(subtask.getId() + 1, next.getId(), "Номера отменённой транзакции не освобождены.");
+    }
+
+    @Test
+    void testTransactionRollsBackChangesMadeInPlace() {
+        InMemoryTaskManager manager = getManager();
+        Task task = new Task(TypeTask.TASK, "Задача", "Задача.Описание",
+                LocalDateTime.of(2022, 8, 1, 0, 0), 60L);
+        manager.createTask(task);
+        Task doneTask = new Task(TypeTask.TASK, "Задача2", "Задача2.Описание",
+                LocalDateTime.of(2022, 8, 2, 0, 0), 60L);
+        doneTask.setStatus(StatusTask.DONE);
+        manager.createTask(doneTask);
+        Epic epic = new Epic(TypeTask.EPIC, "Эпик", "Эпик.Описание", LocalDateTime.now(), 0L);
+        manager.createEpic(epic);
+        Subtask subtask = new Subtask(TypeTask.SUBTASK, "Подзадача", "Подзадача.Описание",
+                LocalDateTime.of(2022, 8, 3, 0, 0), 60L, epic.getId());
+        manager.createSubTask(subtask);
+
+        assertThrows(IllegalStateException.class, () -> manager.transaction(tx -> {
+            Task changed = tx.getTaskById(task.getId());
+            changed.setStatus(StatusTask.DONE);
+            changed.setStartTime(LocalDateTime.of(2022, 8, 5, 0, 0));
+            tx.updatedTask(changed);
+            Subtask changedSubtask = tx.getListSubTasks(epic.getId()).get(0);
+            changedSubtask.setStatus(StatusTask.DONE);
+            tx.updatedSubTask(changedSubtask);
+            throw new IllegalStateException("Отмена");
+        }), "Исключение из транзакции потеряно.");
+
+        assertEquals(StatusTask.NEW, task.getStatus(), "Статус задачи не восстановлен.");
+        assertEquals(LocalDateTime.of(2022, 8, 1, 0, 0), task.getStartTime(), "Начало задачи не восстановлено.");
+        assertEquals(List.of(doneTask), manager.getByStatus(StatusTask.DONE), "Индекс статусов не восстановлен.");
+        assertEquals(List.of(task), manager.getActiveAt(LocalDateTime.of(2022, 8, 1, 0, 30)),
+                "Расписание не восстановлено.");
+        assertTrue(manager.getActiveAt(LocalDateTime.of(2022, 8, 5, 0, 30)).isEmpty(),
+                "Новый период задачи остался в расписании.");
+        assertEquals(StatusTask.NEW, subtask.getStatus(), "Статус подзадачи не восстановлен.");
+        assertEquals(StatusTask.NEW, manager.getStatusById(epic.getId()), "Статус эпика не восстановлен.");
+    }
+
+    @Test
+    void testTransactionAppliesAllChanges() {
+        InMemoryTaskManager manager = getManager();
+        Epic epic = new Epic(TypeTask.EPIC, "Эпик", "Эпик.Описание", LocalDateTime.now(), 0L);
+
+        manager.transaction(tx -> {
+            tx.createEpic(epic);
+            tx.createSubTask(new Subtask(TypeTask.SUBTASK, "Подзадача", "Подзадача.Описание",
+                    LocalDateTime.of(2022, 8, 2, 0, 0), 60L, epic.getId()));
+        });
+
+        assertEquals(1, manager.getListSubTasks(epic.getId()).size(), "Изменения транзакции не применены.");
+    }
 }
@@ -0,0 +1,84 @@
+package managers;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class IntObjectMapTest {
+
+    @Test
+    void testMatchesHashMap() {
+        IntObjectMap<String> map = new IntObjectMap<>();
+        Map<Integer, String> expected = new HashMap<>();
+        Random random = new Random(15);
+        for (int i = 0; i < 100_000; i++) {
+            // Номера, кратные 64, попадают в одни цепочки и проверяют удаление со сдвигом.
+            int key = random.nextInt(3000) * 64;
+            if (random.nextInt(3) == 0) {
+                assertEquals(expected.remove(key), map.remove(key), "Удалено не то значение.");
+            } else {
+                assertEquals(expected.put(key, "Значение" + i), map.putInt(key, "Значение" + i),
+                        "Заменено не то значение.");
+            }
+        }
+
+        assertEquals(expected, map, "Содержимое таблиц различается.");
+        for (int key : expected.keySet()) {
+            assertEquals(expected.get(key), map.get(key), "Значение не найдено по номеру.");
+        }
+    }
+
+    @Test
+    void testIteratorRemoveVisitsEveryEntryOnce() {
+        IntObjectMap<String> map = new IntObjectMap<>();
+        Map<Integer, String> expected = new HashMap<>();
+        for (int i = 0; i < 1000; i++) {
+            map.putInt(i * 16, "Значение" + i);
+            expected.put(i * 16, "Значение" + i);
+        }
+
+        Map<Integer, String> visited = new HashMap<>();
+        Iterator<Map.Entry<Integer, String>> iterator = map.entrySet().iterator();
+        while (iterator.hasNext()) {
+            Map.Entry<Integer, String> entry = iterator.next();
+            assertNull(visited.put(entry.getKey(), entry.getValue()), "Элемент пройден дважды.");
+            if (entry.getKey() % 3 == 0) {
+                iterator.remove();
+                expected.remove(entry.getKey());
+            }
+        }
+
+        assertEquals(1000, visited.size(), "Пройдены не все элементы.");
+        assertEquals(expected, map, "Удалены не те элементы.");
+    }
+
+    @Test
+    void testSmallIdsIterateInAscendingOrder() {
+        IntObjectMap<String> map = new IntObjectMap<>();
+        for (int i = 10; i > 0; i--) {
+            map.putInt(i, "Задача" + i);
+        }
+
+        int previous = 0;
+        for (int key : map.keySet()) {
+            assertTrue(key > previous, "Нарушен порядок обхода.");
+            previous = key;
+        }
+    }
+
+    @Test
+    void testIntegerValuesAreStoredThroughMapPut() {
+        IntObjectMap<Integer> map = new IntObjectMap<>();
+        for (int i = 0; i < 100; i++) {
+            map.put(i, i * 2);
+        }
+
+        assertEquals(100, map.size(), "Значения не добавлены.");
+        assertEquals(198, map.get(99), "Значение не найдено по номеру.");
+    }
+}
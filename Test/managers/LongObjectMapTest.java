@@ -0,0 +1,36 @@
+package managers;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class LongObjectMapTest {
+
+    @Test
+    void testMatchesHashMap() {
+        LongObjectMap<String> map = new LongObjectMap<>();
+        Map<Long, String> expected = new HashMap<>();
+        Random random = new Random(15);
+        for (int i = 0; i < 100_000; i++) {
+            // Ключи отличаются только старшими битами, как тройки символов.
+            long key = (long) random.nextInt(3000) << 32;
+            if (random.nextInt(3) == 0) {
+                assertEquals(expected.remove(key), map.remove(key), "Удалено не то значение.");
+            } else {
+                assertEquals(expected.put(key, "Значение" + i), map.put(key, "Значение" + i),
+                        "Заменено не то значение.");
+            }
+        }
+
+        assertEquals(expected.size(), map.size(), "Неверное количество элементов.");
+        for (long key : expected.keySet()) {
+            assertEquals(expected.get(key), map.get(key), "Значение не найдено по ключу.");
+        }
+        map.clear();
+        assertEquals(0, map.size(), "Таблица не очищена.");
+    }
+}
@@ -0,0 +1,98 @@
+package managers;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.Spliterator;
+import java.util.TreeMap;
+import java.util.stream.Collectors;
+import java.util.stream.StreamSupport;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class PersistentIntMapTest {
+
+    @Test
+    void testMatchesTreeMapInKeyOrder() {
+        PersistentIntMap<String> map = PersistentIntMap.empty();
+        TreeMap<Integer, String> expected = new TreeMap<>();
+        Random random = new Random(20);
+        for (int i = 0; i < 50_000; i++) {
+            // Отрицательные и близкие номера проверяют порядок обхода и слияние узлов.
+            int key = (random.nextInt(4) == 0) ? random.nextInt() : random.nextInt(2000) - 1000;
+            if (random.nextInt(3) == 0) {
+                expected.remove(key);
+                map = map.minus(key);
+            } else {
+                expected.put(key, "Значение" + i);
+                map = map.plus(key, "Значение" + i);
+            }
+        }
+
+        assertEquals(expected.size(), map.size(), "Размеры таблиц различаются.");
+        assertEquals(new ArrayList<>(expected.keySet()), new ArrayList<>(map.keySet()),
+                "Ключи обходятся не по возрастанию.");
+        assertEquals(new ArrayList<>(expected.values()), map.valuesList(), "Значения различаются.");
+        for (int key : expected.keySet()) {
+            assertEquals(expected.get(key), map.get(key), "Значение не найдено по номеру.");
+        }
+    }
+
+    @Test
+    void testIteratorFromAndSpliterator() {
+        PersistentIntMap<Integer> map = PersistentIntMap.empty();
+        TreeMap<Integer, Integer> expected = new TreeMap<>();
+        Random random = new Random(21);
+        for (int i = 0; i < 5000; i++) {
+            int key = random.nextInt(100_000) - 50_000;
+            map = map.plus(key, key);
+            expected.put(key, key);
+        }
+
+        for (int i = 0; i < 200; i++) {
+            int from = random.nextInt(120_000) - 60_000;
+            Iterator<Map.Entry<Integer, Integer>> iterator = map.iteratorFrom(from);
+            for (int key : expected.tailMap(from).keySet().stream().limit(20).collect(Collectors.toList())) {
+                assertEquals(key, iterator.next().getKey(), "Обход начался не с того ключа.");
+            }
+        }
+        assertFalse(map.iteratorFrom(Integer.MAX_VALUE).hasNext(), "Обход за последним ключом не пуст.");
+
+        assertEquals(new ArrayList<>(expected.values()),
+                StreamSupport.stream(map.valuesSpliterator(), true).collect(Collectors.toList()),
+                "Параллельный обход нарушил порядок.");
+        Spliterator<Integer> spliterator = map.valuesSpliterator();
+        Spliterator<Integer> prefix = spliterator.trySplit();
+        assertNotNull(prefix, "Обход не делится.");
+        List<Integer> values = new ArrayList<>();
+        prefix.forEachRemaining(values::add);
+        spliterator.forEachRemaining(values::add);
+        assertEquals(new ArrayList<>(expected.values()), values, "Части обхода не складываются в таблицу.");
+    }
+
+    @Test
+    void testOldVersionIsNotChanged() {
+        PersistentIntMap<String> map = PersistentIntMap.empty();
+        List<PersistentIntMap<String>> versions = new ArrayList<>();
+        for (int i = 0; i < 1000; i++) {
+            versions.add(map);
+            map = (i % 4 == 3) ? map.minus(i - 2) : map.plus(i, "Значение" + i);
+        }
+
+        Map<Integer, String> expected = new TreeMap<>();
+        for (int i = 0; i < 1000; i++) {
+            assertEquals(expected, versions.get(i), "Старая версия таблицы изменилась.");
+            if (i % 4 == 3) {
+                expected.remove(i - 2);
+            } else {
+                expected.put(i, "Значение" + i);
+            }
+        }
+        assertThrows(NullPointerException.class, () -> PersistentIntMap.<String>empty().plus(1, null),
+                "В таблицу попало значение null.");
+    }
+}
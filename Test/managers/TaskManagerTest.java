@@ -8,9 +8,12 @@ import tasks.Subtask;
 import tasks.Task;
 
 import java.lang.reflect.Executable;
+import java.time.Duration;
 import java.time.LocalDateTime;
+import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
+import java.util.stream.Collectors;
 
 import static org.junit.jupiter.api.Assertions.*;
 
@@ -524,6 +527,62 @@ abstract class TaskManagerTest<T extends TaskManager> {
 
     }
 
+    @Test
+    void testUpdatedTaskReleasesOldPeriod() {
+        Task task = new Task(TypeTask.TASK, "Задача1", "Задача1.Описание",
+                LocalDateTime.of(2022, 8, 1, 0, 0), (long) (60 * 24 * 3));
+        int idTask = createTaskForTest(task);
+        Task taskUpdate = new Task(TypeTask.TASK, "Задача1 - new", "Задача1.Описание - new",
+                LocalDateTime.of(2022, 9, 1, 0, 0), (long) (60 * 24 * 3));
+        taskUpdate.setId(idTask);
+        manager.updatedTask(taskUpdate);
+
+        Task task2 = new Task(TypeTask.TASK, "Задача2", "Задача2.Описание",
+                LocalDateTime.of(2022, 8, 2, 0, 0), (long) (60 * 24));
+        manager.createTask(task2);
+        Task task3 = new Task(TypeTask.TASK, "Задача3", "Задача3.Описание",
+                LocalDateTime.of(2022, 9, 2, 0, 0), (long) (60 * 24));
+        manager.createTask(task3);
+
+        final List<Task> tasks = manager.getAllTasks();
+
+        assertEquals(2, tasks.size(), "Старый период задачи не освобождён после обновления.");
+        assertEquals(0, task3.getId(), "Задача добавлена при пересечении периодов.");
+    }
+
+    @Test
+    void testPeriodsOverlapWithinSecond() {
+        Task task1 = new Task(TypeTask.TASK, "Задача1", "Задача1.Описание",
+                LocalDateTime.of(2022, 8, 1, 10, 0, 0, 700_000_000), 5L);
+        Task task2 = new Task(TypeTask.TASK, "Задача2", "Задача2.Описание",
+                LocalDateTime.of(2022, 8, 1, 10, 5, 0, 300_000_000), 5L);
+        manager.createTask(task1);
+        manager.createTask(task2);
+
+        assertEquals(1, manager.getAllTasks().size(), "Задача добавлена при пересечении периодов.");
+        assertEquals(LocalDateTime.of(2022, 8, 1, 10, 5, 0, 700_000_000),
+                manager.findFreeSlot(Duration.ofMinutes(5), LocalDateTime.of(2022, 8, 1, 10, 5)),
+                "Свободное время пересекается с задачей.");
+    }
+
+    @Test
+    void testPeriodsFarFromEpoch() {
+        LocalDateTime early = LocalDateTime.of(1600, 1, 1, 0, 0);
+        LocalDateTime late = LocalDateTime.of(2300, 1, 1, 0, 0);
+        manager.createTask(new Task(TypeTask.TASK, "Задача1", "Задача1.Описание", early, 60L));
+        manager.createTask(new Task(TypeTask.TASK, "Задача2", "Задача2.Описание", late, 60L));
+        manager.createTask(new Task(TypeTask.TASK, "Задача3", "Задача3.Описание", late.plusMinutes(30), 60L));
+
+        assertEquals(2, manager.getAllTasks().size(), "Неверная проверка пересечений для далёких дат.");
+        assertEquals(early.plusHours(1), manager.findFreeSlot(Duration.ofMinutes(60), early),
+                "Свободное время пересекается с задачей.");
+        // Промежуток 1600-2300 и длины больше 292 лет не помещаются в long наносекунд.
+        assertEquals(early.plusHours(1), manager.findFreeSlot(Duration.ofDays(365L * 500), early),
+                "Не найден длинный промежуток.");
+        assertEquals(late.plusHours(1), manager.findFreeSlot(Duration.ofDays(365L * 800), early),
+                "Свободное время пересекается с задачей.");
+    }
+
     @Test
     void testDeleteTaskById() {
         Task task = new Task(TypeTask.TASK, "Задача1", "Задача1.Описание", LocalDateTime.now(), 0L);
@@ -635,6 +694,44 @@ abstract class TaskManagerTest<T extends TaskManager> {
         assertEquals(0, priorTasks.size(), "Неверное количество приоритетных задач.");
     }
 
+    @Test
+    void testDeleteAllTaskClearsHistory() {
+        Task task = new Task(TypeTask.TASK, "Задача1", "Задача1.Описание",
+                LocalDateTime.of(2022, 8, 1, 0, 0), 60L);
+        int id = createTaskForTest(task);
+        manager.getTaskById(id);
+
+        manager.deleteAllTask();
+        Task next = new Task(TypeTask.TASK, "Задача2", "Задача2.Описание",
+                LocalDateTime.of(2022, 8, 2, 0, 0), 60L);
+        createTaskForTest(next);
+
+        assertEquals(id, next.getId(), "Номера задач не начались заново.");
+        assertTrue(manager.getHistory().isEmpty(), "В истории остались удалённые задачи.");
+    }
+
+    @Test
+    void testUpdatedSubtaskReplacesItInEpic() {
+        Epic epic = new Epic(TypeTask.EPIC, "Эпик", "Эпик.Описание", LocalDateTime.now(), 0L);
+        int idEpic = createEpicForTest(epic);
+        Subtask subtask = new Subtask(TypeTask.SUBTASK, "Подзадача1", "Подзадача1.Описание",
+                LocalDateTime.of(2022, 8, 1, 0, 0), 60L, idEpic);
+        int idSubtask = createSubtaskForTest(subtask);
+
+        Subtask subtaskUpdate = new Subtask(TypeTask.SUBTASK, "Подзадача1 - new", "Подзадача1.Описание",
+                LocalDateTime.of(2022, 8, 2, 0, 0), 60L, idEpic);
+        subtaskUpdate.setId(idSubtask);
+        subtaskUpdate.setStatus(StatusTask.DONE);
+        manager.updatedSubTask(subtaskUpdate);
+
+        List<Subtask> subtasks = manager.getListSubTasks(idEpic);
+        assertEquals(1, subtasks.size(), "Неверное количество подзадач у Эпика.");
+        assertSame(subtaskUpdate, subtasks.get(0), "В эпике осталась прежняя версия подзадачи.");
+        assertEquals(StatusTask.DONE, manager.getStatusById(idEpic), "Статус эпика не пересчитан.");
+        assertEquals(subtaskUpdate.getEndTime(), manager.getEpicById(idEpic).getEndTimeEpic(),
+                "Сроки эпика не пересчитаны.");
+    }
+
     @Test
     void testPrioritizedTasksForEmptyListTask() {
         final List<Task> emptyPriorities = manager.getPrioritizedTasks();
@@ -663,6 +760,381 @@ abstract class TaskManagerTest<T extends TaskManager> {
         assertEquals(manager.getAllTasks().get(1), priorities.get(1), "Задача не соотвествует порядку приоритета");
         assertEquals(manager.getAllTasks().get(2), priorities.get(0), "Задача не соотвествует порядку приоритета");
     }
+
+    @Test
+    void testPrioritizedTasksWithSameStartTime() {
+        LocalDateTime startTime = LocalDateTime.of(2022, 8, 1, 0, 0);
+        Task task1 = new Task(TypeTask.TASK, "Задача1", "Задача1.Описание", startTime, 0L);
+        Task task2 = new Task(TypeTask.TASK, "Задача2", "Задача2.Описание", startTime, 0L);
+        Task task3 = new Task(TypeTask.TASK, "Задача3", "Задача3.Описание", startTime, (long) (60 * 24));
+        manager.createTask(task1);
+        manager.createTask(task2);
+        manager.createTask(task3);
+
+        final List<Task> priorities = manager.getPrioritizedTasks();
+
+        assertEquals(3, priorities.size(), "Задачи с одинаковым временем начала затирают друг друга.");
+        assertEquals(task3, priorities.get(0), "Задача не соотвествует порядку приоритета");
+        assertEquals(task1, priorities.get(1), "Задача не соотвествует порядку приоритета");
+        assertEquals(task2, priorities.get(2), "Задача не соотвествует порядку приоритета");
+        assertThrows(UnsupportedOperationException.class, () -> priorities.remove(0),
+                "Список задач по приоритетам можно изменить снаружи.");
+    }
+
+    @Test
+    void testPrioritizedTasksIndexMatchesIteration() {
+        List<Task> created = new ArrayList<>();
+        for (int i = 0; i < 200; i++) {
+            long duration = (i % 3 == 0) ? 0L : 30L;
+            Task task = new Task(TypeTask.TASK, "Задача" + i, "Описание",
+                    LocalDateTime.of(2022, 8, 1, 0, 0).plusHours((i * 37) % 200), duration);
+            manager.createTask(task);
+            created.add(task);
+        }
+        for (int i = 0; i < created.size(); i += 4) {
+            manager.deleteTaskById(created.get(i).getId());
+        }
+
+        final List<Task> priorities = manager.getPrioritizedTasks();
+        List<Task> iterated = new ArrayList<>();
+        for (Task task : priorities) {
+            iterated.add(task);
+        }
+
+        assertEquals(150, priorities.size(), "Неверное количество задач в списке приоритетов.");
+        for (int i = 0; i < priorities.size(); i++) {
+            assertEquals(iterated.get(i), priorities.get(i), "Доступ по индексу расходится с обходом.");
+        }
+        for (int i = 1; i < iterated.size(); i++) {
+            Task previous = iterated.get(i - 1);
+            Task current = iterated.get(i);
+            if (previous.getDuration() != 0 && current.getDuration() != 0) {
+                assertTrue(previous.getStartTime().isBefore(current.getStartTime()),
+                        "Задача не соотвествует порядку приоритета");
+            }
+            assertFalse(previous.getDuration() == 0 && current.getDuration() != 0,
+                    "Задача без продолжительности стоит раньше задачи со сроком.");
+        }
+    }
+
+    @Test
+    void testEpicFollowsSubtaskChanges() {
+        Epic epic = new Epic(TypeTask.EPIC, "Эпик", "Эпик.Описание", LocalDateTime.now(), 0L);
+        int id = createEpicForTest(epic);
+        LocalDateTime startTime = LocalDateTime.of(2022, 8, 1, 0, 0);
+        Subtask first = new Subtask(TypeTask.SUBTASK, "Подзадача1", "Подзадача1.Описание", startTime, 60L, id);
+        Subtask second = new Subtask(TypeTask.SUBTASK, "Подзадача2", "Подзадача2.Описание",
+                startTime.plusDays(1), 60L, id);
+        createSubtaskForTest(first);
+        createSubtaskForTest(second);
+
+        first.setStatus(StatusTask.DONE);
+        first.setStartTime(startTime.plusDays(2));
+        manager.updatedSubTask(first);
+
+        assertEquals(StatusTask.IN_PROGRESS, manager.getStatusById(id), "Статус эпика не пересчитан.");
+        assertEquals(startTime.plusDays(1), epic.getStartTime(), "Начало эпика не пересчитано.");
+        assertEquals(startTime.plusDays(2).plusMinutes(60), epic.getEndTimeEpic(), "Окончание эпика не пересчитано.");
+
+        manager.deleteSubTaskById(second.getId());
+
+        assertEquals(StatusTask.DONE, manager.getStatusById(id), "Статус эпика не пересчитан.");
+        assertEquals(startTime.plusDays(2), epic.getStartTime(), "Начало эпика не пересчитано.");
+
+        manager.deleteSubTaskById(first.getId());
+
+        assertEquals(StatusTask.NEW, manager.getStatusById(id), "У пустого эпика статус должен быть NEW!");
+    }
+
+    @Test
+    void testEpicSubtaskListIsReadOnlyView() {
+        Epic epic = new Epic(TypeTask.EPIC, "Эпик", "Эпик.Описание", LocalDateTime.now(), 0L);
+        int id = createEpicForTest(epic);
+        final List<Subtask> epicSubtasks = epic.getListSubTask();
+        for (int i = 0; i < 3; i++) {
+            createSubtaskForTest(new Subtask(TypeTask.SUBTASK, "Подзадача" + i, "Описание" + i,
+                    LocalDateTime.of(2022, 8, 1, 0, 0).plusDays(i), 60L, id));
+        }
+        Subtask middle = epicSubtasks.get(1);
+
+        manager.deleteSubTaskById(middle.getId());
+
+        assertEquals(2, epicSubtasks.size(), "Список подзадач эпика не отражает удаление.");
+        assertFalse(epicSubtasks.contains(middle), "Удалённая подзадача осталась у эпика.");
+        assertEquals("Подзадача2", epicSubtasks.get(1).getName(), "Нарушен порядок подзадач эпика.");
+        assertThrows(UnsupportedOperationException.class, () -> epicSubtasks.remove(0),
+                "Список подзадач эпика можно изменить снаружи.");
+    }
+
+    @Test
+    void testCreateAllReportsOutcomes() {
+        Task existing = new Task(TypeTask.TASK, "Задача", "Задача.Описание",
+                LocalDateTime.of(2022, 8, 1, 0, 0), (long) (60 * 24));
+        createTaskForTest(existing);
+        Epic epic = new Epic(TypeTask.EPIC, "Эпик", "Эпик.Описание", LocalDateTime.now(), 0L);
+        int idEpic = createEpicForTest(epic);
+
+        Subtask late = new Subtask(TypeTask.SUBTASK, "Подзадача1", "Подзадача1.Описание",
+                LocalDateTime.of(2022, 8, 3, 12, 0), 60L, idEpic);
+        Task early = new Task(TypeTask.TASK, "Задача1", "Задача1.Описание",
+                LocalDateTime.of(2022, 8, 3, 0, 0), (long) (60 * 24));
+        Task overlapsExisting = new Task(TypeTask.TASK, "Задача2", "Задача2.Описание",
+                LocalDateTime.of(2022, 8, 1, 12, 0), 60L);
+        Subtask done = new Subtask(TypeTask.SUBTASK, "Подзадача2", "Подзадача2.Описание",
+                LocalDateTime.of(2022, 8, 5, 0, 0), 60L, idEpic);
+        done.setStatus(StatusTask.DONE);
+        Subtask withoutEpic = new Subtask(TypeTask.SUBTASK, "Подзадача3", "Подзадача3.Описание",
+                LocalDateTime.of(2022, 8, 6, 0, 0), 60L, 100);
+        Epic newEpic = new Epic(TypeTask.EPIC, "Эпик2", "Эпик2.Описание", LocalDateTime.now(), 0L);
+
+        BatchResult result = manager.createAll(List.of(late, early, overlapsExisting, done, withoutEpic, newEpic));
+
+        assertEquals(BatchResult.Outcome.OVERLAP, result.getOutcome(0), "Пересечение внутри пакета не найдено.");
+        assertEquals(BatchResult.Outcome.CREATED, result.getOutcome(1), "Задача не создана.");
+        assertEquals(BatchResult.Outcome.OVERLAP, result.getOutcome(2), "Пересечение с задачей не найдено.");
+        assertEquals(BatchResult.Outcome.CREATED, result.getOutcome(3), "Подзадача не создана.");
+        assertEquals(BatchResult.Outcome.MISSING_EPIC, result.getOutcome(4), "Подзадача без эпика создана.");
+        assertEquals(BatchResult.Outcome.CREATED, result.getOutcome(5), "Эпик не создан.");
+        assertEquals(List.of(early, done, newEpic), result.getCreated(), "Неверный список созданных задач.");
+
+        assertEquals(idEpic + 1, early.getId(), "Номера выданы не подряд.");
+        assertEquals(idEpic + 2, done.getId(), "Номера выданы не подряд.");
+        assertEquals(idEpic + 3, newEpic.getId(), "Номера выданы не подряд.");
+        assertEquals(List.of(done), manager.getListSubTasks(idEpic), "Подзадача не привязана к эпику.");
+        assertEquals(StatusTask.DONE, manager.getStatusById(idEpic), "Статус эпика не пересчитан.");
+        assertEquals(3, manager.getPrioritizedTasks().size(), "Расписание не обновлено.");
+    }
+
+    @Test
+    void testSnapshotIsNotAffectedByLaterChanges() {
+        Task first = new Task(TypeTask.TASK, "Задача", "Задача.Описание",
+                LocalDateTime.of(2022, 8, 1, 0, 0), 60L);
+        int idTask = createTaskForTest(first);
+        Epic epic = new Epic(TypeTask.EPIC, "Эпик", "Эпик.Описание", LocalDateTime.now(), 0L);
+        int idEpic = createEpicForTest(epic);
+        Subtask subtask = new Subtask(TypeTask.SUBTASK, "Подзадача", "Подзадача.Описание",
+                LocalDateTime.of(2022, 8, 2, 0, 0), 60L, idEpic);
+        int idSubtask = createSubtaskForTest(subtask);
+
+        TaskSnapshot snapshot = manager.snapshot();
+        manager.deleteTaskById(idTask);
+        manager.deleteEpicById(idEpic);
+        manager.createTask(new Task(TypeTask.TASK, "Задача1", "Задача1.Описание",
+                LocalDateTime.of(2022, 8, 3, 0, 0), 60L));
+
+        assertEquals(3, snapshot.size(), "Срез изменился после изменения менеджера.");
+        assertEquals(List.of(first), snapshot.getAllTasks(), "Неверный список задач в срезе.");
+        assertEquals(epic, snapshot.findTask(idEpic), "Удалённый эпик пропал из среза.");
+        assertEquals(List.of(subtask), snapshot.getListSubTasks(idEpic), "Неверный список подзадач в срезе.");
+        assertEquals(subtask, snapshot.getSubTask().get(idSubtask), "Удалённая подзадача пропала из среза.");
+        assertEquals(1, manager.snapshot().size(), "Новый срез не отражает изменения.");
+        assertNull(manager.snapshot().getListSubTasks(idEpic), "Удалённый эпик остался в новом срезе.");
+    }
+
+    @Test
+    void testPagesContinueAfterToken() {
+        List<Integer> ids = new ArrayList<>();
+        for (int i = 0; i < 5; i++) {
+            ids.add(createTaskForTest(new Task(TypeTask.TASK, "Задача" + i, "Описание" + i,
+                    LocalDateTime.of(2022, 8, 1, 0, 0).plusDays(i), 60L)));
+        }
+
+        Page<Task> first = manager.getTasksPage(null, 2);
+        assertEquals(List.of(ids.get(0), ids.get(1)), idsOf(first.getItems()), "Неверная первая страница.");
+        assertTrue(first.hasNext(), "Нет токена продолжения.");
+
+        manager.deleteTaskById(ids.get(0));
+        manager.deleteTaskById(ids.get(2));
+        Page<Task> second = manager.getTasksPage(first.getNextToken(), 2);
+        assertEquals(List.of(ids.get(3), ids.get(4)), idsOf(second.getItems()),
+                "Удаление задач сдвинуло страницы.");
+        assertFalse(second.hasNext(), "Последняя страница с токеном продолжения.");
+        assertThrows(IllegalArgumentException.class, () -> manager.getTasksPage("абв", 2),
+                "Неверный токен принят.");
+    }
+
+    @Test
+    void testParallelStreamVisitsEveryTask() {
+        long expectedMinutes = 0;
+        for (int i = 0; i < 200; i++) {
+            createTaskForTest(new Task(TypeTask.TASK, "Задача" + i, "Описание" + i,
+                    LocalDateTime.of(2022, 8, 1, 0, 0).plusHours(2L * i), (long) (i % 60)));
+            expectedMinutes += i % 60;
+        }
+
+        assertEquals(expectedMinutes, manager.streamTasks().parallel().mapToLong(Task::getDuration).sum(),
+                "Параллельный поток прошёл не все задачи.");
+        List<Integer> ids = manager.streamTasks().map(Task::getId).collect(Collectors.toList());
+        assertEquals(200, ids.size(), "Неверное количество задач в потоке.");
+        assertEquals(ids.stream().sorted().collect(Collectors.toList()), ids, "Поток идёт не по возрастанию номера.");
+    }
+
+    @Test
+    void testStatusIndexFollowsChanges() {
+        Task first = new Task(TypeTask.TASK, "Задача1", "Задача1.Описание",
+                LocalDateTime.of(2022, 8, 1, 0, 0), 60L);
+        int idFirst = createTaskForTest(first);
+        Task second = new Task(TypeTask.TASK, "Задача2", "Задача2.Описание",
+                LocalDateTime.of(2022, 8, 2, 0, 0), 60L);
+        second.setStatus(StatusTask.DONE);
+        createTaskForTest(second);
+        Epic epic = new Epic(TypeTask.EPIC, "Эпик", "Эпик.Описание", LocalDateTime.now(), 0L);
+        int idEpic = createEpicForTest(epic);
+        Subtask subtask = new Subtask(TypeTask.SUBTASK, "Подзадача", "Подзадача.Описание",
+                LocalDateTime.of(2022, 8, 3, 0, 0), 60L, idEpic);
+        subtask.setStatus(StatusTask.IN_PROGRESS);
+        int idSubtask = createSubtaskForTest(subtask);
+
+        assertEquals(List.of(first), manager.getByStatus(StatusTask.NEW), "Неверная выборка новых задач.");
+        assertEquals(List.of(epic), manager.getByStatus(TypeTask.EPIC, StatusTask.IN_PROGRESS),
+                "Статус эпика не попал в индекс.");
+        assertEquals(Map.of(StatusTask.NEW, 1, StatusTask.IN_PROGRESS, 2, StatusTask.DONE, 1),
+                manager.countByStatus(), "Неверный подсчёт по статусам.");
+
+        Task firstUpdate = new Task(TypeTask.TASK, "Задача1", "Задача1.Описание",
+                LocalDateTime.of(2022, 8, 1, 0, 0), 60L);
+        firstUpdate.setId(idFirst);
+        firstUpdate.setStatus(StatusTask.DONE);
+        manager.updatedTask(firstUpdate);
+        manager.deleteSubTaskById(idSubtask);
+
+        assertEquals(2, manager.getByStatus(TypeTask.TASK, StatusTask.DONE).size(),
+                "Обновление задачи не перенесло её в индексе.");
+        assertEquals(List.of(epic), manager.getByStatus(StatusTask.NEW), "Эпик без подзадач не стал новым.");
+        assertTrue(manager.getByStatus(StatusTask.IN_PROGRESS).isEmpty(), "Удалённая подзадача осталась в индексе.");
+    }
+
+    @Test
+    void testScheduleRangeQueries() {
+        List<Task> days = new ArrayList<>();
+        for (int i = 0; i < 5; i++) {
+            Task day = new Task(TypeTask.TASK, "Задача" + i, "Описание" + i,
+                    LocalDateTime.of(2022, 8, 1, 0, 0).plusDays(i), (long) (60 * 20));
+            createTaskForTest(day);
+            days.add(day);
+        }
+        createTaskForTest(new Task(TypeTask.TASK, "Без срока", "Описание",
+                LocalDateTime.of(2022, 8, 3, 0, 0), 0L));
+
+        assertEquals(List.of(days.get(1), days.get(2)), manager.getTasksInRange(LocalDateTime.of(2022, 8, 2, 12, 0),
+                LocalDateTime.of(2022, 8, 4, 0, 0)).collect(Collectors.toList()), "Неверные задачи периода.");
+        assertEquals(List.of(days.get(2), days.get(3)),
+                manager.getTasksStartingAfter(LocalDateTime.of(2022, 8, 2, 0, 0), 2),
+                "Неверные задачи после момента.");
+        assertEquals(List.of(days.get(4)), manager.getActiveAt(LocalDateTime.of(2022, 8, 5, 6, 0)),
+                "Неверная текущая задача.");
+        assertTrue(manager.getActiveAt(LocalDateTime.of(2022, 8, 5, 20, 0)).isEmpty(),
+                "Задача идёт после своего окончания.");
+        assertEquals(0, manager.getTasksInRange(LocalDateTime.of(2022, 8, 1, 20, 0),
+                LocalDateTime.of(2022, 8, 2, 0, 0)).count(), "Найдена задача в свободном промежутке.");
+    }
+
+    @Test
+    void testSearchAfterManyUpdates() {
+        List<Task> reports = new ArrayList<>();
+        for (int i = 0; i < 100; i++) {
+            Task report = new Task(TypeTask.TASK, "Отчет " + i, "Описание",
+                    LocalDateTime.of(2022, 8, 1, 0, 0).plusHours(i), 30L);
+            createTaskForTest(report);
+            reports.add(report);
+        }
+        // Обновления старых задач и повторное добавление слов идут не по возрастанию номеров.
+        for (int i = 0; i < 100; i += 2) {
+            Task update = new Task(TypeTask.TASK, "План " + i, "Описание",
+                    reports.get(i).getStartTime(), 30L);
+            update.setId(reports.get(i).getId());
+            manager.updatedTask(update);
+        }
+        for (int i = 0; i < 100; i += 4) {
+            Task update = new Task(TypeTask.TASK, "Отчет " + i, "Описание",
+                    reports.get(i).getStartTime(), 30L);
+            update.setId(reports.get(i).getId());
+            manager.updatedTask(update);
+        }
+        manager.deleteTaskById(reports.get(0).getId());
+
+        List<Integer> expected = new ArrayList<>();
+        for (int i = 1; i < 100 && expected.size() < 5; i++) {
+            if (i % 2 == 1 || i % 4 == 0) {
+                expected.add(reports.get(i).getId());
+            }
+        }
+        assertEquals(expected, idsOf(manager.search("отчет", 5)), "Неверные лучшие результаты поиска.");
+        assertEquals(74, manager.search("отчет", 1000).size(), "Неверное количество результатов поиска.");
+        assertEquals(74, manager.search("от", 1000).size(), "Неверное количество результатов по началу слова.");
+        // Начало "1" есть у одиннадцати разных слов: 1, 10..19.
+        assertEquals(11, manager.search("1", 1000).size(), "Списки разных слов объединены неверно.");
+        assertEquals(List.of(reports.get(1).getId(), reports.get(10).getId(), reports.get(11).getId()),
+                idsOf(manager.search("1", 3)), "Неверные лучшие результаты по началу слова.");
+    }
+
+    @Test
+    void testSearchFindsAndRanksWords() {
+        Task report = new Task(TypeTask.TASK, "Квартальный отчёт", "Собрать данные для Report",
+                LocalDateTime.of(2022, 8, 1, 0, 0), 60L);
+        int idReport = createTaskForTest(report);
+        Task meeting = new Task(TypeTask.TASK, "Встреча", "Обсудить отчет с командой",
+                LocalDateTime.of(2022, 8, 2, 0, 0), 60L);
+        createTaskForTest(meeting);
+        Epic epic = new Epic(TypeTask.EPIC, "Переезд", "Подотчетные документы", LocalDateTime.now(), 0L);
+        createEpicForTest(epic);
+
+        assertEquals(List.of(report, meeting, epic), manager.search("ОТЧЁТ", 10),
+                "Неверный порядок результатов поиска.");
+        assertEquals(List.of(report), manager.search("report данн", 10), "Не найдены все слова запроса.");
+        assertEquals(List.of(meeting), manager.search("вс", 10), "Не найдено начало слова.");
+        assertEquals(List.of(report), manager.search("отчет", 1), "Не соблюдён предел.");
+
+        Task reportUpdate = new Task(TypeTask.TASK, "План", "Без слов из запроса",
+                LocalDateTime.of(2022, 8, 1, 0, 0), 60L);
+        reportUpdate.setId(idReport);
+        manager.updatedTask(reportUpdate);
+        manager.deleteEpicById(epic.getId());
+
+        assertEquals(List.of(meeting), manager.search("отчет", 10), "Индекс слов не обновлён.");
+        assertTrue(manager.search("квартальный", 10).isEmpty(), "Старые слова задачи остались в индексе.");
+    }
+
+    @Test
+    void testFreeSlotPlacement() {
+        createTaskForTest(new Task(TypeTask.TASK, "Задача1", "Описание1",
+                LocalDateTime.of(2022, 8, 1, 9, 0), 60L));
+        createTaskForTest(new Task(TypeTask.TASK, "Задача2", "Описание2",
+                LocalDateTime.of(2022, 8, 1, 10, 30), 60L));
+        createTaskForTest(new Task(TypeTask.TASK, "Задача3", "Описание3",
+                LocalDateTime.of(2022, 8, 1, 12, 0), 60L));
+
+        assertEquals(LocalDateTime.of(2022, 8, 1, 8, 0),
+                manager.findFreeSlot(Duration.ofMinutes(60), LocalDateTime.of(2022, 8, 1, 8, 0)),
+                "Свободное время занято.");
+        assertEquals(LocalDateTime.of(2022, 8, 1, 10, 0),
+                manager.findFreeSlot(Duration.ofMinutes(30), LocalDateTime.of(2022, 8, 1, 9, 15)),
+                "Не найден первый подходящий промежуток.");
+        assertEquals(LocalDateTime.of(2022, 8, 1, 13, 0),
+                manager.findFreeSlot(Duration.ofMinutes(45), LocalDateTime.of(2022, 8, 1, 9, 15)),
+                "Выбран слишком короткий промежуток.");
+
+        Task next = new Task(TypeTask.TASK, "Задача4", "Описание4", LocalDateTime.of(2022, 8, 1, 9, 30), 30L);
+        manager.createTaskAtEarliest(next, LocalDateTime.of(2022, 8, 1, 9, 30));
+        assertEquals(LocalDateTime.of(2022, 8, 1, 10, 0), next.getStartTime(), "Задача поставлена не в промежуток.");
+        assertEquals(4, manager.getAllTasks().size(), "Задача не создана.");
+
+        Task first = new Task(TypeTask.TASK, "Задача5", "Описание5", LocalDateTime.of(2022, 8, 1, 9, 0), 30L);
+        Task second = new Task(TypeTask.TASK, "Задача6", "Описание6", LocalDateTime.of(2022, 8, 1, 9, 0), 30L);
+        BatchResult result = manager.createAll(List.of(first, second), LocalDateTime.of(2022, 8, 1, 9, 0));
+        assertTrue(result.isAllCreated(), "Расставленные задачи отклонены.");
+        assertEquals(LocalDateTime.of(2022, 8, 1, 11, 30), first.getStartTime(), "Неверное место первой задачи.");
+        assertEquals(LocalDateTime.of(2022, 8, 1, 13, 0), second.getStartTime(), "Неверное место второй задачи.");
+    }
+
+    private static List<Integer> idsOf(List<? extends Task> tasks) {
+        List<Integer> ids = new ArrayList<>();
+        for (Task task : tasks) {
+            ids.add(task.getId());
+        }
+        return ids;
+    }
+
     /*
 
 
@@ -0,0 +1,205 @@
+package managers;
+
+import tasks.Task;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.function.IntFunction;
+
+// Компактная история: вместо узлов со ссылками на задачи хранятся номера задач
+// в параллельных массивах int (двусвязный список по индексам ячеек), а номер
+// задачи отображается в ячейку таблицей с открытой адресацией. Задачи
+// достаются через менеджер только в getHistory(), поэтому история не удерживает
+// удалённые задачи в памяти.
+public class ArrayHistoryManager implements HistoryManager {
+    private static final int INITIAL_CAPACITY = 16;
+    private static final int NONE = -1;
+
+    private IntFunction<Task> tasks;
+
+    // Ячейки списка: номер задачи и соседи от давних просмотров к недавним.
+    private int[] ids;
+    private int[] prev;
+    private int[] next;
+    private int head = NONE;
+    private int tail = NONE;
+    // Освободившиеся ячейки связаны через next.
+    private int free = NONE;
+    private int used = 0;
+    private int size = 0;
+
+    // Номер задачи -> ячейка + 1; 0 - свободное место таблицы.
+    private int[] keys;
+    private int[] slots;
+    private int mask;
+
+    public ArrayHistoryManager() {
+        this(null);
+    }
+
+    public ArrayHistoryManager(IntFunction<Task> tasks) {
+        this.tasks = tasks;
+        this.ids = new int[INITIAL_CAPACITY];
+        this.prev = new int[INITIAL_CAPACITY];
+        this.next = new int[INITIAL_CAPACITY];
+        this.keys = new int[INITIAL_CAPACITY * 2];
+        this.slots = new int[INITIAL_CAPACITY * 2];
+        this.mask = INITIAL_CAPACITY * 2 - 1;
+    }
+
+    @Override
+    public void bind(IntFunction<Task> tasks) {
+        this.tasks = tasks;
+    }
+
+    @Override
+    public void add(Task task) {
+        int id = task.getId();
+        int position = find(id);
+        int slot;
+        if (slots[position] != 0) {
+            slot = slots[position] - 1;
+            if (slot == tail) {
+                return;
+            }
+            unlink(slot);
+        } else {
+            slot = allocate(id);
+            // После расширения таблицы место для ключа могло измениться.
+            position = find(id);
+            keys[position] = id;
+            slots[position] = slot + 1;
+            size++;
+        }
+        linkLast(slot);
+    }
+
+    @Override
+    public void remove(int id) {
+        int position = find(id);
+        if (slots[position] == 0) {
+            return;
+        }
+        int slot = slots[position] - 1;
+        unlink(slot);
+        next[slot] = free;
+        free = slot;
+        size--;
+        delete(position);
+    }
+
+    @Override
+    public List<Task> getHistory() {
+        if (tasks == null) {
+            throw new IllegalStateException("История не связана с менеджером задач!");
+        }
+        List<Task> history = new ArrayList<>(size);
+        for (int slot = tail; slot != NONE; slot = prev[slot]) {
+            Task task = tasks.apply(ids[slot]);
+            if (task != null) {
+                history.add(task);
+            }
+        }
+        return history;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    private int allocate(int id) {
+        int slot;
+        if (free != NONE) {
+            slot = free;
+            free = next[slot];
+        } else {
+            if (used == ids.length) {
+                grow();
+            }
+            slot = used++;
+        }
+        ids[slot] = id;
+        return slot;
+    }
+
+    private void linkLast(int slot) {
+        prev[slot] = tail;
+        next[slot] = NONE;
+        if (tail == NONE) {
+            head = slot;
+        } else {
+            next[tail] = slot;
+        }
+        tail = slot;
+    }
+
+    private void unlink(int slot) {
+        int before = prev[slot];
+        int after = next[slot];
+        if (before == NONE) {
+            head = after;
+        } else {
+            next[before] = after;
+        }
+        if (after == NONE) {
+            tail = before;
+        } else {
+            prev[after] = before;
+        }
+    }
+
+    // Место ключа в таблице или первое свободное место на его пути.
+    private int find(int id) {
+        int position = hash(id) & mask;
+        while (slots[position] != 0 && keys[position] != id) {
+            position = (position + 1) & mask;
+        }
+        return position;
+    }
+
+    // Удаление со сдвигом: следующие ключи цепочки подтягиваются, чтобы поиск не прерывался.
+    private void delete(int position) {
+        int gap = position;
+        int current = position;
+        while (true) {
+            current = (current + 1) & mask;
+            if (slots[current] == 0) {
+                break;
+            }
+            int home = hash(keys[current]) & mask;
+            // Ключ можно перенести в дыру, если его исходное место не лежит между дырой и ним.
+            if (((current - home) & mask) >= ((current - gap) & mask)) {
+                keys[gap] = keys[current];
+                slots[gap] = slots[current];
+                gap = current;
+            }
+        }
+        slots[gap] = 0;
+    }
+
+    private void grow() {
+        int capacity = ids.length * 2;
+        ids = Arrays.copyOf(ids, capacity);
+        prev = Arrays.copyOf(prev, capacity);
+        next = Arrays.copyOf(next, capacity);
+
+        int[] oldKeys = keys;
+        int[] oldSlots = slots;
+        keys = new int[capacity * 2];
+        slots = new int[capacity * 2];
+        mask = capacity * 2 - 1;
+        for (int i = 0; i < oldSlots.length; i++) {
+            if (oldSlots[i] != 0) {
+                int position = find(oldKeys[i]);
+                keys[position] = oldKeys[i];
+                slots[position] = oldSlots[i];
+            }
+        }
+    }
+
+    private static int hash(int id) {
+        int h = id * 0x9E3779B9;
+        return h ^ (h >>> 16);
+    }
+}
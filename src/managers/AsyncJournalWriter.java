@@ -0,0 +1,183 @@
+package managers;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicLong;
+
+// Фоновая запись журнала: операции менеджера кладут записи в ограниченную очередь,
+// отдельный поток пишет их пачками и подтверждает каждую запись через CompletableFuture.
+// Если очередь заполнена, вызывающий поток ждёт освобождения места.
+public class AsyncJournalWriter {
+    private static final int MAX_BATCH_SIZE = 1024;
+
+    private final TaskJournal journal;
+    private final boolean isSync;
+    private final BlockingQueue<Entry> queue;
+    private final Thread writerThread;
+    private volatile boolean isClosed = false;
+
+    private final AtomicLong writtenRecords = new AtomicLong();
+    private final AtomicLong flushCount = new AtomicLong();
+    private final AtomicLong totalFlushNanos = new AtomicLong();
+    private volatile long lastFlushNanos = 0;
+
+    public AsyncJournalWriter(TaskJournal journal, int queueCapacity, boolean isSync) {
+        this.journal = journal;
+        this.isSync = isSync;
+        this.queue = new ArrayBlockingQueue<>(queueCapacity);
+        this.writerThread = new Thread(this::run, "task-journal-writer");
+        this.writerThread.setDaemon(true);
+        this.writerThread.start();
+    }
+
+    public CompletableFuture<Void> submit(String record) {
+        return enqueue(new Entry(record, null));
+    }
+
+    // Действие выполняется потоком записи строго после всех ранее поставленных записей.
+    public CompletableFuture<Void> execute(Runnable action) {
+        return enqueue(new Entry(null, action));
+    }
+
+    public void close() {
+        if (isClosed) {
+            return;
+        }
+        isClosed = true;
+        putUninterruptibly(Entry.STOP);
+        try {
+            writerThread.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new ManagerSaveException(e.getMessage());
+        }
+    }
+
+    public int getQueueDepth() {
+        return queue.size();
+    }
+
+    public long getWrittenRecords() {
+        return writtenRecords.get();
+    }
+
+    public long getFlushCount() {
+        return flushCount.get();
+    }
+
+    public long getLastFlushLatencyNanos() {
+        return lastFlushNanos;
+    }
+
+    public long getAverageFlushLatencyNanos() {
+        long count = flushCount.get();
+        return (count == 0) ? 0 : totalFlushNanos.get() / count;
+    }
+
+    private CompletableFuture<Void> enqueue(Entry entry) {
+        if (isClosed) {
+            throw new ManagerSaveException("Запись журнала уже остановлена!");
+        }
+        putUninterruptibly(entry);
+        return entry.future;
+    }
+
+    private void putUninterruptibly(Entry entry) {
+        boolean isInterrupted = false;
+        while (true) {
+            try {
+                queue.put(entry);
+                break;
+            } catch (InterruptedException e) {
+                isInterrupted = true;
+            }
+        }
+        if (isInterrupted) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void run() {
+        List<Entry> batch = new ArrayList<>();
+        boolean isStopped = false;
+        while (!isStopped) {
+            try {
+                batch.add(queue.take());
+            } catch (InterruptedException e) {
+                continue;
+            }
+            queue.drainTo(batch, MAX_BATCH_SIZE - 1);
+
+            List<Entry> written = new ArrayList<>();
+            for (Entry entry : batch) {
+                if (entry == Entry.STOP) {
+                    isStopped = true;
+                } else if (entry.action != null) {
+                    flush(written);
+                    runAction(entry);
+                } else {
+                    append(entry, written);
+                }
+            }
+            flush(written);
+            batch.clear();
+        }
+    }
+
+    private void append(Entry entry, List<Entry> written) {
+        try {
+            journal.append(entry.record);
+            written.add(entry);
+        } catch (RuntimeException e) {
+            entry.future.completeExceptionally(e);
+        }
+    }
+
+    private void runAction(Entry entry) {
+        try {
+            entry.action.run();
+            entry.future.complete(null);
+        } catch (RuntimeException e) {
+            entry.future.completeExceptionally(e);
+        }
+    }
+
+    private void flush(List<Entry> written) {
+        if (written.isEmpty()) {
+            return;
+        }
+        long start = System.nanoTime();
+        try {
+            journal.flush(isSync);
+            long latency = System.nanoTime() - start;
+            lastFlushNanos = latency;
+            totalFlushNanos.addAndGet(latency);
+            flushCount.incrementAndGet();
+            writtenRecords.addAndGet(written.size());
+            for (Entry entry : written) {
+                entry.future.complete(null);
+            }
+        } catch (RuntimeException e) {
+            for (Entry entry : written) {
+                entry.future.completeExceptionally(e);
+            }
+        }
+        written.clear();
+    }
+
+    private static class Entry {
+        private static final Entry STOP = new Entry(null, null);
+
+        private final String record;
+        private final Runnable action;
+        private final CompletableFuture<Void> future = new CompletableFuture<>();
+
+        private Entry(String record, Runnable action) {
+            this.record = record;
+            this.action = action;
+        }
+    }
+}
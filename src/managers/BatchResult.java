@@ -0,0 +1,137 @@
+package managers;
+
+import tasks.Subtask;
+import tasks.Task;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.List;
+import java.util.function.IntPredicate;
+
+// Итог пакетного создания: для каждой задачи в порядке передачи - принята она или почему отклонена.
+public class BatchResult {
+    public enum Outcome {
+        CREATED,
+        // Период пересекается с уже созданной задачей или с задачей того же пакета, начинающейся раньше.
+        OVERLAP,
+        MISSING_EPIC
+    }
+
+    private final List<Task> items;
+    private final Outcome[] outcomes;
+
+    private BatchResult(List<Task> items, Outcome[] outcomes) {
+        this.items = items;
+        this.outcomes = outcomes;
+    }
+
+    public int size() {
+        return items.size();
+    }
+
+    public Task getTask(int index) {
+        return items.get(index);
+    }
+
+    public Outcome getOutcome(int index) {
+        return outcomes[index];
+    }
+
+    public List<Task> getCreated() {
+        return select(true);
+    }
+
+    public List<Task> getRejected() {
+        return select(false);
+    }
+
+    public boolean isAllCreated() {
+        for (Outcome outcome : outcomes) {
+            if (outcome != Outcome.CREATED) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private List<Task> select(boolean isCreated) {
+        List<Task> selected = new ArrayList<>();
+        for (int i = 0; i < outcomes.length; i++) {
+            if ((outcomes[i] == Outcome.CREATED) == isCreated) {
+                selected.add(items.get(i));
+            }
+        }
+        return selected;
+    }
+
+    // Автоматическая расстановка: задачи со сроками в порядке передачи переносятся
+    // в первый промежуток не раньше notBefore, свободный и от созданных задач, и от уже
+    // расставленных задач пакета. Подзадачи без эпика не расставляются.
+    static void place(Collection<? extends Task> tasks, Schedule intervals, IntPredicate epicExists,
+                      LocalDateTime notBefore) {
+        IntervalTree placed = new IntervalTree();
+        int index = 0;
+        for (Task task : tasks) {
+            index++;
+            if (task.getType() == TypeTask.EPIC || task.getDuration() == 0
+                    || (task.getType() == TypeTask.SUBTASK && !epicExists.test(((Subtask) task).getIdEpic()))) {
+                continue;
+            }
+            Duration duration = Duration.ofMinutes(task.getDuration());
+            LocalDateTime startTime = notBefore;
+            // Каждый шаг сдвигает начало вперёд, пока оба дерева не согласятся.
+            while (true) {
+                LocalDateTime freeTime = placed.findFreeSlot(duration, intervals.findFreeSlot(duration, startTime));
+                if (freeTime.equals(startTime)) {
+                    break;
+                }
+                startTime = freeTime;
+            }
+            task.setStartTime(startTime);
+            placed.add(-index, task);
+        }
+    }
+
+    // Проверка пакета одним проходом: задачи сортируются по началу, каждая сверяется
+    // с уже созданными через дерево интервалов и с принятыми задачами пакета через
+    // наибольшее их окончание. При равном начале задачи без продолжительности идут
+    // первыми: точка на границе интервала с ним не пересекается.
+    static BatchResult validate(Collection<? extends Task> tasks, Schedule intervals, IntPredicate epicExists) {
+        List<Task> items = new ArrayList<>(tasks);
+        Outcome[] outcomes = new Outcome[items.size()];
+        List<Integer> timed = new ArrayList<>();
+        for (int i = 0; i < items.size(); i++) {
+            Task task = items.get(i);
+            if (task.getType() == TypeTask.SUBTASK && !epicExists.test(((Subtask) task).getIdEpic())) {
+                outcomes[i] = Outcome.MISSING_EPIC;
+            } else if (task.getType() == TypeTask.EPIC) {
+                outcomes[i] = Outcome.CREATED;
+            } else {
+                timed.add(i);
+            }
+        }
+
+        timed.sort(Comparator.comparing((Integer i) -> items.get(i).getStartTime())
+                .thenComparingInt(i -> (items.get(i).getDuration() == 0) ? 0 : 1)
+                .thenComparingInt(i -> i));
+        LocalDateTime maxEnd = null;
+        for (int i : timed) {
+            Task task = items.get(i);
+            LocalDateTime startTime = task.getStartTime();
+            LocalDateTime endTime = task.getEndTime();
+            if ((maxEnd != null && maxEnd.isAfter(startTime))
+                    || intervals.findOverlap(startTime, endTime, null) != null) {
+                outcomes[i] = Outcome.OVERLAP;
+                continue;
+            }
+            outcomes[i] = Outcome.CREATED;
+            if (task.getDuration() != 0 && (maxEnd == null || endTime.isAfter(maxEnd))) {
+                maxEnd = endTime;
+            }
+        }
+        return new BatchResult(items, outcomes);
+    }
+}
@@ -0,0 +1,264 @@
+package managers;
+
+import tasks.Epic;
+import tasks.Subtask;
+import tasks.Task;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.DateTimeException;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.zip.CRC32;
+import java.util.zip.CheckedInputStream;
+import java.util.zip.CheckedOutputStream;
+
+// Двоичный снимок, версия 1:
+// "TMSB", версия, число задач, задачи, число id в истории, id, CRC32 всего предыдущего.
+// Задача: id, тип, статус, [id эпика], начало в минутах от эпохи, продолжительность,
+// название и описание. Целые числа записываются как varint, строки - длина + UTF-8.
+public class BinarySerializator implements SnapshotSerializator {
+    static final byte[] MAGIC = {'T', 'M', 'S', 'B'};
+    static final int VERSION = 1;
+    private static final int MIN_CAPACITY = 16;
+
+    static final TypeTask[] TYPES = TypeTask.values();
+    static final StatusTask[] STATUSES = StatusTask.values();
+
+    @Override
+    public void write(OutputStream out, List<Task> tasks, List<Task> history) throws IOException {
+        CheckedOutputStream checked = new CheckedOutputStream(new BufferedOutputStream(out), new CRC32());
+        DataOutputStream data = new DataOutputStream(checked);
+        data.write(MAGIC);
+        data.writeByte(VERSION);
+
+        writeVarInt(data, tasks.size());
+        for (Task task : tasks) {
+            writeTask(data, task);
+        }
+        writeVarInt(data, history.size());
+        for (Task task : history) {
+            writeVarInt(data, task.getId());
+        }
+
+        data.flush();
+        new DataOutputStream(out).writeInt((int) checked.getChecksum().getValue());
+        out.flush();
+    }
+
+    @Override
+    public SnapshotData read(InputStream in) throws IOException {
+        return read(in, Long.MAX_VALUE);
+    }
+
+    // Размер файла известен заранее, поэтому счётчики больше него отбрасываются сразу.
+    @Override
+    public SnapshotData read(Path file) throws IOException {
+        try (InputStream in = Files.newInputStream(file)) {
+            return read(in, Files.size(file));
+        }
+    }
+
+    // Счётчики читаются до проверки контрольной суммы, поэтому им нельзя доверять:
+    // массивы растут по мере чтения, а не выделяются заранее под прочитанное число.
+    private SnapshotData read(InputStream in, long size) throws IOException {
+        CheckedInputStream checked = new CheckedInputStream(new BufferedInputStream(in), new CRC32());
+        DataInputStream data = new DataInputStream(checked);
+        readHeader(data);
+
+        int count = readCount(data, size);
+        List<Task> tasks = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            tasks.add(readTask(data));
+        }
+        int historySize = readCount(data, size);
+        int[] history = new int[Math.min(historySize, MIN_CAPACITY)];
+        for (int i = 0; i < historySize; i++) {
+            if (i == history.length) {
+                history = Arrays.copyOf(history, history.length * 2);
+            }
+            history[i] = readVarInt(data);
+        }
+        history = Arrays.copyOf(history, historySize);
+
+        int expected = (int) checked.getChecksum().getValue();
+        int actual = new DataInputStream(checked).readInt();
+        if (expected != actual) {
+            throw new ManagerSaveException("Контрольная сумма снимка не совпадает!");
+        }
+        return new SnapshotData(tasks, history);
+    }
+
+    static void readHeader(DataInputStream data) throws IOException {
+        byte[] magic = new byte[MAGIC.length];
+        data.readFully(magic);
+        for (int i = 0; i < MAGIC.length; i++) {
+            if (magic[i] != MAGIC[i]) {
+                throw new ManagerSaveException("Файл не является двоичным снимком задач!");
+            }
+        }
+        int version = data.readUnsignedByte();
+        if (version != VERSION) {
+            throw new ManagerSaveException("Неподдерживаемая версия снимка: " + version);
+        }
+    }
+
+    private void writeTask(DataOutputStream data, Task task) throws IOException {
+        writeVarInt(data, task.getId());
+        data.writeByte(task.getType().ordinal());
+        data.writeByte(task.getStatus().ordinal());
+        if (task.getType() == TypeTask.SUBTASK) {
+            writeVarInt(data, ((Subtask) task).getIdEpic());
+        }
+        writeVarLong(data, zigZag(toEpochMinute(task.getStartTime())));
+        writeVarLong(data, task.getDuration());
+        writeString(data, task.getName());
+        writeString(data, task.getDescription());
+    }
+
+    private Task readTask(DataInputStream data) throws IOException {
+        int id = readVarInt(data);
+        TypeTask type = TYPES[readOrdinal(data, TYPES.length)];
+        StatusTask status = STATUSES[readOrdinal(data, STATUSES.length)];
+        int epicId = (type == TypeTask.SUBTASK) ? readVarInt(data) : 0;
+        LocalDateTime startTime;
+        try {
+            startTime = fromEpochMinute(unZigZag(readVarLong(data)));
+        } catch (DateTimeException | ArithmeticException e) {
+            throw new ManagerSaveException("Повреждённая дата в снимке!");
+        }
+        long duration = readVarLong(data);
+        String name = readString(data);
+        String description = readString(data);
+        return newTask(id, type, status, epicId, startTime, duration, name, description);
+    }
+
+    static Task newTask(int id, TypeTask type, StatusTask status, int epicId, LocalDateTime startTime,
+                        long duration, String name, String description) {
+        Task task;
+        switch (type) {
+            case EPIC:
+                task = new Epic(type, name, description, startTime, duration);
+                break;
+            case SUBTASK:
+                task = new Subtask(type, name, description, startTime, duration, epicId);
+                break;
+            default:
+                task = new Task(type, name, description, startTime, duration);
+                break;
+        }
+        task.setId(id);
+        task.setStatus(status);
+        return task;
+    }
+
+    private static int readCount(DataInputStream data, long size) throws IOException {
+        int count = readVarInt(data);
+        if (count < 0 || count > size) {
+            throw new ManagerSaveException("Повреждённое число элементов в снимке: " + count);
+        }
+        return count;
+    }
+
+    private static int readOrdinal(DataInputStream data, int bound) throws IOException {
+        int ordinal = data.readUnsignedByte();
+        if (ordinal >= bound) {
+            throw new ManagerSaveException("Повреждённый тип или статус задачи в снимке: " + ordinal);
+        }
+        return ordinal;
+    }
+
+    static long toEpochMinute(LocalDateTime dateTime) {
+        return Math.floorDiv(dateTime.toEpochSecond(ZoneOffset.UTC), 60);
+    }
+
+    static LocalDateTime fromEpochMinute(long epochMinute) {
+        return LocalDateTime.ofEpochSecond(Math.multiplyExact(epochMinute, 60), 0, ZoneOffset.UTC);
+    }
+
+    static long zigZag(long value) {
+        return (value << 1) ^ (value >> 63);
+    }
+
+    static long unZigZag(long value) {
+        return (value >>> 1) ^ -(value & 1);
+    }
+
+    static void writeVarInt(DataOutputStream data, int value) throws IOException {
+        while ((value & ~0x7F) != 0) {
+            data.writeByte((value & 0x7F) | 0x80);
+            value >>>= 7;
+        }
+        data.writeByte(value);
+    }
+
+    static void writeVarLong(DataOutputStream data, long value) throws IOException {
+        while ((value & ~0x7FL) != 0) {
+            data.writeByte((int) ((value & 0x7F) | 0x80));
+            value >>>= 7;
+        }
+        data.writeByte((int) value);
+    }
+
+    static int readVarInt(DataInputStream data) throws IOException {
+        int value = 0;
+        for (int shift = 0; shift < 35; shift += 7) {
+            int b = data.readUnsignedByte();
+            value |= (b & 0x7F) << shift;
+            if ((b & 0x80) == 0) {
+                return value;
+            }
+        }
+        throw new ManagerSaveException("Повреждённое число в снимке!");
+    }
+
+    static long readVarLong(DataInputStream data) throws IOException {
+        long value = 0;
+        for (int shift = 0; shift < 70; shift += 7) {
+            int b = data.readUnsignedByte();
+            value |= (long) (b & 0x7F) << shift;
+            if ((b & 0x80) == 0) {
+                return value;
+            }
+        }
+        throw new ManagerSaveException("Повреждённое число в снимке!");
+    }
+
+    // Длина хранится со сдвигом на единицу, 0 означает null.
+    private void writeString(DataOutputStream data, String value) throws IOException {
+        if (value == null) {
+            writeVarInt(data, 0);
+            return;
+        }
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        writeVarInt(data, bytes.length + 1);
+        data.write(bytes);
+    }
+
+    private String readString(DataInputStream data) throws IOException {
+        int length = readVarInt(data);
+        if (length == 0) {
+            return null;
+        }
+        if (length < 0) {
+            throw new ManagerSaveException("Повреждённая длина строки в снимке: " + length);
+        }
+        // readNBytes выделяет память частями по мере чтения, а не сразу под заявленную длину.
+        byte[] bytes = data.readNBytes(length - 1);
+        if (bytes.length != length - 1) {
+            throw new ManagerSaveException("Снимок обрывается посреди строки!");
+        }
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+}
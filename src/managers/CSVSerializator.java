@@ -4,31 +4,77 @@ import tasks.Epic;
 import tasks.Subtask;
 import tasks.Task;
 
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.StringWriter;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
 import java.time.LocalDateTime;
 import java.time.format.DateTimeFormatter;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
+import java.util.stream.Collectors;
+
+public class CSVSerializator implements SnapshotSerializator {
+    public static final String HEADER = "id,type,name,status,description,epic";
 
-public class CSVSerializator {
     public static final DateTimeFormatter DATE_TIME_FORMATTER
             = DateTimeFormatter.ofPattern("dd.MM.yy HH:mm ");
     //public static final DateTimeFormatter DURATION_FORMATTER
     //        = DateTimeFormatter.ofPattern("Продолжительность лет: yy, месяцев: MM, дней: dd, часов: HH, минут: mm");
 
+    private static final TypeTask[] TYPES = TypeTask.values();
+    private static final StatusTask[] STATUSES = StatusTask.values();
+
+    private static final int PARALLEL_THRESHOLD = 1 << 20;
+
+    private final CsvReader lineReader = new CsvReader();
+
     public static List<Integer> fromStringHistory(String value) {
+        CsvReader reader = new CsvReader();
+        reader.reset(value);
         List<Integer> history = new ArrayList<>();
-        String[] valueId = value.split(",");
-
-        for (String element : valueId) {
-            history.add(Integer.valueOf(element));
+        try {
+            for (int id : readHistory(reader)) {
+                history.add(id);
+            }
+        } catch (IOException e) {
+            throw new ManagerSaveException(e.getMessage());
         }
         return history;
     }
 
+    // Строка истории: id через запятую, без упаковки в Integer.
+    static int[] readHistory(CsvReader reader) throws IOException {
+        int[] history = new int[16];
+        int size = 0;
+        while (!reader.isRecordEnd()) {
+            if (reader.isFieldEmpty()) {
+                reader.skipField();
+                continue;
+            }
+            if (size == history.length) {
+                history = Arrays.copyOf(history, size * 2);
+            }
+            history[size++] = reader.readInt();
+        }
+        return Arrays.copyOf(history, size);
+    }
+
     public static String toStringHistory(HistoryManager historyManager) {
+        return toStringHistory(historyManager.getHistory());
+    }
+
+    public static String toStringHistory(List<Task> history) {
         StringBuilder lineHistory = new StringBuilder("");
 
-        for (Task task : historyManager.getHistory()) {
+        for (Task task : history) {
             lineHistory.append(task.getId());
             lineHistory.append(",");
         }
@@ -40,25 +86,33 @@ public class CSVSerializator {
     }
 
     public Task fromString(String value) {
-        String[] elements = value.split(",");
-
-        if (elements[0].equals("id")) {
+        if (value.startsWith("id,")) {
             return null;
         }
 
-        int id = Integer.parseInt(elements[0]);
-        TypeTask type = TypeTask.valueOf(elements[1]);
-        String name = elements[2];
-        StatusTask status = StatusTask.valueOf(elements[3]);
-        String description = elements[4];
-        LocalDateTime startTime = LocalDateTime.parse(elements[5], DATE_TIME_FORMATTER);
-        Long duration = Long.parseLong(elements[6]);
+        lineReader.reset(value);
+        try {
+            return readTask(lineReader);
+        } catch (IOException e) {
+            throw new ManagerSaveException(e.getMessage());
+        }
+    }
+
+    Task readTask(CsvReader reader) throws IOException {
+        int id = reader.readInt();
+        TypeTask type = reader.readEnum(TYPES);
+        String name = reader.readString();
+        StatusTask status = reader.readEnum(STATUSES);
+        String description = reader.readString();
+        LocalDateTime startTime = reader.readDateTime();
+        Long duration = reader.readLong();
 
         int epicId = 0;
 
         if (type == TypeTask.SUBTASK) {
-            epicId = Integer.parseInt(elements[7]);
+            epicId = reader.readInt();
         }
+        reader.skipRecord();
 
         switch (type) {
             case TASK:
@@ -82,15 +136,133 @@ public class CSVSerializator {
     }
 
     public String toString(Task task) {
-        String lineTask = task.getId() + "," + task.getType() + ","
-                + task.getName() + "," + task.getStatus() + "," + task.getDescription() + ","
-                + task.getStartTime().format(DATE_TIME_FORMATTER) + "," + task.getDuration() + ",";
+        StringWriter row = new StringWriter();
+        CsvWriter writer = new CsvWriter(row, 256);
+        try {
+            writeTask(writer, task);
+            writer.flush();
+        } catch (IOException e) {
+            throw new ManagerSaveException(e.getMessage());
+        }
+        return row.toString();
+    }
 
+    void writeTask(CsvWriter writer, Task task) throws IOException {
+        writer.writeInt(task.getId())
+                .writeEnum(task.getType())
+                .writeString(task.getName())
+                .writeEnum(task.getStatus())
+                .writeString(task.getDescription())
+                .writeDateTime(task.getStartTime())
+                .writeLong(task.getDuration());
         if (task.getType() == TypeTask.SUBTASK) {
-            Subtask subtask = (Subtask) task;
-            lineTask = lineTask + subtask.getIdEpic();
+            writer.writeInt(((Subtask) task).getIdEpic());
+        } else {
+            writer.writeEmpty();
+        }
+        writer.endRecord();
+    }
+
+    @Override
+    public void write(OutputStream out, List<Task> tasks, List<Task> history) throws IOException {
+        CsvWriter writer = new CsvWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8));
+        for (String column : HEADER.split(",")) {
+            writer.writeString(column);
+        }
+        writer.endRecord();
+        for (Task task : tasks) {
+            writeTask(writer, task);
         }
-        return lineTask + "\n";
+        writer.endRecord();
+        for (Task task : history) {
+            writer.writeInt(task.getId());
+        }
+        writer.flush();
+    }
+
+    @Override
+    public SnapshotData read(InputStream in) throws IOException {
+        CsvReader reader = new CsvReader(new InputStreamReader(in, StandardCharsets.UTF_8));
+        List<Task> tasks = new ArrayList<>();
+        reader.skipRecord();
+        // Задачи идут до пустой строки, после неё - строка истории.
+        while (!reader.skipBlankLine() && !reader.isEndOfData()) {
+            tasks.add(readTask(reader));
+        }
+
+        if (!reader.nextRecord()) {
+            return new SnapshotData(tasks, new int[0]);
+        }
+        return new SnapshotData(tasks, readHistory(reader));
+    }
+
+    // Большой снимок разбирается параллельно: файл делится на куски по границам записей
+    // (перевод строки вне кавычек), каждый кусок читается своим CsvReader.
+    @Override
+    public SnapshotData read(Path file) throws IOException {
+        if (Files.size(file) < PARALLEL_THRESHOLD) {
+            return SnapshotSerializator.super.read(file);
+        }
+        byte[] bytes = Files.readAllBytes(file);
+        int chunkSize = Math.max(bytes.length / (Runtime.getRuntime().availableProcessors() * 4), 1);
+
+        List<int[]> chunks = new ArrayList<>();
+        boolean isQuoted = false;
+        int chunkStart = -1;
+        int lineStart = 0;
+        int tasksEnd = bytes.length;
+        int historyStart = bytes.length;
+        for (int i = 0; i < bytes.length; i++) {
+            if (bytes[i] == '"') {
+                isQuoted = !isQuoted;
+            } else if (bytes[i] == '\n' && !isQuoted) {
+                if (chunkStart < 0) {
+                    chunkStart = i + 1;
+                } else if (i == lineStart || (i == lineStart + 1 && bytes[lineStart] == '\r')) {
+                    tasksEnd = lineStart;
+                    historyStart = i + 1;
+                    break;
+                } else if (i + 1 - chunkStart >= chunkSize) {
+                    chunks.add(new int[]{chunkStart, i + 1});
+                    chunkStart = i + 1;
+                }
+                lineStart = i + 1;
+            }
+        }
+        if (chunkStart >= 0 && chunkStart < tasksEnd) {
+            chunks.add(new int[]{chunkStart, tasksEnd});
+        }
+
+        List<Task> tasks = new ArrayList<>();
+        List<List<Task>> parsed = chunks.parallelStream()
+                .map(chunk -> readChunk(bytes, chunk[0], chunk[1]))
+                .collect(Collectors.toList());
+        for (List<Task> chunkTasks : parsed) {
+            tasks.addAll(chunkTasks);
+        }
+
+        CsvReader reader = reader(bytes, historyStart, bytes.length);
+        if (!reader.nextRecord()) {
+            return new SnapshotData(tasks, new int[0]);
+        }
+        return new SnapshotData(tasks, readHistory(reader));
     }
 
+    private List<Task> readChunk(byte[] bytes, int from, int to) {
+        List<Task> tasks = new ArrayList<>();
+        CsvReader reader = reader(bytes, from, to);
+        try {
+            while (reader.nextRecord()) {
+                tasks.add(readTask(reader));
+            }
+        } catch (IOException e) {
+            throw new ManagerSaveException(e.getMessage());
+        }
+        return tasks;
+    }
+
+    private static CsvReader reader(byte[] bytes, int from, int to) {
+        return new CsvReader(new InputStreamReader(new ByteArrayInputStream(bytes, from, to - from),
+                StandardCharsets.UTF_8));
+    }
 }
@@ -0,0 +1,122 @@
+package managers;
+
+import tasks.Task;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.IntFunction;
+
+// История для многопоточного менеджера: просмотры не захватывают блокировку,
+// а складываются в неблокирующие буферы (по буферу на группу потоков).
+// Буферы пачками переносятся в упорядоченный список InMemoryHistoryManager
+// тем потоком, который первым захватит блокировку слива. getHistory() видит
+// все просмотры, завершившиеся до его вызова. Если менеджер задач передал поиск
+// задачи по номеру (bind), при сливе отбрасываются просмотры уже удалённых задач:
+// просмотр мог попасть в буфер уже после того, как remove очистил историю.
+public class ConcurrentHistoryManager implements HistoryManager {
+    private static final int DRAIN_THRESHOLD = 64;
+    private static final Comparator<Access> ORDER = Comparator.comparingLong(access -> access.time);
+
+    private final List<Queue<Access>> buffers;
+    private final AtomicInteger[] pending;
+    private final int mask;
+    private final ReentrantLock drainLock = new ReentrantLock();
+    private final HistoryManager history;
+    private volatile IntFunction<Task> tasks = null;
+
+    public ConcurrentHistoryManager() {
+        this(new InMemoryHistoryManager());
+    }
+
+    public ConcurrentHistoryManager(HistoryManager history) {
+        int stripes = Integer.highestOneBit(Runtime.getRuntime().availableProcessors() * 2 - 1) << 1;
+        this.buffers = new ArrayList<>(stripes);
+        this.pending = new AtomicInteger[stripes];
+        for (int i = 0; i < stripes; i++) {
+            buffers.add(new ConcurrentLinkedQueue<>());
+            pending[i] = new AtomicInteger();
+        }
+        this.mask = stripes - 1;
+        this.history = history;
+    }
+
+    @Override
+    public void bind(IntFunction<Task> tasks) {
+        this.tasks = tasks;
+        history.bind(tasks);
+    }
+
+    @Override
+    public void add(Task task) {
+        int stripe = (int) Thread.currentThread().getId() & mask;
+        buffers.get(stripe).offer(new Access(task, System.nanoTime()));
+        // Слив без ожидания: если им уже занят другой поток, просмотр подождёт следующего.
+        if (pending[stripe].incrementAndGet() >= DRAIN_THRESHOLD && drainLock.tryLock()) {
+            try {
+                drain();
+            } finally {
+                drainLock.unlock();
+            }
+        }
+    }
+
+    // Удаление применяется сразу после уже накопленных просмотров.
+    @Override
+    public void remove(int id) {
+        drainLock.lock();
+        try {
+            drain();
+            history.remove(id);
+        } finally {
+            drainLock.unlock();
+        }
+    }
+
+    @Override
+    public List<Task> getHistory() {
+        drainLock.lock();
+        try {
+            drain();
+            return history.getHistory();
+        } finally {
+            drainLock.unlock();
+        }
+    }
+
+    // Вызывается под drainLock. Просмотры из разных буферов упорядочиваются по времени.
+    private void drain() {
+        List<Access> batch = new ArrayList<>();
+        for (int i = 0; i < buffers.size(); i++) {
+            Queue<Access> buffer = buffers.get(i);
+            Access access;
+            int count = 0;
+            while ((access = buffer.poll()) != null) {
+                batch.add(access);
+                count++;
+            }
+            pending[i].addAndGet(-count);
+        }
+        batch.sort(ORDER);
+        IntFunction<Task> tasks = this.tasks;
+        for (Access access : batch) {
+            if (tasks == null || tasks.apply(access.task.getId()) != null) {
+                history.add(access.task);
+            }
+        }
+    }
+
+    private static class Access {
+        private final Task task;
+        private final long time;
+
+        private Access(Task task, long time) {
+            this.task = task;
+            this.time = time;
+        }
+    }
+}
@@ -0,0 +1,243 @@
+package managers;
+
+import tasks.Task;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+// Расписание ConcurrentTaskManager без общей блокировки. Задачи со сроками лежат в
+// ConcurrentSkipListMap по (start, id). Пересечения в расписании запрещены, поэтому концы
+// идут в том же порядке, что и начала, и пересечение с [start, end) решается по одной
+// задаче - последней, которая начинается раньше end.
+// Проверка и вставка периода атомарны относительно пересекающихся с ним периодов: изменение
+// захватывает полосы суток, которые задевает период, по возрастанию номера полосы.
+// Пересекающиеся периоды задевают общие сутки и выполняются по очереди, а периоды в разных
+// сутках друг другу не мешают. Период не короче числа полос захватывает все полосы.
+// Задачи без продолжительности полос не захватывают и хранятся отдельно.
+// Изменения одной задачи вызывающий сериализует сам (блокировкой её полосы в менеджере).
+// Чтение не блокируется и согласовано слабо, как обход ConcurrentSkipListMap.
+class ConcurrentSchedule implements Schedule {
+    private static final int STRIPES = 64;
+    private static final int[] ALL_STRIPES = new int[STRIPES];
+    private static final int[] NO_STRIPES = new int[0];
+
+    static {
+        for (int i = 0; i < STRIPES; i++) {
+            ALL_STRIPES[i] = i;
+        }
+    }
+
+    private final ReentrantLock[] locks = new ReentrantLock[STRIPES];
+    private final ConcurrentSkipListMap<Slot, Task> timed = new ConcurrentSkipListMap<>();
+    private final ConcurrentSkipListMap<Slot, Task> untimed = new ConcurrentSkipListMap<>();
+    // Номер задачи -> её текущее место в расписании.
+    private final Map<Integer, Slot> slots = new ConcurrentHashMap<>();
+
+    ConcurrentSchedule() {
+        for (int i = 0; i < locks.length; i++) {
+            locks[i] = new ReentrantLock();
+        }
+    }
+
+    // Захватывает полосы периода задачи и возвращает их для unlock.
+    int[] lock(Task task) {
+        int[] stripes = stripes(task);
+        for (int stripe : stripes) {
+            locks[stripe].lock();
+        }
+        return stripes;
+    }
+
+    void unlock(int[] stripes) {
+        for (int i = stripes.length - 1; i >= 0; i--) {
+            locks[stripes[i]].unlock();
+        }
+    }
+
+    // Останавливает все изменения задач со сроками.
+    void lockAll() {
+        lock(ALL_STRIPES);
+    }
+
+    void unlockAll() {
+        unlock(ALL_STRIPES);
+    }
+
+    // Новое место задачи заменяет прежнее. Прежнее убирается раньше, чем вставляется новое,
+    // поэтому в расписании никогда не бывает двух пересекающихся периодов.
+    void add(Task task) {
+        Slot slot = new Slot(task);
+        Slot previous = slots.put(slot.id, slot);
+        if (previous != null) {
+            segment(previous).remove(previous);
+        }
+        segment(slot).put(slot, task);
+    }
+
+    void remove(int id) {
+        Slot previous = slots.remove(id);
+        if (previous != null) {
+            segment(previous).remove(previous);
+        }
+    }
+
+    // Вызывается под lockAll().
+    void clear() {
+        slots.clear();
+        timed.clear();
+        untimed.clear();
+    }
+
+    // Пересекающиеся с [startTime, endTime) периоды не меняются, пока вызывающий держит полосы
+    // этого периода, а остальные периоды кончаются не позже startTime и лежат левее всех
+    // пересекающихся. Поэтому достаточно взглянуть на последний период, начинающийся раньше endTime.
+    @Override
+    public Task findOverlap(LocalDateTime startTime, LocalDateTime endTime, Integer idForUpdateTask) {
+        for (Map.Entry<Slot, Task> entry : timed.headMap(new Slot(endTime, Integer.MIN_VALUE)).descendingMap()
+                .entrySet()) {
+            Slot slot = entry.getKey();
+            if (idForUpdateTask != null && slot.id == idForUpdateTask) {
+                continue;
+            }
+            return slot.end.isAfter(startTime) ? entry.getValue() : null;
+        }
+        return null;
+    }
+
+    // Проход по периодам от notBefore до первого промежутка не короче duration: O(log n + k).
+    // Ответ - подсказка: к моменту вставки промежуток может занять другой поток.
+    @Override
+    public LocalDateTime findFreeSlot(Duration duration, LocalDateTime notBefore) {
+        if (duration.isNegative()) {
+            throw new IllegalArgumentException("Неверная продолжительность: " + duration);
+        }
+        LocalDateTime startTime = notBefore;
+        for (Slot slot : from(notBefore).keySet()) {
+            if (!slot.end.isAfter(startTime)) {
+                continue;
+            }
+            if (Duration.between(startTime, slot.start).compareTo(duration) >= 0) {
+                return startTime;
+            }
+            startTime = slot.end;
+        }
+        return startTime;
+    }
+
+    // Задачи, пересекающие [from, to), по возрастанию (start, id). Поток ленивый.
+    Stream<Task> overlapping(LocalDateTime from, LocalDateTime to) {
+        return from(from).entrySet().stream()
+                .takeWhile(entry -> entry.getKey().start.isBefore(to))
+                .filter(entry -> entry.getKey().end.isAfter(from))
+                .map(Map.Entry::getValue);
+    }
+
+    List<Task> startingAfter(LocalDateTime from, int limit) {
+        if (limit <= 0) {
+            throw new IllegalArgumentException("Неверное число задач: " + limit);
+        }
+        List<Task> result = new ArrayList<>();
+        Iterator<Task> iterator = timed.tailMap(new Slot(from, Integer.MAX_VALUE), false).values().iterator();
+        while (result.size() < limit && iterator.hasNext()) {
+            result.add(iterator.next());
+        }
+        return result;
+    }
+
+    // Задачи, которые идут в момент time: start <= time < end.
+    List<Task> activeAt(LocalDateTime time) {
+        return overlapping(time, time.plusNanos(1)).collect(Collectors.toList());
+    }
+
+    // Сначала задачи со сроками, затем задачи без продолжительности, в каждой части по (start, id).
+    List<Task> prioritized() {
+        List<Task> result = new ArrayList<>(timed.values());
+        result.addAll(untimed.values());
+        return Collections.unmodifiableList(result);
+    }
+
+    // Периоды, начиная с того, что может содержать time: раньше него все периоды кончаются не позже.
+    private NavigableMap<Slot, Task> from(LocalDateTime time) {
+        Slot first = timed.floorKey(new Slot(time, Integer.MAX_VALUE));
+        return (first == null) ? timed : timed.tailMap(first, true);
+    }
+
+    private ConcurrentSkipListMap<Slot, Task> segment(Slot slot) {
+        return slot.isTimed ? timed : untimed;
+    }
+
+    private void lock(int[] stripes) {
+        for (int stripe : stripes) {
+            locks[stripe].lock();
+        }
+    }
+
+    // Полосы суток, которые задевает период задачи, по возрастанию.
+    private static int[] stripes(Task task) {
+        if (task.getDuration() == 0) {
+            return NO_STRIPES;
+        }
+        long firstDay = task.getStartTime().toLocalDate().toEpochDay();
+        long lastDay = task.getEndTime().toLocalDate().toEpochDay();
+        if (lastDay - firstDay + 1 >= STRIPES) {
+            return ALL_STRIPES;
+        }
+        boolean[] isUsed = new boolean[STRIPES];
+        int count = 0;
+        for (long day = firstDay; day <= lastDay; day++) {
+            int stripe = Math.floorMod(day, STRIPES);
+            if (!isUsed[stripe]) {
+                isUsed[stripe] = true;
+                count++;
+            }
+        }
+        int[] stripes = new int[count];
+        int i = 0;
+        for (int stripe = 0; stripe < STRIPES; stripe++) {
+            if (isUsed[stripe]) {
+                stripes[i++] = stripe;
+            }
+        }
+        return stripes;
+    }
+
+    // Место задачи: период на момент вставки и ключ (start, id).
+    private static class Slot implements Comparable<Slot> {
+        private final LocalDateTime start;
+        private final LocalDateTime end;
+        private final int id;
+        private final boolean isTimed;
+
+        private Slot(Task task) {
+            this.start = task.getStartTime();
+            this.end = task.getEndTime();
+            this.id = task.getId();
+            this.isTimed = task.getDuration() != 0;
+        }
+
+        // Ключ для поиска.
+        private Slot(LocalDateTime start, int id) {
+            this.start = start;
+            this.end = start;
+            this.id = id;
+            this.isTimed = true;
+        }
+
+        @Override
+        public int compareTo(Slot other) {
+            int cmp = start.compareTo(other.start);
+            return (cmp != 0) ? cmp : Integer.compare(id, other.id);
+        }
+    }
+}
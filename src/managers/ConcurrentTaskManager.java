@@ -0,0 +1,829 @@
+package managers;
+
+import tasks.Epic;
+import tasks.Subtask;
+import tasks.Task;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.SortedSet;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+
+// Менеджер для одновременной работы из многих потоков.
+// Задачи хранятся в ConcurrentHashMap, id выдаёт AtomicInteger, история - ConcurrentHistoryManager.
+// Изменения сериализуются блокировками по полосам: подзадачи - по номеру своего эпика,
+// задачи и эпики - по своему номеру. Общей блокировки у расписания нет (ConcurrentSchedule):
+// задача со сроками захватывает только полосы суток своего периода, без продолжительности - ничего.
+// Порядок захвата: полосы расписания, затем полосы задач (по возрастанию полосы).
+public class ConcurrentTaskManager implements TaskManager {
+    private static final int LOCK_STRIPES = 64;
+
+    private final AtomicInteger id = new AtomicInteger();
+    private final Map<Integer, Task> tasks = new ConcurrentHashMap<>();
+    private final Map<Integer, Epic> epics = new ConcurrentHashMap<>();
+    private final Map<Integer, Subtask> subtasks = new ConcurrentHashMap<>();
+    private final HistoryManager historyManager = new ConcurrentHistoryManager();
+    private final ReentrantLock[] locks = new ReentrantLock[LOCK_STRIPES];
+    private final ConcurrentSchedule schedule = new ConcurrentSchedule();
+    // Изменения индекса статусов сериализуются на нём самом.
+    private final StatusIndex statusIndex = new StatusIndex();
+    private final TextIndex textIndex = new TextIndex();
+    private final AtomicReference<TaskSnapshot> snapshot = new AtomicReference<>(TaskSnapshot.EMPTY);
+    // Журнал отката открытой транзакции; null вне транзакции. Транзакция держит все полосы,
+    // поэтому журнал меняет только её поток.
+    private volatile Transaction undoLog = null;
+
+    public ConcurrentTaskManager() {
+        for (int i = 0; i < locks.length; i++) {
+            locks[i] = new ReentrantLock();
+        }
+        historyManager.bind(this::findTask);
+    }
+
+    @Override
+    public List<Task> getHistory() {
+        return historyManager.getHistory();
+    }
+
+    @Override
+    public List<Task> getPrioritizedTasks() {
+        return schedule.prioritized();
+    }
+
+    @Override
+    public List<Task> getAllTasks() {
+        return rememberAll(new ArrayList<>(tasks.values()));
+    }
+
+    @Override
+    public List<Epic> getAllEpics() {
+        return rememberAll(new ArrayList<>(epics.values()));
+    }
+
+    @Override
+    public List<Subtask> getAllSubtasks() {
+        return rememberAll(new ArrayList<>(subtasks.values()));
+    }
+
+    @Override
+    public void createTask(Task task) {
+        int[] periodStripes = schedule.lock(task);
+        try {
+            checkingOverlaysOfPeriods(task.getStartTime(), task.getEndTime(), null);
+            insertTask(task);
+        } catch (UnsupportedOperationException exception) {
+            System.out.println(exception.getMessage() + "Задача <" + task.getName() + "> не добавлена!\n");
+        } finally {
+            schedule.unlock(periodStripes);
+        }
+    }
+
+    @Override
+    public void createSubTask(Subtask subtask) {
+        int[] periodStripes = schedule.lock(subtask);
+        ReentrantLock lock = stripeLock(subtask.getIdEpic());
+        lock.lock();
+        try {
+            Epic epic = getEpicById(subtask.getIdEpic());
+            checkingOverlaysOfPeriods(subtask.getStartTime(), subtask.getEndTime(), null);
+            int idSubtask = id.incrementAndGet();
+            remember(idSubtask);
+            subtask.setId(idSubtask);
+            subtasks.put(idSubtask, subtask);
+            schedule.add(subtask);
+            epic.setListSubTask(subtask);
+            updateEpic(epic);
+            publish(List.of(subtask.getId(), epic.getId()));
+        } catch (UnsupportedOperationException exception) {
+            System.out.println(exception.getMessage() + "Подзадача <" + subtask.getName() + "> не добавлена!\n");
+        } catch (NullPointerException exception) {
+            System.out.println(exception.getMessage() + "Подзадача <" + subtask.getName() + "> не добавлена!\n");
+        } finally {
+            lock.unlock();
+            schedule.unlock(periodStripes);
+        }
+    }
+
+    @Override
+    public void createEpic(Epic epic) {
+        int idEpic = lockNewId();
+        try {
+            remember(idEpic);
+            epic.setId(idEpic);
+            epics.put(idEpic, epic);
+            publish(idEpic);
+        } finally {
+            stripeLock(idEpic).unlock();
+        }
+    }
+
+    @Override
+    public BatchResult createAll(Collection<? extends Task> tasks) {
+        return createAll(tasks, null);
+    }
+
+    // Захватываются все полосы расписания, затем блокировки затронутых эпиков по возрастанию
+    // полосы. Расстановка (если notBefore задан) и проверка идут под ними же.
+    // Весь пакет вместе с изменёнными эпиками попадает в срез одной публикацией.
+    @Override
+    public BatchResult createAll(Collection<? extends Task> tasks, LocalDateTime notBefore) {
+        SortedSet<Integer> stripes = new TreeSet<>();
+        for (Task task : tasks) {
+            if (task.getType() == TypeTask.SUBTASK) {
+                stripes.add(Math.floorMod(((Subtask) task).getIdEpic(), LOCK_STRIPES));
+            }
+        }
+        schedule.lockAll();
+        try {
+            for (int stripe : stripes) {
+                locks[stripe].lock();
+            }
+            BatchResult result;
+            Set<Epic> changedEpics = new LinkedHashSet<>();
+            try {
+                if (notBefore != null) {
+                    BatchResult.place(tasks, schedule, epics::containsKey, notBefore);
+                }
+                result = BatchResult.validate(tasks, schedule, epics::containsKey);
+                List<Task> created = result.getCreated();
+                List<Integer> changedIds = new ArrayList<>();
+                int taskId = id.getAndAdd(created.size());
+                for (Task task : created) {
+                    remember(++taskId);
+                    task.setId(taskId);
+                    switch (task.getType()) {
+                        case EPIC:
+                            epics.put(taskId, (Epic) task);
+                            break;
+                        case SUBTASK:
+                            Subtask subtask = (Subtask) task;
+                            subtasks.put(taskId, subtask);
+                            remember(subtask.getIdEpic());
+                            Epic epic = epics.get(subtask.getIdEpic());
+                            epic.setListSubTask(subtask);
+                            changedEpics.add(epic);
+                            schedule.add(subtask);
+                            break;
+                        default:
+                            this.tasks.put(taskId, task);
+                            schedule.add(task);
+                            break;
+                    }
+                    changedIds.add(taskId);
+                }
+                for (Epic epic : changedEpics) {
+                    updateEpic(epic);
+                    changedIds.add(epic.getId());
+                }
+                publish(changedIds);
+            } finally {
+                for (int stripe : stripes) {
+                    locks[stripe].unlock();
+                }
+            }
+            return result;
+        } finally {
+            schedule.unlockAll();
+        }
+    }
+
+    // Ленивый поток по расписанию: не блокирует запись и видит её слабо согласованно.
+    @Override
+    public Stream<Task> getTasksInRange(LocalDateTime from, LocalDateTime to) {
+        return schedule.overlapping(from, to);
+    }
+
+    @Override
+    public List<Task> getTasksStartingAfter(LocalDateTime time, int limit) {
+        return schedule.startingAfter(time, limit);
+    }
+
+    @Override
+    public List<Task> getActiveAt(LocalDateTime time) {
+        return schedule.activeAt(time);
+    }
+
+    @Override
+    public List<Task> getByStatus(StatusTask status) {
+        synchronized (statusIndex) {
+            return statusIndex.get(status);
+        }
+    }
+
+    @Override
+    public List<Task> getByStatus(TypeTask type, StatusTask status) {
+        synchronized (statusIndex) {
+            return statusIndex.get(type, status);
+        }
+    }
+
+    @Override
+    public Map<StatusTask, Integer> countByStatus() {
+        synchronized (statusIndex) {
+            return statusIndex.counts();
+        }
+    }
+
+    // Задача, удалённая после поиска, в ответ не попадает.
+    @Override
+    public List<Task> search(String query, int limit) {
+        List<Integer> ids;
+        synchronized (textIndex) {
+            ids = textIndex.search(query, limit);
+        }
+        List<Task> result = new ArrayList<>();
+        for (int idTask : ids) {
+            Task task = findTask(idTask);
+            if (task != null) {
+                result.add(task);
+            }
+        }
+        return result;
+    }
+
+    // Срез читается без блокировок и за O(1).
+    @Override
+    public TaskSnapshot snapshot() {
+        return snapshot.get();
+    }
+
+    @Override
+    public LocalDateTime findFreeSlot(Duration duration, LocalDateTime notBefore) {
+        return schedule.findFreeSlot(duration, notBefore);
+    }
+
+    // Промежуток ищется без блокировок и перепроверяется под полосами своего периода;
+    // если его успел занять другой поток, поиск повторяется.
+    @Override
+    public void createTaskAtEarliest(Task task, LocalDateTime notBefore) {
+        Duration duration = Duration.ofMinutes(task.getDuration());
+        while (true) {
+            task.setStartTime(schedule.findFreeSlot(duration, notBefore));
+            int[] periodStripes = schedule.lock(task);
+            try {
+                if (schedule.findOverlap(task.getStartTime(), task.getEndTime(), null) == null) {
+                    insertTask(task);
+                    return;
+                }
+            } finally {
+                schedule.unlock(periodStripes);
+            }
+        }
+    }
+
+    @Override
+    public void updatedTask(Task task) {
+        int[] periodStripes = schedule.lock(task);
+        ReentrantLock lock = stripeLock(task.getId());
+        lock.lock();
+        try {
+            checkingOverlaysOfPeriods(task.getStartTime(), task.getEndTime(), task.getId());
+            remember(task.getId());
+            tasks.put(task.getId(), task);
+            publish(task.getId());
+            schedule.add(task);
+        } catch (UnsupportedOperationException exception) {
+            System.out.println("Задача <" + task.getName() + "> не обновлена!\n");
+        } finally {
+            lock.unlock();
+            schedule.unlock(periodStripes);
+        }
+    }
+
+    @Override
+    public void updatedEpic(Epic epic) {
+        ReentrantLock lock = stripeLock(epic.getId());
+        lock.lock();
+        try {
+            remember(epic.getId());
+            epics.put(epic.getId(), epic);
+            epic.setStatus(epic.getSubtasksStatus());
+            publish(epic.getId());
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public void updatedSubTask(Subtask subTask) {
+        int[] periodStripes = schedule.lock(subTask);
+        int oldEpicId;
+        while (true) {
+            Subtask current = subtasks.get(subTask.getId());
+            oldEpicId = (current == null) ? subTask.getIdEpic() : current.getIdEpic();
+            lockEpics(oldEpicId, subTask.getIdEpic());
+            // Пока поток ждал блокировки, подзадачу могли перенести в другой эпик.
+            if (subtasks.get(subTask.getId()) == current) {
+                break;
+            }
+            unlockEpics(oldEpicId, subTask.getIdEpic());
+        }
+        try {
+            Epic epic = findEpic(subTask.getIdEpic());
+            checkingOverlaysOfPeriods(subTask.getStartTime(), subTask.getEndTime(), subTask.getId());
+            remember(subTask.getId());
+            remember(oldEpicId);
+            remember(epic.getId());
+            Subtask oldSubtask = subtasks.put(subTask.getId(), subTask);
+            schedule.add(subTask);
+            if (oldSubtask != null) {
+                unlinkSubtask(oldSubtask);
+            }
+            epic.setListSubTask(subTask);
+            updateEpic(epic);
+            publish(List.of(subTask.getId(), oldEpicId, epic.getId()));
+        } catch (UnsupportedOperationException exception) {
+            System.out.println("Подзадача <" + subTask.getName() + "> не обновлена!\n");
+        } finally {
+            unlockEpics(oldEpicId, subTask.getIdEpic());
+            schedule.unlock(periodStripes);
+        }
+    }
+
+    @Override
+    public Task getTaskById(int id) {
+        Task task = tasks.get(id);
+        if (task != null) {
+            remember(id);
+            historyManager.add(task);
+        }
+        return task;
+    }
+
+    @Override
+    public Epic getEpicById(int id) {
+        Epic epic = findEpic(id);
+        remember(id);
+        historyManager.add(epic);
+        return epic;
+    }
+
+    @Override
+    public Subtask getSubTaskById(int id) {
+        Subtask subtask = subtasks.get(id);
+        if (subtask != null) {
+            remember(id);
+            historyManager.add(subtask);
+        }
+        return subtask;
+    }
+
+    // Копия списка подзадач: сам список эпика меняется под блокировкой эпика.
+    @Override
+    public List<Subtask> getListSubTasks(int id) {
+        ReentrantLock lock = stripeLock(id);
+        lock.lock();
+        try {
+            return new ArrayList<>(getEpicById(id).getListSubTask());
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public StatusTask getStatusById(int id) {
+        Task task = tasks.get(id);
+        if (task == null) {
+            task = subtasks.get(id);
+        }
+        if (task != null) {
+            return task.getStatus();
+        }
+        ReentrantLock lock = stripeLock(id);
+        lock.lock();
+        try {
+            Epic epic = epics.get(id);
+            if (epic != null) {
+                return epic.getStatus();
+            }
+        } finally {
+            lock.unlock();
+        }
+        System.out.println("Задачи с номером " + id + " нет в списке!");
+        return null;
+    }
+
+    // Задача удаляется из таблицы и из расписания под блокировкой своей полосы,
+    // иначе параллельный updatedTask вставил бы её обратно между этими шагами.
+    // Удаление только освобождает время, поэтому полосы расписания не нужны.
+    @Override
+    public void deleteTaskById(int id) {
+        ReentrantLock lock = stripeLock(id);
+        lock.lock();
+        try {
+            remember(id);
+            Task removedTask = tasks.remove(id);
+            if (removedTask == null) {
+                System.out.println("Задачи с номером " + id + " нет в списке!");
+                return;
+            }
+            publish(id);
+            schedule.remove(id);
+        } finally {
+            lock.unlock();
+        }
+        removeFromHistory(id);
+    }
+
+    @Override
+    public void deleteSubTaskById(int id) {
+        while (true) {
+            Subtask subtask = subtasks.get(id);
+            if (subtask == null) {
+                System.out.println("Подзадачи с номером " + id + " нет в списке!");
+                return;
+            }
+            if (deleteSubTask(subtask)) {
+                return;
+            }
+        }
+    }
+
+    // false, если подзадачу заменили или удалили, пока поток ждал блокировку эпика.
+    private boolean deleteSubTask(Subtask subtask) {
+        int id = subtask.getId();
+        ReentrantLock lock = stripeLock(subtask.getIdEpic());
+        lock.lock();
+        try {
+            remember(id);
+            remember(subtask.getIdEpic());
+            if (!subtasks.remove(id, subtask)) {
+                return false;
+            }
+            removeFromHistory(id);
+            schedule.remove(id);
+            Epic epic = epics.get(subtask.getIdEpic());
+            if (epic != null) {
+                epic.deleteSubTask(subtask);
+                updateEpic(epic);
+            }
+            publish(List.of(id, subtask.getIdEpic()));
+            return true;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public void deleteEpicById(int id) {
+        ReentrantLock lock = stripeLock(id);
+        lock.lock();
+        try {
+            remember(id);
+            Epic removedEpic = epics.remove(id);
+            if (removedEpic == null) {
+                System.out.println("Эпика с номером " + id + " нет в списке!");
+                return;
+            }
+            removeFromHistory(id);
+            List<Integer> removedIds = new ArrayList<>();
+            removedIds.add(id);
+            for (Subtask subtask : removedEpic.getListSubTask()) {
+                int idSubtask = subtask.getId();
+                subtasks.remove(idSubtask);
+                removedIds.add(idSubtask);
+                removeFromHistory(idSubtask);
+                schedule.remove(idSubtask);
+            }
+            // Эпик и его подзадачи исчезают из среза одновременно.
+            publish(removedIds);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    // Останавливает все остальные изменения: захватываются все полосы расписания и задач.
+    @Override
+    public void deleteAllTask() {
+        lockAll();
+        try {
+            Transaction log = currentTransaction();
+            List<Integer> removedIds = new ArrayList<>();
+            if (log != null) {
+                removedIds.addAll(tasks.keySet());
+                removedIds.addAll(epics.keySet());
+                removedIds.addAll(subtasks.keySet());
+                for (int idTask : removedIds) {
+                    remember(idTask);
+                }
+            }
+            // Таблицы очищаются раньше истории: так просмотры, ещё лежащие в буферах, отбрасываются.
+            tasks.clear();
+            subtasks.clear();
+            epics.clear();
+            for (Task task : historyManager.getHistory()) {
+                removeFromHistory(task.getId());
+            }
+            if (log != null) {
+                publish(removedIds);
+            } else {
+                synchronized (statusIndex) {
+                    statusIndex.clear();
+                }
+                synchronized (textIndex) {
+                    textIndex.clear();
+                }
+                snapshot.set(TaskSnapshot.EMPTY);
+            }
+            id.set(0);
+            schedule.clear();
+        } finally {
+            unlockAll();
+        }
+    }
+
+    // Изменения внутри body применяются целиком или не применяются вовсе. Затронутые задачи
+    // заранее неизвестны, поэтому транзакция захватывает все полосы расписания и задач:
+    // остальные изменения ждут её конца. Срез, индексы статусов и слов не меняются до фиксации,
+    // а затем всё изменённое публикуется одним вызовом; прямые чтения по номеру могут увидеть
+    // незафиксированные изменения. При исключении, как в InMemoryTaskManager, задачам, которые
+    // транзакция выдала или изменила, возвращаются прежние поля, а счётчику номеров - прежнее
+    // значение. Просмотры внутри транзакции не отменяются: история общая для всех потоков.
+    // Вложенная транзакция становится частью внешней.
+    @Override
+    public void transaction(Consumer<TaskManager> body) {
+        if (currentTransaction() != null) {
+            body.accept(this);
+            return;
+        }
+        lockAll();
+        try {
+            Transaction log = new Transaction(id.get());
+            undoLog = log;
+            try {
+                body.accept(this);
+            } catch (RuntimeException | Error exception) {
+                undoLog = null;
+                rollback(log);
+                throw exception;
+            }
+            undoLog = null;
+            for (int idTask : log.removedFromHistory) {
+                historyManager.remove(idTask);
+            }
+            publish(log.changedIds);
+        } finally {
+            unlockAll();
+        }
+    }
+
+    private void lockAll() {
+        schedule.lockAll();
+        for (ReentrantLock lock : locks) {
+            lock.lock();
+        }
+    }
+
+    private void unlockAll() {
+        for (int i = locks.length - 1; i >= 0; i--) {
+            locks[i].unlock();
+        }
+        schedule.unlockAll();
+    }
+
+    // Вызывается под полосами периода задачи.
+    private void insertTask(Task task) {
+        int taskId = lockNewId();
+        try {
+            remember(taskId);
+            task.setId(taskId);
+            tasks.put(taskId, task);
+            publish(taskId);
+            schedule.add(task);
+        } finally {
+            stripeLock(taskId).unlock();
+        }
+    }
+
+    // Новый номер выдаётся уже под блокировкой своей полосы, которую снимает вызывающий:
+    // deleteAllTask, держащий все полосы, не сбросит счётчик между выдачей номера и записью задачи.
+    private int lockNewId() {
+        while (true) {
+            int nextId = id.get() + 1;
+            ReentrantLock lock = stripeLock(nextId);
+            lock.lock();
+            if (id.compareAndSet(nextId - 1, nextId)) {
+                return nextId;
+            }
+            lock.unlock();
+        }
+    }
+
+    private ReentrantLock stripeLock(int id) {
+        return locks[Math.floorMod(id, LOCK_STRIPES)];
+    }
+
+    private void lockEpics(int firstId, int secondId) {
+        int first = Math.floorMod(firstId, LOCK_STRIPES);
+        int second = Math.floorMod(secondId, LOCK_STRIPES);
+        locks[Math.min(first, second)].lock();
+        if (first != second) {
+            locks[Math.max(first, second)].lock();
+        }
+    }
+
+    private void unlockEpics(int firstId, int secondId) {
+        int first = Math.floorMod(firstId, LOCK_STRIPES);
+        int second = Math.floorMod(secondId, LOCK_STRIPES);
+        if (first != second) {
+            locks[Math.max(first, second)].unlock();
+        }
+        locks[Math.min(first, second)].unlock();
+    }
+
+    private void publish(int id) {
+        publish(List.of(id));
+    }
+
+    // Срез приводится к текущему содержимому таблиц по номерам ids. Все изменения операции
+    // собираются в один новый корень и публикуются одним CAS, поэтому срез не показывает
+    // промежуточных состояний (например, эпик уже удалён, а его подзадачи ещё видны).
+    // Вызывается до снятия блокировок операции. Повторный вызов ничего не меняет,
+    // а при неудачном CAS таблицы перечитываются, поэтому порядок, в котором потоки
+    // публикуют изменения одной задачи, не важен.
+    // Индексы статусов и слов обновляются так же по текущему содержимому таблиц,
+    // каждый под своей блокировкой. В транзакции номера копятся в журнале до фиксации.
+    private void publish(Collection<Integer> ids) {
+        Transaction log = currentTransaction();
+        if (log != null) {
+            log.changedIds.addAll(ids);
+            return;
+        }
+        synchronized (statusIndex) {
+            for (int idTask : ids) {
+                Task task = findTask(idTask);
+                if (task == null) {
+                    statusIndex.remove(idTask);
+                } else {
+                    statusIndex.put(task);
+                }
+            }
+        }
+        synchronized (textIndex) {
+            for (int idTask : ids) {
+                Task task = findTask(idTask);
+                if (task == null) {
+                    textIndex.remove(idTask);
+                } else {
+                    textIndex.put(task);
+                }
+            }
+        }
+        snapshot.updateAndGet(current -> {
+            TaskSnapshot next = current;
+            for (int idTask : ids) {
+                Task task = findTask(idTask);
+                if (task != null) {
+                    next = next.with(task);
+                } else {
+                    Task oldTask = next.findTask(idTask);
+                    if (oldTask != null) {
+                        next = next.without(idTask, oldTask.getType());
+                    }
+                }
+            }
+            return next;
+        });
+    }
+
+    // Журнал транзакции, открытой текущим потоком; null, если её нет.
+    private Transaction currentTransaction() {
+        Transaction log = undoLog;
+        return (log != null && log.owner == Thread.currentThread()) ? log : null;
+    }
+
+    private void remember(int id) {
+        Transaction log = currentTransaction();
+        if (log != null && !log.contains(id)) {
+            log.remember(id, findTask(id));
+        }
+    }
+
+    // Задачи, выданные в транзакции, запоминаются: изменения через их сеттеры тоже откатываются.
+    private <T extends Task> List<T> rememberAll(List<T> handedOut) {
+        if (currentTransaction() != null) {
+            for (Task task : handedOut) {
+                remember(task.getId());
+            }
+        }
+        return handedOut;
+    }
+
+    // В транзакции удаление из истории откладывается до фиксации.
+    private void removeFromHistory(int id) {
+        Transaction log = currentTransaction();
+        if (log != null) {
+            log.removedFromHistory.add(id);
+        } else {
+            historyManager.remove(id);
+        }
+    }
+
+    // Вызывается под всеми полосами, когда undoLog уже сброшен. Срез и индексы с начала
+    // транзакции не менялись, поэтому восстанавливаются только таблицы и расписание.
+    private void rollback(Transaction log) {
+        for (int idTask : log.ids()) {
+            tasks.remove(idTask);
+            epics.remove(idTask);
+            subtasks.remove(idTask);
+            schedule.remove(idTask);
+        }
+        Map<Integer, Task> restored = log.restore();
+        for (Map.Entry<Integer, Task> entry : restored.entrySet()) {
+            Task task = entry.getValue();
+            int idTask = entry.getKey();
+            switch (task.getType()) {
+                case EPIC:
+                    epics.put(idTask, (Epic) task);
+                    break;
+                case SUBTASK:
+                    subtasks.put(idTask, (Subtask) task);
+                    schedule.add(task);
+                    break;
+                default:
+                    tasks.put(idTask, task);
+                    schedule.add(task);
+                    break;
+            }
+        }
+        // Задач, созданных в транзакции, больше нет: их просмотры убираются из истории.
+        for (int idTask : log.ids()) {
+            if (!restored.containsKey(idTask)) {
+                historyManager.remove(idTask);
+            }
+        }
+        id.set(log.id);
+    }
+
+    private Task findTask(int id) {
+        Task task = tasks.get(id);
+        if (task == null) {
+            task = epics.get(id);
+        }
+        if (task == null) {
+            task = subtasks.get(id);
+        }
+        return task;
+    }
+
+    private Epic findEpic(int id) {
+        Epic epic = epics.get(id);
+        if (epic == null) {
+            throw new NullPointerException(String.format("Эпик с номером [%d] не существует!", id));
+        }
+        return epic;
+    }
+
+    // Вызывается под полосами расписания, которые задевает период.
+    private void checkingOverlaysOfPeriods(LocalDateTime startTime, LocalDateTime endTime, Integer idForUpdateTask) {
+        if (schedule.findOverlap(startTime, endTime, idForUpdateTask) != null) {
+            throw new UnsupportedOperationException("Обнаружено пересечение периодов!");
+        }
+    }
+
+    // Вызывается под блокировками обоих эпиков.
+    private void unlinkSubtask(Subtask subtask) {
+        Epic epic = epics.get(subtask.getIdEpic());
+        if (epic != null) {
+            epic.deleteSubTask(subtask);
+            updateEpic(epic);
+        }
+    }
+
+    // Вызывается под блокировкой эпика; эпик публикует вызывающий метод.
+    private void updateEpic(Epic epic) {
+        epic.setStatus(epic.getSubtasksStatus());
+        if (epic.getListSubTask().isEmpty()) {
+            return;
+        }
+        epic.setStartTime(epic.getSubtasksStartTime());
+        epic.setEndTimeEpic(epic.getSubtasksEndTime());
+    }
+
+    // Общий журнал дополняется потоком-владельцем, прежним счётчиком номеров и тем,
+    // что откладывается до фиксации.
+    private static class Transaction extends UndoLog {
+        private final Thread owner = Thread.currentThread();
+        private final int id;
+        // Номера задач, которые публикуются при фиксации.
+        private final Set<Integer> changedIds = new LinkedHashSet<>();
+        // Номера задач, которые при фиксации убираются из истории.
+        private final List<Integer> removedFromHistory = new ArrayList<>();
+
+        private Transaction(int id) {
+            this.id = id;
+        }
+    }
+}
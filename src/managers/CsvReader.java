@@ -0,0 +1,258 @@
+package managers;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.time.LocalDateTime;
+
+// Потоковый разбор CSV по RFC 4180 из переиспользуемого буфера символов.
+// Числа и даты разбираются прямо из буфера, без промежуточных строк;
+// поле в кавычках может содержать запятые, переводы строк и удвоенные кавычки.
+public class CsvReader {
+    private static final int BUFFER_SIZE = 8192;
+    private static final int EOF = -1;
+
+    private Reader in;
+    private char[] buffer;
+    private int position = 0;
+    private int limit = 0;
+    private char[] field = new char[64];
+    // Прочитан разделитель записей: следующее поле относится уже к новой записи.
+    private boolean isRecordEnd = false;
+
+    public CsvReader(Reader in) {
+        this.in = in;
+        this.buffer = new char[BUFFER_SIZE];
+    }
+
+    public CsvReader() {
+        this(null);
+    }
+
+    // Разбор одной уже прочитанной строки без создания нового объекта разборщика.
+    public void reset(String value) {
+        in = null;
+        if (buffer.length < value.length()) {
+            buffer = new char[value.length()];
+        }
+        value.getChars(0, value.length(), buffer, 0);
+        position = 0;
+        limit = value.length();
+        isRecordEnd = false;
+    }
+
+    // Пропускает пустые строки перед записью; false, если данные закончились.
+    public boolean nextRecord() throws IOException {
+        isRecordEnd = false;
+        while (true) {
+            int c = peek();
+            if (c == EOF) {
+                return false;
+            }
+            if (c != '\n' && c != '\r') {
+                return true;
+            }
+            position++;
+        }
+    }
+
+    // true, если текущая строка пустая (разделитель секций снимка); строка пропускается.
+    public boolean skipBlankLine() throws IOException {
+        isRecordEnd = false;
+        int c = peek();
+        if (c == '\r') {
+            position++;
+            c = peek();
+        }
+        if (c == '\n') {
+            position++;
+            return true;
+        }
+        return false;
+    }
+
+    public boolean isEndOfData() throws IOException {
+        return peek() == EOF;
+    }
+
+    public boolean isRecordEnd() throws IOException {
+        return isRecordEnd || peek() == EOF;
+    }
+
+    public boolean isFieldEmpty() throws IOException {
+        if (isRecordEnd) {
+            return true;
+        }
+        int c = peek();
+        return c == EOF || c == ',' || c == '\n' || c == '\r';
+    }
+
+    public void skipField() throws IOException {
+        readField();
+    }
+
+    public void skipRecord() throws IOException {
+        while (!isRecordEnd()) {
+            readField();
+        }
+    }
+
+    public String readString() throws IOException {
+        int length = readField();
+        return new String(field, 0, length);
+    }
+
+    public int readInt() throws IOException {
+        long value = readLong();
+        if (value != (int) value) {
+            throw new NumberFormatException("Число вне диапазона int: " + value);
+        }
+        return (int) value;
+    }
+
+    public long readLong() throws IOException {
+        int length = readField();
+        return parseLong(field, 0, length);
+    }
+
+    // Совпадение по имени константы без создания строки.
+    public <E extends Enum<E>> E readEnum(E[] values) throws IOException {
+        int length = readField();
+        for (E value : values) {
+            if (equalsField(value.name(), length)) {
+                return value;
+            }
+        }
+        throw new IllegalArgumentException("Неизвестное значение: " + new String(field, 0, length));
+    }
+
+    // Формат CSVSerializator.DATE_TIME_FORMATTER: "dd.MM.yy HH:mm " (пробел в конце необязателен).
+    public LocalDateTime readDateTime() throws IOException {
+        int length = readField();
+        if (length < 14 || field[2] != '.' || field[5] != '.' || field[8] != ' ' || field[11] != ':'
+                || (length > 14 && (length != 15 || field[14] != ' '))) {
+            throw new IllegalArgumentException("Неверный формат даты: " + new String(field, 0, length));
+        }
+        int day = (int) parseLong(field, 0, 2);
+        int month = (int) parseLong(field, 3, 5);
+        int year = 2000 + (int) parseLong(field, 6, 8);
+        int hour = (int) parseLong(field, 9, 11);
+        int minute = (int) parseLong(field, 12, 14);
+        return LocalDateTime.of(year, month, day, hour, minute);
+    }
+
+    // Читает поле в field и возвращает его длину; разделитель после поля поглощается.
+    private int readField() throws IOException {
+        if (isRecordEnd) {
+            throw new IllegalArgumentException("Запись CSV закончилась раньше, чем ожидалось!");
+        }
+        int length = 0;
+        int c = peek();
+        if (c == '"') {
+            position++;
+            while (true) {
+                c = read();
+                if (c == EOF) {
+                    throw new IllegalArgumentException("Незакрытая кавычка в записи CSV!");
+                }
+                if (c == '"') {
+                    if (peek() != '"') {
+                        break;
+                    }
+                    position++;
+                }
+                length = append(length, (char) c);
+            }
+            c = read();
+        } else {
+            while ((c = read()) != EOF && c != ',' && c != '\n' && c != '\r') {
+                length = append(length, (char) c);
+            }
+        }
+
+        if (c == '\r') {
+            if (peek() == '\n') {
+                position++;
+            }
+            isRecordEnd = true;
+        } else if (c == '\n' || c == EOF) {
+            isRecordEnd = true;
+        } else if (c != ',') {
+            throw new IllegalArgumentException("Лишние символы после кавычки в записи CSV!");
+        }
+        return length;
+    }
+
+    private int append(int length, char c) {
+        if (length == field.length) {
+            char[] grown = new char[field.length * 2];
+            System.arraycopy(field, 0, grown, 0, length);
+            field = grown;
+        }
+        field[length] = c;
+        return length + 1;
+    }
+
+    private boolean equalsField(String value, int length) {
+        if (value.length() != length) {
+            return false;
+        }
+        for (int i = 0; i < length; i++) {
+            if (value.charAt(i) != field[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static long parseLong(char[] chars, int from, int to) {
+        if (from == to) {
+            throw new NumberFormatException("Пустое число в записи CSV!");
+        }
+        boolean isNegative = chars[from] == '-';
+        int i = isNegative ? from + 1 : from;
+        if (i == to) {
+            throw new NumberFormatException("Неверное число: " + new String(chars, from, to - from));
+        }
+        // Накопление идёт в отрицательную сторону, чтобы поместился Long.MIN_VALUE.
+        long value = 0;
+        try {
+            for (; i < to; i++) {
+                int digit = chars[i] - '0';
+                if (digit < 0 || digit > 9) {
+                    throw new NumberFormatException("Неверное число: " + new String(chars, from, to - from));
+                }
+                value = Math.subtractExact(Math.multiplyExact(value, 10), digit);
+            }
+            return isNegative ? value : Math.negateExact(value);
+        } catch (ArithmeticException e) {
+            throw new NumberFormatException("Число вне диапазона long: " + new String(chars, from, to - from));
+        }
+    }
+
+    private int peek() throws IOException {
+        if (position == limit && !fill()) {
+            return EOF;
+        }
+        return buffer[position];
+    }
+
+    private int read() throws IOException {
+        if (position == limit && !fill()) {
+            return EOF;
+        }
+        return buffer[position++];
+    }
+
+    private boolean fill() throws IOException {
+        if (in == null) {
+            return false;
+        }
+        int count = in.read(buffer, 0, buffer.length);
+        if (count <= 0) {
+            return false;
+        }
+        position = 0;
+        limit = count;
+        return true;
+    }
+}
@@ -0,0 +1,169 @@
+package managers;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.time.LocalDateTime;
+
+// Потоковая запись CSV: поля сразу попадают в переиспользуемый буфер символов,
+// числа и даты форматируются вручную, без промежуточных строк.
+// Поля с запятой, кавычкой или переводом строки берутся в кавычки по RFC 4180.
+public class CsvWriter {
+    private static final int BUFFER_SIZE = 8192;
+    // Самое длинное значение, которое пишется без проверки места: long со знаком.
+    private static final int MAX_NUMBER_LENGTH = 20;
+
+    private final Writer out;
+    private final char[] buffer;
+    private int position = 0;
+    private boolean isFieldStart = true;
+
+    public CsvWriter(Writer out) {
+        this(out, BUFFER_SIZE);
+    }
+
+    public CsvWriter(Writer out, int bufferSize) {
+        this.out = out;
+        this.buffer = new char[Math.max(bufferSize, MAX_NUMBER_LENGTH + 1)];
+    }
+
+    public CsvWriter writeInt(int value) throws IOException {
+        return writeLong(value);
+    }
+
+    public CsvWriter writeLong(long value) throws IOException {
+        separate();
+        ensure(MAX_NUMBER_LENGTH);
+        if (value < 0) {
+            buffer[position++] = '-';
+            if (value == Long.MIN_VALUE) {
+                // -Long.MIN_VALUE не помещается в long.
+                writeChars("9223372036854775808");
+                return this;
+            }
+            value = -value;
+        }
+        int start = position;
+        do {
+            buffer[position++] = (char) ('0' + value % 10);
+            value /= 10;
+        } while (value != 0);
+        reverse(start, position - 1);
+        return this;
+    }
+
+    public CsvWriter writeEnum(Enum<?> value) throws IOException {
+        separate();
+        writeChars(value.name());
+        return this;
+    }
+
+    // null пишется как "null", как и раньше при сложении строк.
+    public CsvWriter writeString(String value) throws IOException {
+        separate();
+        if (value == null) {
+            writeChars("null");
+            return this;
+        }
+        if (!needsQuotes(value)) {
+            writeChars(value);
+            return this;
+        }
+        append('"');
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c == '"') {
+                append('"');
+            }
+            append(c);
+        }
+        append('"');
+        return this;
+    }
+
+    // Формат CSVSerializator.DATE_TIME_FORMATTER: "dd.MM.yy HH:mm ".
+    public CsvWriter writeDateTime(LocalDateTime dateTime) throws IOException {
+        separate();
+        ensure(15);
+        writeTwoDigits(dateTime.getDayOfMonth());
+        buffer[position++] = '.';
+        writeTwoDigits(dateTime.getMonthValue());
+        buffer[position++] = '.';
+        writeTwoDigits(Math.floorMod(dateTime.getYear(), 100));
+        buffer[position++] = ' ';
+        writeTwoDigits(dateTime.getHour());
+        buffer[position++] = ':';
+        writeTwoDigits(dateTime.getMinute());
+        buffer[position++] = ' ';
+        return this;
+    }
+
+    public CsvWriter writeEmpty() throws IOException {
+        separate();
+        return this;
+    }
+
+    public CsvWriter endRecord() throws IOException {
+        append('\n');
+        isFieldStart = true;
+        return this;
+    }
+
+    public void flush() throws IOException {
+        out.write(buffer, 0, position);
+        position = 0;
+        out.flush();
+    }
+
+    private void separate() throws IOException {
+        if (!isFieldStart) {
+            append(',');
+        }
+        isFieldStart = false;
+    }
+
+    private boolean needsQuotes(String value) {
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c == ',' || c == '"' || c == '\n' || c == '\r') {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private void writeTwoDigits(int value) {
+        buffer[position++] = (char) ('0' + value / 10);
+        buffer[position++] = (char) ('0' + value % 10);
+    }
+
+    private void writeChars(String value) throws IOException {
+        int offset = 0;
+        while (offset < value.length()) {
+            ensure(1);
+            int count = Math.min(value.length() - offset, buffer.length - position);
+            value.getChars(offset, offset + count, buffer, position);
+            position += count;
+            offset += count;
+        }
+    }
+
+    private void append(char c) throws IOException {
+        ensure(1);
+        buffer[position++] = c;
+    }
+
+    private void reverse(int from, int to) {
+        while (from < to) {
+            char c = buffer[from];
+            buffer[from++] = buffer[to];
+            buffer[to--] = c;
+        }
+    }
+
+    private void ensure(int length) throws IOException {
+        if (buffer.length - position < length) {
+            out.write(buffer, 0, position);
+            position = 0;
+        }
+    }
+}
@@ -0,0 +1,8 @@
+package managers;
+
+public enum Durability {
+    IMMEDIATE,
+    BATCHED,
+    FSYNC,
+    ASYNC
+}
@@ -6,233 +6,859 @@ import tasks.Task;
 
 import java.io.*;
 import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.time.Duration;
 import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Collection;
 import java.util.List;
 import java.util.Map;
-import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
 
 public class FileBackedTasksManager extends InMemoryTaskManager {
 
     private String fileName;
     private final CSVSerializator serializator = new CSVSerializator();
+    private TaskJournal journal = null;
+    private int compactionThreshold;
+    private ExecutorService compactor;
+    private volatile Future<?> compaction = null;
+    private int journalRecords = 0;
+    private AsyncJournalWriter asyncWriter = null;
+    // Читается без блокировки в lastWrite(), пишется под монитором менеджера.
+    private volatile CompletableFuture<Void> lastWrite = CompletableFuture.completedFuture(null);
+    private final PersistencePolicy policy;
+    private final SnapshotSerializator snapshotSerializator;
+    private boolean isDirty = false;
+    private int pendingOperations = 0;
+    private long lastFlushMillis = System.currentTimeMillis();
+    // Режим BATCHED: фоновая запись изменений, если менеджер простаивает дольше flushIntervalMillis.
+    private final ScheduledExecutorService flusher;
+    private Future<?> scheduledFlush = null;
+    // Ошибка фоновой записи: выбрасывается следующему вызову flush() или изменяющей операции.
+    private ManagerSaveException flushFailure = null;
+    // Ленивый режим: задачи из отображённого снимка декодируются при первом обращении.
+    private MappedSnapshot mappedSnapshot = null;
+    private BitSet materialized = null;
+    // Записи журнала открытой транзакции: попадают в журнал одной группой при её завершении.
+    private List<String> transactionRecords = null;
 
     public FileBackedTasksManager(String fileName) {
+        this(fileName, PersistencePolicy.immediate());
+    }
+
+    public FileBackedTasksManager(String fileName, PersistencePolicy policy) {
+        this(fileName, policy, new CSVSerializator());
+    }
+
+    // Формат снимка выбирается при создании: CSVSerializator или BinarySerializator.
+    public FileBackedTasksManager(String fileName, PersistencePolicy policy,
+                                  SnapshotSerializator snapshotSerializator) {
+        this(fileName, policy, snapshotSerializator, Managers.getDefaultHistory());
+    }
+
+    // historyManager позволяет ограничить историю, а с ней и размер снимка.
+    public FileBackedTasksManager(String fileName, PersistencePolicy policy,
+                                  SnapshotSerializator snapshotSerializator, HistoryManager historyManager) {
+        super(historyManager);
+        if (policy.getDurability() == Durability.ASYNC) {
+            throw new IllegalArgumentException("Асинхронная запись доступна только в режиме журнала!");
+        }
+        this.fileName = fileName;
+        this.policy = policy;
+        this.snapshotSerializator = snapshotSerializator;
+        this.flusher = newFlusher(policy);
+    }
+
+    // Режим журнала: операции дописываются в journalFileName, снимок fileName
+    // пересобирается в фоне, когда в журнале накопится compactionThreshold записей.
+    public FileBackedTasksManager(String fileName, String journalFileName, int compactionThreshold) {
+        this(fileName, journalFileName, compactionThreshold, PersistencePolicy.immediate());
+    }
+
+    public FileBackedTasksManager(String fileName, String journalFileName, int compactionThreshold,
+                                  PersistencePolicy policy) {
+        this(fileName, journalFileName, compactionThreshold, policy, new CSVSerializator());
+    }
+
+    public FileBackedTasksManager(String fileName, String journalFileName, int compactionThreshold,
+                                  PersistencePolicy policy, SnapshotSerializator snapshotSerializator) {
+        this(fileName, journalFileName, compactionThreshold, policy, snapshotSerializator,
+                Managers.getDefaultHistory());
+    }
+
+    public FileBackedTasksManager(String fileName, String journalFileName, int compactionThreshold,
+                                  PersistencePolicy policy, SnapshotSerializator snapshotSerializator,
+                                  HistoryManager historyManager) {
+        this(fileName, journalFileName, compactionThreshold, policy, snapshotSerializator, historyManager, false);
+    }
+
+    private FileBackedTasksManager(String fileName, String journalFileName, int compactionThreshold,
+                                   PersistencePolicy policy, SnapshotSerializator snapshotSerializator,
+                                   HistoryManager historyManager, boolean isRecovery) {
+        super(historyManager);
         this.fileName = fileName;
+        this.compactionThreshold = compactionThreshold;
+        this.policy = policy;
+        this.snapshotSerializator = snapshotSerializator;
+        this.flusher = newFlusher(policy);
+        this.compactor = Executors.newSingleThreadExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "task-journal-compactor");
+            thread.setDaemon(true);
+            return thread;
+        });
+
+        Path segment = Paths.get(journalFileName + ".old");
+        if (isRecovery) {
+            if (Files.exists(Paths.get(fileName))) {
+                load();
+            }
+            replay(TaskJournal.readRecords(segment));
+            replay(TaskJournal.readRecords(Paths.get(journalFileName)));
+            if (Files.exists(segment)) {
+                int historyCapacity = historyCapacity();
+                compaction = compactor.submit(() -> compact(fileName, segment, policy.isSync(),
+                        snapshotSerializator, historyCapacity));
+            }
+        } else {
+            try {
+                Files.deleteIfExists(segment);
+            } catch (IOException e) {
+                throw new ManagerSaveException(e.getMessage());
+            }
+            save();
+        }
+        this.journal = new TaskJournal(journalFileName, isRecovery);
+        this.journalRecords = journal.size();
+        if (policy.getDurability() == Durability.ASYNC) {
+            this.asyncWriter = new AsyncJournalWriter(journal, policy.getQueueCapacity(), policy.isSync());
+        }
     }
 
     @Override
-    public void createTask(Task task) {
+    public synchronized void createTask(Task task) {
+        materializeAll();
         super.createTask(task);
-        save();
+        writePut(task);
+        commit();
     }
 
     @Override
-    public void createEpic(Epic epic) {
+    public synchronized void createEpic(Epic epic) {
         super.createEpic(epic);
-        save();
+        writePut(epic);
+        commit();
     }
 
     @Override
-    public void createSubTask(Subtask subtask) {
+    public synchronized void createSubTask(Subtask subtask) {
+        materializeAll();
         super.createSubTask(subtask);
-        save();
+        writePut(subtask);
+        commit();
+    }
+
+    // Весь пакет сохраняется одной записью.
+    @Override
+    public synchronized BatchResult createAll(Collection<? extends Task> tasks) {
+        materializeAll();
+        BatchResult result = super.createAll(tasks);
+        for (Task task : result.getCreated()) {
+            writePut(task);
+        }
+        commit();
+        return result;
+    }
+
+    // Транзакция сохраняется один раз: в журнал - группой с заголовком, иначе - одним снимком.
+    // Отменённая транзакция в файл не попадает.
+    @Override
+    public synchronized void transaction(Consumer<TaskManager> body) {
+        if (transactionRecords != null) {
+            super.transaction(body);
+            return;
+        }
+        materializeAll();
+        List<String> records = new ArrayList<>();
+        transactionRecords = records;
+        try {
+            super.transaction(body);
+        } finally {
+            transactionRecords = null;
+        }
+        if (journal != null && !records.isEmpty()) {
+            append(TaskJournal.record(TaskJournal.TRANSACTION, String.valueOf(records.size())));
+            for (String record : records) {
+                append(record);
+            }
+        }
+        commit();
+    }
+
+    @Override
+    public synchronized BatchResult createAll(Collection<? extends Task> tasks, LocalDateTime notBefore) {
+        materializeAll();
+        return super.createAll(tasks, notBefore);
+    }
+
+    @Override
+    public synchronized LocalDateTime findFreeSlot(Duration duration, LocalDateTime notBefore) {
+        materializeAll();
+        return super.findFreeSlot(duration, notBefore);
     }
 
     @Override
-    public void updatedTask(Task task) {
+    public synchronized void updatedTask(Task task) {
+        materializeForUpdate(task);
         super.updatedTask(task);
-        save();
+        writePut(task);
+        commit();
     }
 
     @Override
-    public void updatedEpic(Epic epic) {
+    public synchronized void updatedEpic(Epic epic) {
+        materialize(epic.getId());
         super.updatedEpic(epic);
-        save();
+        writePut(epic);
+        commit();
     }
 
     @Override
-    public void updatedSubTask(Subtask subTask) {
+    public synchronized void updatedSubTask(Subtask subTask) {
+        materialize(subTask.getIdEpic());
+        materializeForUpdate(subTask);
         super.updatedSubTask(subTask);
-        save();
+        writePut(subTask);
+        commit();
     }
 
     @Override
-    public Task getTaskById(int id) {
+    public synchronized Task getTaskById(int id) {
+        materialize(id);
         Task task = super.getTaskById(id);
-        save();
+        if (task != null) {
+            write(TaskJournal.VIEW, id);
+        }
+        markViewed();
         return task;
     }
 
     @Override
-    public Subtask getSubTaskById(int id) {
+    public synchronized Subtask getSubTaskById(int id) {
+        materialize(id);
         Subtask subtask = super.getSubTaskById(id);
-        save();
+        if (subtask != null) {
+            write(TaskJournal.VIEW, id);
+        }
+        markViewed();
         return subtask;
     }
 
     @Override
-    public Epic getEpicById(int id) {
+    public synchronized Epic getEpicById(int id) {
+        materialize(id);
         Epic epic = super.getEpicById(id);
-        save();
+        write(TaskJournal.VIEW, id);
+        markViewed();
         return epic;
     }
 
     @Override
-    public void deleteTaskById(int id) {
+    public synchronized void deleteTaskById(int id) {
+        materialize(id);
+        boolean isExist = tasks.containsKey(id);
         super.deleteTaskById(id);
-        save();
+        if (isExist) {
+            write(TaskJournal.DELETE, id);
+        }
+        commit();
     }
 
     @Override
-    public void deleteSubTaskById(int id) {
+    public synchronized void deleteSubTaskById(int id) {
+        materialize(id);
+        boolean isExist = subtasks.containsKey(id);
         super.deleteSubTaskById(id);
-        save();
+        if (isExist) {
+            write(TaskJournal.DELETE, id);
+        }
+        commit();
     }
 
     @Override
-    public void deleteEpicById(int id) {
+    public synchronized void deleteEpicById(int id) {
+        materialize(id);
+        boolean isExist = epics.containsKey(id);
         super.deleteEpicById(id);
-        save();
+        if (isExist) {
+            write(TaskJournal.DELETE, id);
+        }
+        commit();
     }
 
     @Override
-    public void deleteAllTask() {
+    public synchronized void deleteAllTask() {
+        // Незагруженные задачи снимка удаляются вместе с отображением, без декодирования.
+        mappedSnapshot = null;
+        materialized = null;
         super.deleteAllTask();
-        save();
+        if (journal != null) {
+            append(TaskJournal.CLEAR);
+        }
+        commit();
     }
 
     @Override
-    public List<Subtask> getListSubTasks(int id) {
+    public synchronized List<Subtask> getListSubTasks(int id) {
+        materialize(id);
         return super.getListSubTasks(id);
     }
 
     @Override
-    public StatusTask getStatusById(int id) {
+    public synchronized StatusTask getStatusById(int id) {
+        materialize(id);
         return super.getStatusById(id);
     }
 
     @Override
-    public Map<Integer, Task> getTask() {
+    public synchronized Stream<Task> getTasksInRange(LocalDateTime from, LocalDateTime to) {
+        materializeAll();
+        return super.getTasksInRange(from, to);
+    }
+
+    @Override
+    public synchronized List<Task> getTasksStartingAfter(LocalDateTime time, int limit) {
+        materializeAll();
+        return super.getTasksStartingAfter(time, limit);
+    }
+
+    @Override
+    public synchronized List<Task> getActiveAt(LocalDateTime time) {
+        materializeAll();
+        return super.getActiveAt(time);
+    }
+
+    @Override
+    public synchronized List<Task> getByStatus(StatusTask status) {
+        materializeAll();
+        return super.getByStatus(status);
+    }
+
+    @Override
+    public synchronized List<Task> getByStatus(TypeTask type, StatusTask status) {
+        materializeAll();
+        return super.getByStatus(type, status);
+    }
+
+    @Override
+    public synchronized Map<StatusTask, Integer> countByStatus() {
+        materializeAll();
+        return super.countByStatus();
+    }
+
+    @Override
+    public synchronized List<Task> search(String query, int limit) {
+        materializeAll();
+        return super.search(query, limit);
+    }
+
+    @Override
+    public synchronized TaskSnapshot snapshot() {
+        materializeAll();
+        return super.snapshot();
+    }
+
+    @Override
+    public synchronized Map<Integer, Task> getTask() {
+        materializeAll();
         return super.getTask();
     }
 
     @Override
-    public Map<Integer, Epic> getEpic() {
+    public synchronized Map<Integer, Epic> getEpic() {
+        materializeAll();
         return super.getEpic();
     }
 
     @Override
-    public Map<Integer, Subtask> getSubTask() {
+    public synchronized Map<Integer, Subtask> getSubTask() {
+        materializeAll();
         return super.getSubTask();
     }
 
     @Override
-    public List<Task> getAllTasks() {
+    public synchronized List<Task> getAllTasks() {
+        materializeAll();
         return super.getAllTasks();
     }
 
     @Override
-    public List<Epic> getAllEpics() {
+    public synchronized List<Epic> getAllEpics() {
+        materializeAll();
         return super.getAllEpics();
     }
 
     @Override
-    public List<Subtask> getAllSubtasks() {
+    public synchronized List<Subtask> getAllSubtasks() {
+        materializeAll();
         return super.getAllSubtasks();
     }
 
     @Override
-    public List<Task> getHistory() {
+    public synchronized List<Task> getHistory() {
         return super.getHistory();
     }
 
     @Override
-    public List<Task> getPrioritizedTasks() {
+    public synchronized List<Task> getPrioritizedTasks() {
+        materializeAll();
         return super.getPrioritizedTasks();
     }
 
     public static FileBackedTasksManager loadFromFile(String file) {
-        final FileBackedTasksManager manager = new FileBackedTasksManager("resources/tasks.csv");
+        return loadFromFile(file, new CSVSerializator());
+    }
+
+    public static FileBackedTasksManager loadFromFile(String file, SnapshotSerializator snapshotSerializator) {
+        return loadFromFile(file, snapshotSerializator, Managers.getDefaultHistory());
+    }
+
+    public static FileBackedTasksManager loadFromFile(String file, SnapshotSerializator snapshotSerializator,
+                                                      HistoryManager historyManager) {
+        final FileBackedTasksManager manager = new FileBackedTasksManager(file, PersistencePolicy.immediate(),
+                snapshotSerializator, historyManager);
         manager.load();
         return manager;
     }
 
+    // Ленивая загрузка двоичного снимка: при старте строится только индекс,
+    // в память сразу попадают лишь задачи из истории просмотров.
+    public static FileBackedTasksManager loadMapped(String file) {
+        return loadMapped(file, PersistencePolicy.immediate());
+    }
+
+    public static FileBackedTasksManager loadMapped(String file, PersistencePolicy policy) {
+        final FileBackedTasksManager manager = new FileBackedTasksManager(file, policy, new BinarySerializator());
+        manager.mapSnapshot();
+        return manager;
+    }
+
+    // Восстановление в режиме журнала: снимок, затем хвост журнала.
+    public static FileBackedTasksManager loadFromFile(String file, String journalFile, int compactionThreshold) {
+        return loadFromFile(file, journalFile, compactionThreshold, PersistencePolicy.immediate());
+    }
+
+    public static FileBackedTasksManager loadFromFile(String file, String journalFile, int compactionThreshold,
+                                                      PersistencePolicy policy) {
+        return loadFromFile(file, journalFile, compactionThreshold, policy, new CSVSerializator());
+    }
+
+    public static FileBackedTasksManager loadFromFile(String file, String journalFile, int compactionThreshold,
+                                                      PersistencePolicy policy,
+                                                      SnapshotSerializator snapshotSerializator) {
+        return loadFromFile(file, journalFile, compactionThreshold, policy, snapshotSerializator,
+                Managers.getDefaultHistory());
+    }
+
+    public static FileBackedTasksManager loadFromFile(String file, String journalFile, int compactionThreshold,
+                                                      PersistencePolicy policy,
+                                                      SnapshotSerializator snapshotSerializator,
+                                                      HistoryManager historyManager) {
+        return new FileBackedTasksManager(file, journalFile, compactionThreshold, policy, snapshotSerializator,
+                historyManager, true);
+    }
+
+    // Принудительная запись всех накопленных изменений, включая историю просмотров.
+    public synchronized void flush() {
+        throwFlushFailure();
+        // Незавершённая транзакция не сохраняется.
+        if (!isDirty || transactionRecords != null) {
+            return;
+        }
+        if (journal == null) {
+            saveTo(fileName, policy.isSync());
+        } else if (asyncWriter == null) {
+            journal.flush(policy.isSync());
+        } else {
+            try {
+                lastWrite.join();
+            } catch (CompletionException e) {
+                throw new ManagerSaveException(e.getCause().getMessage());
+            }
+        }
+        isDirty = false;
+        pendingOperations = 0;
+        lastFlushMillis = System.currentTimeMillis();
+    }
+
+    // Подтверждение записи: завершается, когда последняя операция менеджера
+    // (и все предыдущие) попала в журнал на диске.
+    public CompletableFuture<Void> lastWrite() {
+        return lastWrite;
+    }
+
+    public AsyncJournalWriter getAsyncWriter() {
+        return asyncWriter;
+    }
+
+    public synchronized void close() {
+        flush();
+        if (flusher != null) {
+            flusher.shutdownNow();
+        }
+        if (journal != null) {
+            if (asyncWriter != null) {
+                asyncWriter.close();
+            }
+            awaitCompaction();
+            compactor.shutdown();
+            journal.close();
+        }
+    }
+
     private void load() {
-        int nextId = 0;
+        SnapshotData snapshot;
+        try {
+            snapshot = snapshotSerializator.read(Paths.get(fileName));
+        } catch (IOException e) {
+            throw new ManagerSaveException(e.getMessage());
+        }
 
-        try (BufferedReader br = new BufferedReader(new FileReader(fileName, StandardCharsets.UTF_8))) {
-            br.readLine();
-            while (br.ready()) {
-                String line = br.readLine();
+        restoreAll(snapshot.getTasks());
 
-                if (line.isEmpty() || line.isBlank()) {
-                    break;
-                }
-                Task task = serializator.fromString(line);
-                int taskId = task.getId();
-
-                switch (task.getType()) {
-                    case TASK:
-                        tasks.put(taskId, task);
-                        break;
-                    case EPIC:
-                        Epic epic = (Epic) task;
-                        epics.put(taskId, epic);
-                        break;
-                    case SUBTASK:
-                        Subtask subtask = (Subtask) task;
-                        subtasks.put(taskId, subtask);
-                        Epic epicOfSubtask = getEpicById(subtask.getIdEpic());
-                        epicOfSubtask.setListSubTask(subtask);
-                        break;
-                    default:
-                        break;
-                }
+        // В снимке история записана от последнего просмотра к первому.
+        int[] history = snapshot.getHistory();
+        for (int i = history.length - 1; i >= 0; i--) {
+            Task task = findTask(history[i]);
+            if (task != null) {
+                historyManager.add(task);
+            }
+        }
+    }
 
-                if (nextId < taskId) {
-                    nextId = taskId;
-                }
+    private void mapSnapshot() {
+        mappedSnapshot = MappedSnapshot.open(fileName);
+        materialized = new BitSet(mappedSnapshot.size());
+        setId(mappedSnapshot.maxId());
+
+        int[] history = mappedSnapshot.getHistory();
+        for (int i = history.length - 1; i >= 0; i--) {
+            materialize(history[i]);
+            Task task = findTask(history[i]);
+            if (task != null) {
+                historyManager.add(task);
+            }
+        }
+    }
+
+    // Эпик декодируется вместе со всеми подзадачами, чтобы его статус и сроки были верны.
+    private void materialize(int id) {
+        if (mappedSnapshot == null) {
+            return;
+        }
+        int index = mappedSnapshot.indexOf(id);
+        if (index < 0 || materialized.get(index)) {
+            return;
+        }
+        if (mappedSnapshot.typeAt(index) == TypeTask.SUBTASK) {
+            materialize(mappedSnapshot.epicIdAt(index));
+            return;
+        }
+        materializeAt(index);
+        if (mappedSnapshot.typeAt(index) == TypeTask.EPIC) {
+            for (int subtaskIndex : mappedSnapshot.subtaskIndexes(index)) {
+                materializeAt(subtaskIndex);
+            }
+        }
+    }
+
+    private void materializeAt(int index) {
+        materialized.set(index);
+        restoreTask(mappedSnapshot.decode(index));
+    }
+
+    // Операции над всем хранилищем (создание с проверкой пересечений, списки,
+    // запись снимка) требуют всех задач; после этого отображение больше не нужно.
+    // Обновление, не меняющее период задачи в расписании, не может создать пересечение:
+    // остальные задачи снимка для проверки не нужны. Иначе загружается всё.
+    private void materializeForUpdate(Task task) {
+        materialize(task.getId());
+        if (mappedSnapshot != null && !intervals.isScheduled(task.getId(), task.getStartTime(), task.getEndTime())) {
+            materializeAll();
+        }
+    }
+
+    private void materializeAll() {
+        if (mappedSnapshot == null) {
+            return;
+        }
+        for (int index = 0; index < mappedSnapshot.size(); index++) {
+            materialize(mappedSnapshot.idAt(index));
+        }
+        mappedSnapshot = null;
+        materialized = null;
+    }
+
+    int materializedCount() {
+        return (materialized == null) ? tasks.size() + epics.size() + subtasks.size() : materialized.cardinality();
+    }
+
+    private void replay(List<String> records) {
+        for (int i = 0; i < records.size(); i++) {
+            if (records.get(i).startsWith(TaskJournal.TRANSACTION + ",")) {
+                i = replayTransaction(records, i);
+                continue;
             }
+            try {
+                apply(records.get(i));
+            } catch (RuntimeException e) {
+                System.out.println("Повреждённая запись журнала пропущена: " + records.get(i));
+            }
+        }
+    }
+
+    // Группа транзакции применяется, только если записана целиком. Возвращает индекс её последней записи.
+    private int replayTransaction(List<String> records, int header) {
+        int count = TaskJournal.parseGroupSize(records.get(header));
+        if (header + count >= records.size()) {
+            System.out.println("Незавершённая транзакция в журнале пропущена.");
+            return records.size() - 1;
+        }
+        for (int i = header + 1; i <= header + count; i++) {
+            try {
+                apply(records.get(i));
+            } catch (RuntimeException e) {
+                System.out.println("Повреждённая запись журнала пропущена: " + records.get(i));
+            }
+        }
+        return header + count;
+    }
 
-            setId(nextId);
-
-            String lineHistory = br.readLine();
-            List<Integer> history = CSVSerializator.fromStringHistory(lineHistory);
-            for (int taskId : history) {
-                if (tasks.containsKey(taskId)) {
-                    historyManager.add(getTaskById(taskId));
-                } else if (epics.containsKey(taskId)) {
-                    historyManager.add(getEpicById(taskId));
-                } else {
-                    historyManager.add(getSubTaskById(taskId));
+    private void apply(String record) {
+        String[] elements = record.split(",", 2);
+        switch (elements[0]) {
+            case TaskJournal.PUT:
+                restoreTask(serializator.fromString(elements[1]));
+                break;
+            case TaskJournal.VIEW:
+                Task task = findTask(Integer.parseInt(elements[1]));
+                if (task != null) {
+                    historyManager.add(task);
+                }
+                break;
+            case TaskJournal.DELETE:
+                int id = Integer.parseInt(elements[1]);
+                if (tasks.containsKey(id)) {
+                    super.deleteTaskById(id);
+                } else if (subtasks.containsKey(id)) {
+                    super.deleteSubTaskById(id);
+                } else if (epics.containsKey(id)) {
+                    super.deleteEpicById(id);
                 }
+                break;
+            case TaskJournal.CLEAR:
+                super.deleteAllTask();
+                break;
+            default:
+                throw new IllegalArgumentException("Неизвестная операция журнала: " + elements[0]);
+        }
+    }
+
+    private boolean isStored(Task task) {
+        return findTask(task.getId()) == task;
+    }
+
+    private void writePut(Task task) {
+        if (journal != null && isStored(task)) {
+            String row = serializator.toString(task);
+            append(TaskJournal.record(TaskJournal.PUT, row.substring(0, row.length() - 1)));
+        }
+    }
+
+    private void write(String operation, int id) {
+        if (journal != null) {
+            append(TaskJournal.record(operation, String.valueOf(id)));
+        }
+    }
+
+    private void append(String record) {
+        if (transactionRecords != null) {
+            transactionRecords.add(record);
+            return;
+        }
+        journalRecords++;
+        if (asyncWriter == null) {
+            journal.append(record);
+        } else {
+            lastWrite = asyncWriter.submit(record);
+        }
+    }
+
+    // Просмотр только помечает историю изменённой; в режиме BATCHED она будет записана
+    // фоновым потоком, в остальных - следующей изменяющей операцией, flush() или close().
+    private void markViewed() {
+        isDirty = true;
+        scheduleFlush();
+    }
+
+    private void commit() {
+        isDirty = true;
+        if (transactionRecords != null) {
+            return;
+        }
+        pendingOperations++;
+        throwFlushFailure();
+        if (asyncWriter == null && (policy.getDurability() != Durability.BATCHED
+                || pendingOperations >= policy.getMaxPendingOperations()
+                || System.currentTimeMillis() - lastFlushMillis >= policy.getFlushIntervalMillis())) {
+            flush();
+        } else {
+            scheduleFlush();
+        }
+        if (journal != null && journalRecords >= compactionThreshold) {
+            journalRecords = 0;
+            if (asyncWriter == null) {
+                rotateJournal();
+            } else {
+                asyncWriter.execute(this::rotateJournal);
             }
+        }
+    }
+
+    private void scheduleFlush() {
+        if (flusher == null || scheduledFlush != null) {
+            return;
+        }
+        long delay = lastFlushMillis + policy.getFlushIntervalMillis() - System.currentTimeMillis();
+        scheduledFlush = flusher.schedule(this::flushScheduled, Math.max(delay, 0), TimeUnit.MILLISECONDS);
+    }
+
+    // Изменения после ошибки остаются несохранёнными: следующий вызов узнаёт об ошибке,
+    // а запись повторяется при следующей изменяющей операции или flush().
+    private synchronized void flushScheduled() {
+        scheduledFlush = null;
+        try {
+            flush();
+        } catch (ManagerSaveException exception) {
+            flushFailure = exception;
+        }
+    }
+
+    private void throwFlushFailure() {
+        if (flushFailure != null) {
+            ManagerSaveException exception = flushFailure;
+            flushFailure = null;
+            throw exception;
+        }
+    }
+
+    private static ScheduledExecutorService newFlusher(PersistencePolicy policy) {
+        if (policy.getDurability() != Durability.BATCHED || policy.getFlushIntervalMillis() == 0) {
+            return null;
+        }
+        return Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "task-manager-flusher");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    private void rotateJournal() {
+        awaitCompaction();
+        Path segment = journal.rotate();
+        int historyCapacity = historyCapacity();
+        compaction = compactor.submit(() -> compact(fileName, segment, policy.isSync(), snapshotSerializator,
+                historyCapacity));
+    }
+
+    private void awaitCompaction() {
+        if (compaction == null) {
+            return;
+        }
+        try {
+            compaction.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new ManagerSaveException(e.getMessage());
+        } catch (ExecutionException e) {
+            throw new ManagerSaveException(e.getCause().getMessage());
+        }
+    }
+
+    // Свёртка сегмента журнала в новый снимок выполняется на копии хранилища,
+    // поэтому не мешает работе менеджера.
+    private static void compact(String fileName, Path segment, boolean isSync,
+                                SnapshotSerializator snapshotSerializator, int historyCapacity) {
+        FileBackedTasksManager folded = new FileBackedTasksManager(fileName, PersistencePolicy.immediate(),
+                snapshotSerializator, new InMemoryHistoryManager(historyCapacity));
+        if (Files.exists(Paths.get(fileName))) {
+            folded.load();
+        }
+        folded.replay(TaskJournal.readRecords(segment));
+        folded.saveTo(fileName, isSync);
+        try {
+            Files.deleteIfExists(segment);
         } catch (IOException e) {
             throw new ManagerSaveException(e.getMessage());
         }
     }
 
+    // Свёрнутый снимок хранит не больше просмотров, чем живая история.
+    private int historyCapacity() {
+        if (historyManager instanceof InMemoryHistoryManager) {
+            return ((InMemoryHistoryManager) historyManager).getCapacity();
+        }
+        return Integer.MAX_VALUE;
+    }
+
     private void save() {
-        try (BufferedWriter bw = new BufferedWriter(new FileWriter(this.fileName, StandardCharsets.UTF_8))) {
-            bw.write("id,type,name,status,description,epic" + "\n");
-            for (Task task : getAllTasks()) {
-                bw.write(serializator.toString(task));
-            }
-            for (Epic epic : getAllEpics()) {
-                bw.write(serializator.toString(epic));
+        saveTo(this.fileName, policy.isSync());
+    }
+
+    // Снимок пишется во временный файл и заменяет прежний переносом: прежний файл может быть
+    // отображён в память, и перезапись на месте испортила бы ещё не загруженные задачи.
+    private void saveTo(String fileName, boolean isSync) {
+        List<Task> allTasks = new ArrayList<>(tasks.values());
+        allTasks.addAll(epics.values());
+        allTasks.addAll(subtasks.values());
+        // Незагруженные задачи отображённого снимка переносятся в новый снимок, минуя менеджер.
+        if (mappedSnapshot != null) {
+            for (int index = materialized.nextClearBit(0); index < mappedSnapshot.size();
+                 index = materialized.nextClearBit(index + 1)) {
+                allTasks.add(mappedSnapshot.decode(index));
             }
-            for (Subtask subtask : getAllSubtasks()) {
-                bw.write(serializator.toString(subtask));
+        }
+
+        Path tempFile = Paths.get(fileName + ".tmp");
+        try {
+            try (FileOutputStream stream = new FileOutputStream(tempFile.toFile())) {
+                snapshotSerializator.write(stream, allTasks, historyManager.getHistory());
+                if (isSync) {
+                    stream.getChannel().force(true);
+                }
             }
-            bw.write("\n");
-            bw.write(CSVSerializator.toStringHistory(historyManager));
+            Files.move(tempFile, Paths.get(fileName),
+                    StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
         } catch (IOException e) {
             throw new ManagerSaveException(e.getMessage());
         }
     }
 
     public static void main(String[] args) {
-        TaskManager manager = Managers.getDefault();
+        FileBackedTasksManager manager = new FileBackedTasksManager("resources/tasks.csv");
 
         Task task1 = new Task(TypeTask.TASK, "Переезд", "Собрать коробки; Упаковать кошку;"
                 + " Сказать слова прощания",
@@ -271,6 +897,7 @@ public class FileBackedTasksManager extends InMemoryTaskManager {
         System.out.println("Задача № " + 2 + ": " + manager.getTaskById(2));
         System.out.println("Задача № " + 6 + ": " + manager.getSubTaskById(5));
         System.out.println("История запросов: " + manager.getHistory());
+        manager.flush();
 
         // Далее восстанавливаем задачи из файла "resources/tasks.csv":
 
@@ -3,6 +3,7 @@ package managers;
 import tasks.Task;
 
 import java.util.List;
+import java.util.function.IntFunction;
 
 public interface HistoryManager {
     void add(Task task);
@@ -10,4 +11,8 @@ public interface HistoryManager {
     void remove(int id);
 
     List<Task> getHistory();
+
+    // Менеджер задач передаёт поиск задачи по номеру истории, которая хранит только номера.
+    default void bind(IntFunction<Task> tasks) {
+    }
 }
@@ -2,25 +2,104 @@ package managers;
 
 import tasks.Task;
 
+import java.time.Clock;
+import java.time.Duration;
 import java.util.*;
 
+// Список просмотров от давних к недавним. При переполнении вытесняется
+// самый давний просмотр; с ограничением по времени жизни просмотры старше
+// timeToLive удаляются с начала списка.
 public class InMemoryHistoryManager implements HistoryManager {
     private final Map<Integer, Node> mapHistory = new HashMap<>();
+    private final int capacity;
+    private final long timeToLiveMillis;
+    private final Clock clock;
     private Node head = null;
     private Node tail = null;
     private int size = 0;
 
+    private long hitCount = 0;
+    private long missCount = 0;
+    private long evictionCount = 0;
+    private long expirationCount = 0;
+
+    public InMemoryHistoryManager() {
+        this(Integer.MAX_VALUE);
+    }
+
+    public InMemoryHistoryManager(int capacity) {
+        this(capacity, null, Clock.systemUTC());
+    }
+
+    // timeToLive == null - без ограничения по времени.
+    public InMemoryHistoryManager(int capacity, Duration timeToLive, Clock clock) {
+        if (capacity <= 0) {
+            throw new IllegalArgumentException("Размер истории должен быть положительным!");
+        }
+        this.capacity = capacity;
+        this.timeToLiveMillis = (timeToLive == null) ? Long.MAX_VALUE : timeToLive.toMillis();
+        this.clock = clock;
+    }
+
     @Override
     public void add(Task task) {
+        if (mapHistory.containsKey(task.getId())) {
+            hitCount++;
+        } else {
+            missCount++;
+        }
         remove(task.getId());
         linkLast(task);
+        expire();
+        while (size > capacity) {
+            evictionCount++;
+            remove(head.data.getId());
+        }
     }
 
     @Override
     public List<Task> getHistory() {
+        expire();
         return getTasks();
     }
 
+    public int getCapacity() {
+        return capacity;
+    }
+
+    public long getHitCount() {
+        return hitCount;
+    }
+
+    public long getMissCount() {
+        return missCount;
+    }
+
+    // Доля просмотров задач, которые уже были в истории.
+    public double getHitRate() {
+        long total = hitCount + missCount;
+        return (total == 0) ? 0.0 : (double) hitCount / total;
+    }
+
+    public long getEvictionCount() {
+        return evictionCount;
+    }
+
+    public long getExpirationCount() {
+        return expirationCount;
+    }
+
+    private void expire() {
+        if (timeToLiveMillis == Long.MAX_VALUE) {
+            return;
+        }
+        long now = clock.millis();
+        while (head != null && now - head.viewedAt >= timeToLiveMillis) {
+            expirationCount++;
+            remove(head.data.getId());
+        }
+    }
+
     @Override
     public void remove(int id) {
         if (mapHistory.containsKey(id)) {
@@ -55,6 +134,7 @@ public class InMemoryHistoryManager implements HistoryManager {
     private void linkLast(Task task) {
         final Node oldTail = tail;
         final Node newNode = new Node(oldTail, task, null);
+        newNode.viewedAt = clock.millis();
         tail = newNode;
         if (oldTail == null) {
             head = newNode;
@@ -79,6 +159,7 @@ public class InMemoryHistoryManager implements HistoryManager {
         public Task data;
         public Node next;
         public Node prev;
+        public long viewedAt;
 
         public Node(Node prev, Task data, Node next) {
             this.data = data;
@@ -4,17 +4,40 @@ import tasks.Epic;
 import tasks.Subtask;
 import tasks.Task;
 
+import java.time.Duration;
 import java.time.LocalDateTime;
 import java.util.*;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
 
 public class InMemoryTaskManager implements TaskManager {
     protected int id = 0;
-    protected final Map<Integer, Task> tasks = new HashMap<>();
-    protected final Map<Integer, Epic> epics = new HashMap<>();
-    protected final Map<Integer, Subtask> subtasks = new HashMap<>();
-    protected final HistoryManager historyManager = Managers.getDefaultHistory();
-    protected final Map<LocalDateTime, Task> prioritizedTasks = new TreeMap<>();
+    protected final IntObjectMap<Task> tasks = new IntObjectMap<>();
+    protected final IntObjectMap<Epic> epics = new IntObjectMap<>();
+    protected final IntObjectMap<Subtask> subtasks = new IntObjectMap<>();
+    // Единый справочник по номеру для задач всех типов: поиск без перебора таблиц.
+    protected final IntObjectMap<Task> directory = new IntObjectMap<>();
+    protected final HistoryManager historyManager;
+    protected final PrioritizedTasks prioritizedTasks = new PrioritizedTasks();
+    protected final IntervalTree intervals = new IntervalTree();
+    // Задачи по типу и статусу.
+    private final StatusIndex statusIndex = new StatusIndex();
+    // Слова названий и описаний.
+    private final TextIndex textIndex = new TextIndex();
+    // Текущая версия неизменяемого среза хранилища.
+    private TaskSnapshot currentSnapshot = TaskSnapshot.EMPTY;
+    // Журнал отката открытой транзакции; null вне транзакции.
+    private Transaction undoLog = null;
+
+    public InMemoryTaskManager() {
+        this(Managers.getDefaultHistory());
+    }
 
+    public InMemoryTaskManager(HistoryManager historyManager) {
+        this.historyManager = historyManager;
+        historyManager.bind(this::findTask);
+    }
 
     public Map<Integer, Task> getTask() {
         return tasks;
@@ -38,17 +61,7 @@ public class InMemoryTaskManager implements TaskManager {
 
     @Override
     public List<Task> getPrioritizedTasks() {
-        List<Task> tasksByPriority = new ArrayList<>();
-        List<Task> startTimeNotSetTasks = new ArrayList<>();
-        for (Task prioritizedTask : prioritizedTasks.values()) {
-            if (prioritizedTask.getDuration() == 0) {
-                startTimeNotSetTasks.add(prioritizedTask);
-            } else {
-                tasksByPriority.add(prioritizedTask);
-            }
-        }
-        tasksByPriority.addAll(startTimeNotSetTasks);
-        return tasksByPriority;
+        return prioritizedTasks.view();
     }
 
     @Override
@@ -60,6 +73,7 @@ public class InMemoryTaskManager implements TaskManager {
     public List<Task> getAllTasks() {
         List<Task> allTasks = new ArrayList<>();
         for (Task task : tasks.values()) {
+            remember(task.getId());
             allTasks.add(task);
         }
         return allTasks;
@@ -69,6 +83,7 @@ public class InMemoryTaskManager implements TaskManager {
     public List<Epic> getAllEpics() {
         List<Epic> allEpics = new ArrayList<>();
         for (Epic epic : epics.values()) {
+            remember(epic.getId());
             allEpics.add(epic);
         }
         return allEpics;
@@ -78,6 +93,7 @@ public class InMemoryTaskManager implements TaskManager {
     public List<Subtask> getAllSubtasks() {
         List<Subtask> allSubtasks = new ArrayList<>();
         for (Subtask subtask : subtasks.values()) {
+            remember(subtask.getId());
             allSubtasks.add(subtask);
         }
         return allSubtasks;
@@ -88,9 +104,11 @@ public class InMemoryTaskManager implements TaskManager {
         try {
             checkingOverlaysOfPeriods(task.getStartTime(), task.getEndTime(), null);
             int id = getId();
+            remember(id);
             task.setId(id);
-            this.tasks.put(id, task);
-            prioritizedTasks.put(task.getStartTime(), task);
+            this.tasks.putInt(id, task);
+            index(task);
+            addToSchedule(task);
         } catch (UnsupportedOperationException exception) {
             System.out.println(exception.getMessage() + "Задача <" + task.getName() + "> не добавлена!\n");
         }
@@ -103,14 +121,17 @@ public class InMemoryTaskManager implements TaskManager {
             Epic epic = getEpicById(subtask.getIdEpic());
 
             int idSubtask = getId();
+            remember(idSubtask);
+            remember(epic.getId());
             subtask.setId(idSubtask);
-            this.subtasks.put(idSubtask, subtask);
+            this.subtasks.putInt(idSubtask, subtask);
+            index(subtask);
 
             epic.setListSubTask(subtask);
             setStatusEpic(subtask.getIdEpic());
             setStartEndEpic(subtask.getIdEpic());
 
-            prioritizedTasks.put(subtask.getStartTime(), subtask);
+            addToSchedule(subtask);
 
         } catch (UnsupportedOperationException exception) {
             System.out.println(exception.getMessage() + "Подзадача <" + subtask.getName() + "> не добавлена!\n");
@@ -122,17 +143,74 @@ public class InMemoryTaskManager implements TaskManager {
     @Override
     public void createEpic(Epic epic) {
         int id = getId();
+        remember(id);
         epic.setId(id);
-        this.epics.put(id, epic);
+        this.epics.putInt(id, epic);
+        index(epic);
+    }
+
+    // Пакет проверяется одним проходом, номера выдаются подряд в порядке передачи,
+    // каждый затронутый эпик пересчитывается один раз. Просмотры эпиков не пишутся в историю.
+    @Override
+    public BatchResult createAll(Collection<? extends Task> tasks) {
+        BatchResult result = BatchResult.validate(tasks, intervals, epics::containsKey);
+        Set<Integer> changedEpics = new LinkedHashSet<>();
+        for (Task task : result.getCreated()) {
+            int taskId = getId();
+            remember(taskId);
+            task.setId(taskId);
+            index(task);
+            switch (task.getType()) {
+                case EPIC:
+                    epics.putInt(taskId, (Epic) task);
+                    break;
+                case SUBTASK:
+                    Subtask subtask = (Subtask) task;
+                    remember(subtask.getIdEpic());
+                    subtasks.putInt(taskId, subtask);
+                    epics.get(subtask.getIdEpic()).setListSubTask(subtask);
+                    changedEpics.add(subtask.getIdEpic());
+                    addToSchedule(subtask);
+                    break;
+                default:
+                    this.tasks.putInt(taskId, task);
+                    addToSchedule(task);
+                    break;
+            }
+        }
+        for (int idEpic : changedEpics) {
+            setStatusEpic(idEpic);
+            setStartEndEpic(idEpic);
+        }
+        return result;
+    }
+
+    @Override
+    public BatchResult createAll(Collection<? extends Task> tasks, LocalDateTime notBefore) {
+        BatchResult.place(tasks, intervals, epics::containsKey, notBefore);
+        return createAll(tasks);
+    }
+
+    @Override
+    public LocalDateTime findFreeSlot(Duration duration, LocalDateTime notBefore) {
+        return intervals.findFreeSlot(duration, notBefore);
+    }
+
+    @Override
+    public void createTaskAtEarliest(Task task, LocalDateTime notBefore) {
+        task.setStartTime(findFreeSlot(Duration.ofMinutes(task.getDuration()), notBefore));
+        createTask(task);
     }
 
     @Override
     public void updatedTask(Task task) {
         try {
             checkingOverlaysOfPeriods(task.getStartTime(), task.getEndTime(), task.getId());
-            this.tasks.put(task.getId(), task);
+            remember(task.getId());
+            this.tasks.putInt(task.getId(), task);
+            index(task);
             System.out.println("task = " + task);
-            prioritizedTasks.put(task.getStartTime(), task);
+            addToSchedule(task);
         } catch (UnsupportedOperationException exception) {
             System.out.println("Задача <" + task.getName() + "> не обновлена!\n");
         }
@@ -140,7 +218,9 @@ public class InMemoryTaskManager implements TaskManager {
 
     @Override
     public void updatedEpic(Epic epic) {
-        this.epics.put(epic.getId(), epic);
+        remember(epic.getId());
+        this.epics.putInt(epic.getId(), epic);
+        index(epic);
         setStatusEpic(epic.getId());
     }
 
@@ -148,10 +228,21 @@ public class InMemoryTaskManager implements TaskManager {
     public void updatedSubTask(Subtask subTask) {
         try {
             checkingOverlaysOfPeriods(subTask.getStartTime(), subTask.getEndTime(), subTask.getId());
-            this.subtasks.put(subTask.getId(), subTask);
+            Epic epic = findEpic(subTask.getIdEpic());
+            remember(subTask.getId());
+            remember(epic.getId());
+            if (subtasks.containsKey(subTask.getId())) {
+                remember(subtasks.get(subTask.getId()).getIdEpic());
+            }
+            Subtask oldSubtask = this.subtasks.putInt(subTask.getId(), subTask);
+            index(subTask);
+            if (oldSubtask != null) {
+                unlinkSubtask(oldSubtask);
+            }
+            epic.setListSubTask(subTask);
             setStatusEpic(subTask.getIdEpic());
             setStartEndEpic(subTask.getIdEpic());
-            prioritizedTasks.put(subTask.getStartTime(), subTask);
+            addToSchedule(subTask);
         } catch (UnsupportedOperationException exception) {
             System.out.println("Подзадача <" + subTask.getName() + "> не обновлена!\n");
         }
@@ -161,6 +252,8 @@ public class InMemoryTaskManager implements TaskManager {
     public Task getTaskById(int id) {
         Task task = tasks.get(id);
         if (task != null) {
+            remember(id);
+            rememberHistory();
             historyManager.add(task);
         }
         return task;
@@ -170,6 +263,8 @@ public class InMemoryTaskManager implements TaskManager {
     public Subtask getSubTaskById(int id) {
         Subtask subtask = subtasks.get(id);
         if (subtask != null) {
+            remember(id);
+            rememberHistory();
             historyManager.add(subtask);
         }
         return subtask;
@@ -177,19 +272,18 @@ public class InMemoryTaskManager implements TaskManager {
 
     @Override
     public Epic getEpicById(int id) {
-        Epic epic = epics.get(id);
-        if (epic != null) {
-            historyManager.add(epic);
-            return epic;
-        } else {
-            throw new NullPointerException(String.format("Эпик с номером [%d] не существует!", id));
-        }
+        Epic epic = findEpic(id);
+        remember(id);
+        rememberHistory();
+        historyManager.add(epic);
+        return epic;
     }
 
     @Override
     public List<Subtask> getListSubTasks(int id) {
-        if (getEpicById(id) != null) {
-            return getEpicById(id).getListSubTask();
+        Epic epic = getEpicById(id);
+        if (epic != null) {
+            return epic.getListSubTask();
         } else {
             System.out.println("Эпика с номером " + id + " не существует!");
             return null;
@@ -198,39 +292,46 @@ public class InMemoryTaskManager implements TaskManager {
 
     @Override
     public StatusTask getStatusById(int id) {
-        if (tasks.containsKey(id)) {
-            return tasks.get(id).getStatus();
-        } else if (epics.containsKey(id)) {
-            return epics.get(id).getStatus();
-        } else if (subtasks.containsKey(id)) {
-            return subtasks.get(id).getStatus();
-        } else {
+        Task task = findTask(id);
+        if (task == null) {
             System.out.println("Задачи с номером " + id + " нет в списке!");
             return null;
         }
+        return task.getStatus();
     }
 
     @Override
     public void deleteTaskById(int id) {
+        if (tasks.containsKey(id)) {
+            remember(id);
+            rememberHistory();
+        }
         Task removedTask = tasks.remove(id);
         if (removedTask == null) {
             System.out.println("Задачи с номером " + id + " нет в списке!");
         } else {
-            LocalDateTime keyRemovedTask = removedTask.getStartTime();
+            unindex(removedTask);
             historyManager.remove(id);
-            prioritizedTasks.remove(keyRemovedTask);
+            prioritizedTasks.remove(id);
+            intervals.remove(id);
         }
     }
 
     @Override
     public void deleteSubTaskById(int id) {
+        if (subtasks.containsKey(id)) {
+            remember(id);
+            remember(subtasks.get(id).getIdEpic());
+            rememberHistory();
+        }
         Subtask removedSubtask = subtasks.remove(id);
         if (removedSubtask == null) {
             System.out.println("Подзадачи с номером " + id + " нет в списке!");
         } else {
-            LocalDateTime keyRemovedSubtask = removedSubtask.getStartTime();
+            unindex(removedSubtask);
             historyManager.remove(id);
-            prioritizedTasks.remove(keyRemovedSubtask);
+            prioritizedTasks.remove(id);
+            intervals.remove(id);
             int idEpic = removedSubtask.getIdEpic();
             epics.get(idEpic).deleteSubTask(removedSubtask);
             setStatusEpic(idEpic);
@@ -240,23 +341,42 @@ public class InMemoryTaskManager implements TaskManager {
 
     @Override
     public void deleteEpicById(int id) {
+        if (epics.containsKey(id)) {
+            remember(id);
+            for (Subtask subTaskEpic : epics.get(id).getListSubTask()) {
+                remember(subTaskEpic.getId());
+            }
+            rememberHistory();
+        }
         Epic removedEpic = epics.remove(id);
         if (removedEpic == null) {
             System.out.println("Эпика с номером " + id + " нет в списке!");
         } else {
+            unindex(removedEpic);
             historyManager.remove(id);
             for (Subtask subTaskEpic : removedEpic.getListSubTask()) {
                 int idSubtask = subTaskEpic.getId();
                 subtasks.remove(idSubtask);
+                unindex(subTaskEpic);
                 historyManager.remove(idSubtask);
-                LocalDateTime keyRemovedSubtask = subTaskEpic.getStartTime();
-                prioritizedTasks.remove(keyRemovedSubtask);
+                prioritizedTasks.remove(idSubtask);
+                intervals.remove(idSubtask);
             }
         }
     }
 
     @Override
     public void deleteAllTask() {
+        if (undoLog != null) {
+            for (int idTask : directory.keySet()) {
+                remember(idTask);
+            }
+            rememberHistory();
+        }
+        // Номера задач начнутся заново, поэтому история удалённых задач тоже очищается.
+        for (Task task : historyManager.getHistory()) {
+            historyManager.remove(task.getId());
+        }
         if (!tasks.isEmpty()) {
             tasks.clear();
         }
@@ -266,69 +386,320 @@ public class InMemoryTaskManager implements TaskManager {
         if (!epics.isEmpty()) {
             epics.clear();
         }
+        directory.clear();
+        statusIndex.clear();
+        textIndex.clear();
+        currentSnapshot = TaskSnapshot.EMPTY;
         this.id = 0;
         prioritizedTasks.clear();
+        intervals.clear();
+    }
+
+    // Изменения внутри body применяются целиком или не применяются вовсе: при исключении
+    // хранилище, расписание, сводки эпиков и история возвращаются к состоянию до транзакции.
+    // Поля задачи запоминаются, когда менеджер впервые выдаёт или меняет её в транзакции,
+    // поэтому откатываются и изменения через сеттеры у задач, полученных внутри body
+    // (getTaskById, getListSubTasks, getAll...); задачи, полученные до транзакции,
+    // нужно перечитать в ней. Вложенная транзакция становится частью внешней.
+    @Override
+    public void transaction(Consumer<TaskManager> body) {
+        if (undoLog != null) {
+            body.accept(this);
+            return;
+        }
+        undoLog = new Transaction(id, currentSnapshot);
+        try {
+            body.accept(this);
+        } catch (RuntimeException | Error exception) {
+            Transaction log = undoLog;
+            undoLog = null;
+            rollback(log);
+            throw exception;
+        }
+        undoLog = null;
     }
 
     private void checkingOverlaysOfPeriods(LocalDateTime startTime, LocalDateTime endTime, Integer idForUpdateTask) {
-        for (Task prioritizedTask : getPrioritizedTasks()) {
-            boolean isСondition;
-            if (idForUpdateTask != null) {
-                isСondition = (prioritizedTask.getDuration() != 0)
-                        && (prioritizedTask.getId() != idForUpdateTask);
-            } else {
-                isСondition = (prioritizedTask.getDuration() != 0);
+        if (intervals.findOverlap(startTime, endTime, idForUpdateTask) != null) {
+            throw new UnsupportedOperationException("Обнаружено пересечение периодов!");
+        }
+    }
+
+    private void addToSchedule(Task task) {
+        prioritizedTasks.add(task);
+        if (task.getDuration() != 0) {
+            intervals.add(task);
+        } else {
+            intervals.remove(task.getId());
+        }
+    }
+
+    // Восстановление задачи из файла: id уже назначен, история не меняется.
+    protected void restoreTask(Task task) {
+        int taskId = task.getId();
+        switch (task.getType()) {
+            case TASK:
+                tasks.putInt(taskId, task);
+                index(task);
+                addToSchedule(task);
+                break;
+            case EPIC:
+                epics.putInt(taskId, (Epic) task);
+                index(task);
+                break;
+            case SUBTASK:
+                Subtask subtask = (Subtask) task;
+                Epic epic = findEpic(subtask.getIdEpic());
+                Subtask oldSubtask = subtasks.putInt(taskId, subtask);
+                index(subtask);
+                if (oldSubtask != null) {
+                    unlinkSubtask(oldSubtask);
+                }
+                epic.setListSubTask(subtask);
+                setStatusEpic(subtask.getIdEpic());
+                setStartEndEpic(subtask.getIdEpic());
+                addToSchedule(subtask);
+                break;
+            default:
+                break;
+        }
+        if (this.id < taskId) {
+            this.id = taskId;
+        }
+    }
+
+    // Массовое восстановление снимка: задачи раскладываются по таблицам, подзадачи
+    // привязываются к эпикам, затем каждый эпик пересчитывается один раз,
+    // а расписание строится целиком. История не меняется.
+    protected void restoreAll(List<Task> loaded) {
+        for (Task task : loaded) {
+            if (task.getType() == TypeTask.EPIC) {
+                epics.putInt(task.getId(), (Epic) task);
+                index(task);
             }
-            if (isСondition) {
-                if (endTime.isAfter(prioritizedTask.getStartTime())
-                        && startTime.isBefore(prioritizedTask.getEndTime())) {
-                    throw new UnsupportedOperationException("Обнаружено пересечение периодов!");
+        }
+
+        Map<Integer, Task> scheduled = new LinkedHashMap<>();
+        Set<Integer> changedEpics = new HashSet<>();
+        for (Task task : loaded) {
+            int taskId = task.getId();
+            if (task.getType() == TypeTask.TASK) {
+                tasks.putInt(taskId, task);
+                index(task);
+                scheduled.put(taskId, task);
+            } else if (task.getType() == TypeTask.SUBTASK) {
+                Subtask subtask = (Subtask) task;
+                Epic epic = epics.get(subtask.getIdEpic());
+                if (epic == null) {
+                    System.out.println(String.format("Эпик с номером [%d] не существует! ", subtask.getIdEpic())
+                            + "Подзадача <" + subtask.getName() + "> не восстановлена!\n");
+                    continue;
+                }
+                Subtask oldSubtask = subtasks.putInt(taskId, subtask);
+                index(subtask);
+                if (oldSubtask != null && epics.containsKey(oldSubtask.getIdEpic())) {
+                    epics.get(oldSubtask.getIdEpic()).deleteSubTask(oldSubtask);
+                    changedEpics.add(oldSubtask.getIdEpic());
                 }
+                epic.setListSubTask(subtask);
+                changedEpics.add(epic.getId());
+                scheduled.put(taskId, subtask);
+            }
+            if (this.id < taskId) {
+                this.id = taskId;
             }
         }
-    }
 
-    private void setStartEndEpic(int idEpic) {
-        SortedSet<LocalDateTime> startTime = new TreeSet<>();
-        SortedSet<LocalDateTime> endTime = new TreeSet<>();
-        List<Subtask> listSubTask = getListSubTasks(idEpic);
-
-        for (Subtask subtask : listSubTask) {
-            if (subtask.getIdEpic() == idEpic) {
-                startTime.add(subtask.getStartTime());
-                endTime.add(subtask.getEndTime());
+        for (int idEpic : changedEpics) {
+            if (!epics.get(idEpic).getListSubTask().isEmpty()) {
+                setStatusEpic(idEpic);
+                setStartEndEpic(idEpic);
             }
         }
-        epics.get(idEpic).setStartTime(startTime.first());
-        epics.get(idEpic).setEndTimeEpic(endTime.last());
+
+        List<Task> timed = new ArrayList<>();
+        for (Task task : scheduled.values()) {
+            if (task.getDuration() != 0) {
+                timed.add(task);
+            }
+        }
+        prioritizedTasks.addAll(scheduled.values());
+        intervals.addAll(timed);
     }
 
-    private void setStatusEpic(int idEpic) {
-        List<Subtask> listSubTask = getListSubTasks(idEpic);
-        boolean isStatusNew = false;
-        boolean isStatusInProgess = false;
-        boolean isStatusDone = false;
-
-        for (Subtask subtask : listSubTask) {
-            switch (subtask.getStatus().toString()) {
-                case ("NEW"):
-                    isStatusNew = true;
+    protected Task findTask(int id) {
+        return directory.get(id);
+    }
+
+    // Ленивый поток по дереву интервалов: его нужно дочитать до следующего изменения менеджера.
+    @Override
+    public Stream<Task> getTasksInRange(LocalDateTime from, LocalDateTime to) {
+        return StreamSupport.stream(Spliterators.spliteratorUnknownSize(intervals.overlapping(from, to),
+                Spliterator.ORDERED | Spliterator.NONNULL), false);
+    }
+
+    @Override
+    public List<Task> getTasksStartingAfter(LocalDateTime time, int limit) {
+        return intervals.startingAfter(time, limit);
+    }
+
+    @Override
+    public List<Task> getActiveAt(LocalDateTime time) {
+        return intervals.activeAt(time);
+    }
+
+    @Override
+    public List<Task> getByStatus(StatusTask status) {
+        return statusIndex.get(status);
+    }
+
+    @Override
+    public List<Task> getByStatus(TypeTask type, StatusTask status) {
+        return statusIndex.get(type, status);
+    }
+
+    @Override
+    public Map<StatusTask, Integer> countByStatus() {
+        return statusIndex.counts();
+    }
+
+    @Override
+    public List<Task> search(String query, int limit) {
+        List<Task> result = new ArrayList<>();
+        for (int idTask : textIndex.search(query, limit)) {
+            result.add(findTask(idTask));
+        }
+        return result;
+    }
+
+    // Согласованный срез за O(1): последующие изменения его не затрагивают.
+    // Во время транзакции возвращается срез до её начала.
+    @Override
+    public TaskSnapshot snapshot() {
+        return (undoLog == null) ? currentSnapshot : undoLog.snapshot;
+    }
+
+    // Задача попадает в справочник по номеру и в текущую версию среза.
+    private void index(Task task) {
+        directory.putInt(task.getId(), task);
+        statusIndex.put(task);
+        textIndex.put(task);
+        currentSnapshot = currentSnapshot.with(task);
+    }
+
+    private void unindex(Task task) {
+        directory.remove(task.getId(), task);
+        statusIndex.remove(task.getId());
+        textIndex.remove(task.getId());
+        currentSnapshot = currentSnapshot.without(task.getId(), task.getType());
+    }
+
+    private void remember(int id) {
+        if (undoLog != null && !undoLog.contains(id)) {
+            undoLog.remember(id, directory.get(id));
+        }
+    }
+
+    private void rememberHistory() {
+        if (undoLog != null && undoLog.history == null) {
+            undoLog.history = historyManager.getHistory();
+        }
+    }
+
+    private void rollback(Transaction log) {
+        for (int idTask : log.ids()) {
+            tasks.remove(idTask);
+            epics.remove(idTask);
+            subtasks.remove(idTask);
+            directory.remove(idTask);
+            prioritizedTasks.remove(idTask);
+            intervals.remove(idTask);
+        }
+        // Сначала восстанавливаются поля всех задач: расписание строится уже по прежним значениям.
+        for (Map.Entry<Integer, Task> entry : log.restore().entrySet()) {
+            Task task = entry.getValue();
+            int idTask = entry.getKey();
+            directory.putInt(idTask, task);
+            switch (task.getType()) {
+                case EPIC:
+                    epics.putInt(idTask, (Epic) task);
                     break;
-                case ("IN_PROGRESS"):
-                    isStatusInProgess = true;
+                case SUBTASK:
+                    subtasks.putInt(idTask, (Subtask) task);
+                    addToSchedule(task);
                     break;
-                case ("DONE"):
-                    isStatusDone = true;
+                default:
+                    tasks.putInt(idTask, task);
+                    addToSchedule(task);
                     break;
             }
         }
+        for (int idTask : log.ids()) {
+            statusIndex.remove(idTask);
+            textIndex.remove(idTask);
+            Task task = directory.get(idTask);
+            if (task != null) {
+                statusIndex.put(task);
+                textIndex.put(task);
+            }
+        }
+        this.id = log.id;
+        currentSnapshot = log.snapshot;
+        if (log.history != null) {
+            for (Task task : historyManager.getHistory()) {
+                historyManager.remove(task.getId());
+            }
+            for (int i = log.history.size() - 1; i >= 0; i--) {
+                historyManager.add(log.history.get(i));
+            }
+        }
+    }
 
-        if (!isStatusNew && !isStatusInProgess && isStatusDone) {
-            epics.get(idEpic).setStatus(StatusTask.DONE);
-        } else if (isStatusNew && !isStatusInProgess && !isStatusDone) {
-            epics.get(idEpic).setStatus(StatusTask.NEW);
-        } else {
-            epics.get(idEpic).setStatus(StatusTask.IN_PROGRESS);
+    private Epic findEpic(int id) {
+        Epic epic = epics.get(id);
+        if (epic == null) {
+            throw new NullPointerException(String.format("Эпик с номером [%d] не существует!", id));
+        }
+        return epic;
+    }
+
+    private void unlinkSubtask(Subtask subtask) {
+        Epic epic = epics.get(subtask.getIdEpic());
+        if (epic != null) {
+            epic.deleteSubTask(subtask);
+            if (!epic.getListSubTask().isEmpty()) {
+                setStatusEpic(epic.getId());
+                setStartEndEpic(epic.getId());
+            }
+        }
+    }
+
+    // Сроки эпика по сводке подзадач; у эпика без подзадач сроки не меняются.
+    private void setStartEndEpic(int idEpic) {
+        Epic epic = epics.get(idEpic);
+        if (epic.getListSubTask().isEmpty()) {
+            return;
+        }
+        epic.setStartTime(epic.getSubtasksStartTime());
+        epic.setEndTimeEpic(epic.getSubtasksEndTime());
+    }
+
+    private void setStatusEpic(int idEpic) {
+        Epic epic = epics.get(idEpic);
+        epic.setStatus(epic.getSubtasksStatus());
+        statusIndex.put(epic);
+    }
+
+    // Общий журнал дополняется тем, что откатывается целиком: счётчиком номеров, срезом и историей.
+    private static class Transaction extends UndoLog {
+        private final int id;
+        private final TaskSnapshot snapshot;
+        // История до первого изменения; null, если история не менялась.
+        private List<Task> history;
+
+        private Transaction(int id, TaskSnapshot snapshot) {
+            this.id = id;
+            this.snapshot = snapshot;
         }
     }
 }
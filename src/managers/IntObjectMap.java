@@ -0,0 +1,401 @@
+package managers;
+
+import java.util.AbstractCollection;
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.ConcurrentModificationException;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Set;
+
+// Таблица с ключами int без упаковки: ключи и значения лежат в двух массивах,
+// коллизии разрешаются линейным пробированием, удаление - сдвигом следующих
+// элементов цепочки, без надгробий. Пустая ячейка - значение null, поэтому
+// null в качестве значения не допускается. Для небольших последовательных
+// номеров порядок обхода совпадает с HashMap - по возрастанию.
+// Вставка без упаковки называется putInt: перегрузка put(int, V) рядом с
+// put(Integer, V) делала вызов put(k, v) неоднозначным для IntObjectMap<Integer>.
+public class IntObjectMap<V> extends AbstractMap<Integer, V> {
+    private static final int MIN_CAPACITY = 16;
+
+    private int[] keys;
+    private Object[] values;
+    private int mask;
+    private int size = 0;
+    // Расширение при заполнении больше чем на 3/4.
+    private int threshold;
+    private int modCount = 0;
+    private Set<Entry<Integer, V>> entrySet;
+    private Set<Integer> keySet;
+    private Collection<V> valuesView;
+
+    public IntObjectMap() {
+        this(MIN_CAPACITY);
+    }
+
+    public IntObjectMap(int expectedSize) {
+        allocate(tableSizeFor(expectedSize));
+    }
+
+    public V get(int key) {
+        int position = find(key);
+        return (position < 0) ? null : value(position);
+    }
+
+    public boolean containsKey(int key) {
+        return find(key) >= 0;
+    }
+
+    public V putInt(int key, V value) {
+        if (value == null) {
+            throw new NullPointerException("Значение не может быть null!");
+        }
+        int position = hash(key) & mask;
+        while (values[position] != null) {
+            if (keys[position] == key) {
+                V oldValue = value(position);
+                values[position] = value;
+                return oldValue;
+            }
+            position = (position + 1) & mask;
+        }
+        keys[position] = key;
+        values[position] = value;
+        modCount++;
+        if (++size > threshold) {
+            allocate(keys.length * 2);
+        }
+        return null;
+    }
+
+    public V remove(int key) {
+        int position = find(key);
+        if (position < 0) {
+            return null;
+        }
+        V oldValue = value(position);
+        delete(position, null);
+        return oldValue;
+    }
+
+    @Override
+    public V get(Object key) {
+        return (key instanceof Integer) ? get((int) (Integer) key) : null;
+    }
+
+    @Override
+    public boolean containsKey(Object key) {
+        return (key instanceof Integer) && containsKey((int) (Integer) key);
+    }
+
+    @Override
+    public boolean containsValue(Object value) {
+        if (value == null) {
+            return false;
+        }
+        for (Object candidate : values) {
+            if (value.equals(candidate)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    @Override
+    public V put(Integer key, V value) {
+        return putInt(key, value);
+    }
+
+    @Override
+    public V remove(Object key) {
+        return (key instanceof Integer) ? remove((int) (Integer) key) : null;
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    @Override
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    @Override
+    public void clear() {
+        if (size == 0) {
+            return;
+        }
+        Arrays.fill(values, null);
+        size = 0;
+        modCount++;
+    }
+
+    @Override
+    public Set<Entry<Integer, V>> entrySet() {
+        if (entrySet == null) {
+            entrySet = new AbstractSet<>() {
+                @Override
+                public Iterator<Entry<Integer, V>> iterator() {
+                    return new EntryIterator();
+                }
+
+                @Override
+                public int size() {
+                    return size;
+                }
+
+                @Override
+                public void clear() {
+                    IntObjectMap.this.clear();
+                }
+            };
+        }
+        return entrySet;
+    }
+
+    @Override
+    public Set<Integer> keySet() {
+        if (keySet == null) {
+            keySet = new AbstractSet<>() {
+                @Override
+                public Iterator<Integer> iterator() {
+                    EntryIterator entries = new EntryIterator();
+                    return new Iterator<>() {
+                        @Override
+                        public boolean hasNext() {
+                            return entries.hasNext();
+                        }
+
+                        @Override
+                        public Integer next() {
+                            return keys[entries.nextPosition()];
+                        }
+
+                        @Override
+                        public void remove() {
+                            entries.remove();
+                        }
+                    };
+                }
+
+                @Override
+                public boolean contains(Object key) {
+                    return containsKey(key);
+                }
+
+                @Override
+                public boolean remove(Object key) {
+                    return (key instanceof Integer) && IntObjectMap.this.remove((int) (Integer) key) != null;
+                }
+
+                @Override
+                public int size() {
+                    return size;
+                }
+
+                @Override
+                public void clear() {
+                    IntObjectMap.this.clear();
+                }
+            };
+        }
+        return keySet;
+    }
+
+    @Override
+    public Collection<V> values() {
+        if (valuesView == null) {
+            valuesView = new AbstractCollection<>() {
+                @Override
+                public Iterator<V> iterator() {
+                    EntryIterator entries = new EntryIterator();
+                    return new Iterator<>() {
+                        @Override
+                        public boolean hasNext() {
+                            return entries.hasNext();
+                        }
+
+                        @Override
+                        public V next() {
+                            return value(entries.nextPosition());
+                        }
+
+                        @Override
+                        public void remove() {
+                            entries.remove();
+                        }
+                    };
+                }
+
+                @Override
+                public boolean contains(Object value) {
+                    return containsValue(value);
+                }
+
+                @Override
+                public int size() {
+                    return size;
+                }
+
+                @Override
+                public void clear() {
+                    IntObjectMap.this.clear();
+                }
+            };
+        }
+        return valuesView;
+    }
+
+    @SuppressWarnings("unchecked")
+    private V value(int position) {
+        return (V) values[position];
+    }
+
+    private int find(int key) {
+        int position = hash(key) & mask;
+        while (values[position] != null) {
+            if (keys[position] == key) {
+                return position;
+            }
+            position = (position + 1) & mask;
+        }
+        return -1;
+    }
+
+    // Удаление со сдвигом: следующие элементы цепочки подтягиваются в дыру.
+    // Если удаляет итератор, он получает элемент, перенесённый через конец
+    // массива в уже пройденную им часть таблицы, чтобы не выдать его дважды.
+    private void delete(int position, EntryIterator iterator) {
+        int gap = position;
+        int current = position;
+        while (true) {
+            current = (current + 1) & mask;
+            if (values[current] == null) {
+                break;
+            }
+            int home = hash(keys[current]) & mask;
+            if (((current - home) & mask) >= ((current - gap) & mask)) {
+                if (iterator != null) {
+                    iterator.moved(current, gap);
+                }
+                keys[gap] = keys[current];
+                values[gap] = values[current];
+                gap = current;
+            }
+        }
+        values[gap] = null;
+        size--;
+        modCount++;
+    }
+
+    private void allocate(int capacity) {
+        int[] oldKeys = keys;
+        Object[] oldValues = values;
+        keys = new int[capacity];
+        values = new Object[capacity];
+        mask = capacity - 1;
+        threshold = capacity / 4 * 3;
+        if (oldValues == null) {
+            return;
+        }
+        for (int i = 0; i < oldValues.length; i++) {
+            if (oldValues[i] != null) {
+                int position = hash(oldKeys[i]) & mask;
+                while (values[position] != null) {
+                    position = (position + 1) & mask;
+                }
+                keys[position] = oldKeys[i];
+                values[position] = oldValues[i];
+            }
+        }
+    }
+
+    private static int tableSizeFor(int expectedSize) {
+        int capacity = MIN_CAPACITY;
+        while (capacity / 4 * 3 < expectedSize) {
+            capacity *= 2;
+        }
+        return capacity;
+    }
+
+    // Как в HashMap: для номеров меньше 65536 хэш совпадает с номером.
+    private static int hash(int key) {
+        return key ^ (key >>> 16);
+    }
+
+    // Обход по возрастанию индексов ячеек. После удаления через итератор обход
+    // продолжается с той же ячейки: в неё мог сдвинуться ещё не пройденный элемент.
+    private class EntryIterator implements Iterator<Entry<Integer, V>> {
+        private int position = 0;
+        private int lastPosition = -1;
+        private int expectedModCount = modCount;
+        // Ячейки, в которые сдвинуты уже пройденные элементы.
+        private BitSet skipped;
+
+        @Override
+        public boolean hasNext() {
+            while (position < values.length
+                    && (values[position] == null || (skipped != null && skipped.get(position)))) {
+                position++;
+            }
+            return position < values.length;
+        }
+
+        int nextPosition() {
+            if (modCount != expectedModCount) {
+                throw new ConcurrentModificationException();
+            }
+            if (!hasNext()) {
+                throw new NoSuchElementException();
+            }
+            lastPosition = position++;
+            return lastPosition;
+        }
+
+        @Override
+        public Entry<Integer, V> next() {
+            int current = nextPosition();
+            return new SimpleEntry<>(keys[current], value(current)) {
+                @Override
+                public V setValue(V value) {
+                    V oldValue = super.setValue(value);
+                    putInt(getKey(), value);
+                    return oldValue;
+                }
+            };
+        }
+
+        @Override
+        public void remove() {
+            if (lastPosition < 0) {
+                throw new IllegalStateException();
+            }
+            if (modCount != expectedModCount) {
+                throw new ConcurrentModificationException();
+            }
+            delete(lastPosition, this);
+            position = lastPosition;
+            lastPosition = -1;
+            expectedModCount = modCount;
+        }
+
+        // Элемент уже пройден, если перенесён через конец массива или
+        // сдвигается из ячейки, помеченной раньше: пометка переезжает вместе с ним.
+        private void moved(int from, int to) {
+            boolean isVisited = from < to || (skipped != null && skipped.get(from));
+            if (!isVisited) {
+                return;
+            }
+            if (skipped == null) {
+                skipped = new BitSet(values.length);
+            }
+            skipped.clear(from);
+            skipped.set(to);
+        }
+    }
+}
@@ -0,0 +1,421 @@
+package managers;
+
+import tasks.Task;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+
+// АВЛ-дерево интервалов [start, end), упорядоченное по (start, id). Границы хранятся
+// как LocalDateTime и сравниваются напрямую, поэтому точность - наносекунда, а диапазон
+// дат не ограничен. Промежутки между интервалами считаются в наносекундах с насыщением:
+// всё длиннее 292 лет равно Long.MAX_VALUE.
+// В каждом узле хранится максимальный конец интервала в его поддереве,
+// поэтому поиск пересечения выполняется за O(log n + k). Кроме того, узел хранит
+// наименьшее начало и наибольший промежуток между соседними интервалами поддерева,
+// поэтому первый свободный промежуток нужной длины находится за O(log n).
+public class IntervalTree implements Schedule {
+    private static final long NANOS_PER_SECOND = 1_000_000_000L;
+    // Наибольшее число секунд, которое ещё переводится в наносекунды без переполнения.
+    private static final long MAX_SECONDS = Long.MAX_VALUE / NANOS_PER_SECOND - 1;
+
+    private final IntObjectMap<Node> nodesById = new IntObjectMap<>();
+    private Node root = null;
+
+    public int size() {
+        return nodesById.size();
+    }
+
+    public boolean contains(int id) {
+        return nodesById.containsKey(id);
+    }
+
+    // Стоит ли задача id в дереве ровно с периодом [start, end).
+    boolean isScheduled(int id, LocalDateTime start, LocalDateTime end) {
+        Node node = nodesById.get(id);
+        return node != null && node.start.equals(start) && node.end.equals(end);
+    }
+
+    public void add(Task task) {
+        add(task.getId(), task);
+    }
+
+    // Ключ задаётся отдельно от номера задачи: так в дерево попадают задачи, у которых номера ещё нет.
+    void add(int id, Task task) {
+        remove(id);
+        Node node = new Node(id, task);
+        root = insert(root, node);
+        nodesById.putInt(id, node);
+    }
+
+    // Пустое дерево строится сразу сбалансированным из отсортированных узлов.
+    public void addAll(Collection<Task> tasks) {
+        if (root != null) {
+            for (Task task : tasks) {
+                add(task);
+            }
+            return;
+        }
+        Node[] nodes = new Node[tasks.size()];
+        int i = 0;
+        for (Task task : tasks) {
+            nodes[i++] = new Node(task.getId(), task);
+        }
+        Arrays.sort(nodes, (first, second) -> compare(first.start, first.id, second));
+        for (Node node : nodes) {
+            nodesById.putInt(node.id, node);
+        }
+        if (nodesById.size() != nodes.length) {
+            // Повторяющиеся id: последняя версия задачи должна заменить предыдущие.
+            nodesById.clear();
+            for (Task task : tasks) {
+                add(task);
+            }
+            return;
+        }
+        root = build(nodes, 0, nodes.length - 1);
+    }
+
+    public void remove(int id) {
+        Node node = nodesById.remove(id);
+        if (node != null) {
+            root = delete(root, node.start, node.id);
+        }
+    }
+
+    public void clear() {
+        nodesById.clear();
+        root = null;
+    }
+
+    @Override
+    public Task findOverlap(LocalDateTime startTime, LocalDateTime endTime, Integer idForUpdateTask) {
+        int excludedId = (idForUpdateTask == null) ? 0 : idForUpdateTask;
+        Node node = findOverlap(root, startTime, endTime, idForUpdateTask != null, excludedId);
+        return (node == null) ? null : node.task;
+    }
+
+    // Задачи, пересекающие [from, to), по возрастанию (start, id). Обход ленивый: спуск
+    // отбрасывает поддеревья с maxEnd <= from и правее to. Пересечения в расписании
+    // запрещены, поэтому концы идут в том же порядке, что и начала, и лишних узлов
+    // обходится O(log n): всего O(log n + k). Дерево нельзя менять до конца обхода.
+    public Iterator<Task> overlapping(LocalDateTime from, LocalDateTime to) {
+        return new RangeIterator(from, to, true);
+    }
+
+    // Задачи, начинающиеся позже from, по возрастанию (start, id).
+    public Iterator<Task> startingAfter(LocalDateTime from) {
+        return new RangeIterator(from, null, false);
+    }
+
+    // Самое раннее начало не раньше notBefore, с которого duration не пересекается ни с одним
+    // интервалом. Если notBefore занят, ответ - конец первого интервала после notBefore,
+    // за которым следует промежуток не короче duration. Промежутки считаются в предположении,
+    // что интервалы не пересекаются (так устроено расписание); при нарушении этого ответ
+    // проверяется и поиск продолжается дальше.
+    @Override
+    public LocalDateTime findFreeSlot(Duration duration, LocalDateTime notBefore) {
+        if (duration.isNegative()) {
+            throw new IllegalArgumentException("Неверная продолжительность: " + duration);
+        }
+        long length = (duration.getSeconds() > MAX_SECONDS) ? Long.MAX_VALUE : duration.toNanos();
+        LocalDateTime startTime = notBefore;
+        while (findOverlap(startTime, startTime.plus(duration), null) != null) {
+            LocalDateTime gapStart = findGap(root, startTime, length, null);
+            startTime = (gapStart == null) ? root.maxEnd : gapStart;
+        }
+        return startTime;
+    }
+
+    public List<Task> startingAfter(LocalDateTime from, int limit) {
+        if (limit <= 0) {
+            throw new IllegalArgumentException("Неверное число задач: " + limit);
+        }
+        List<Task> result = new ArrayList<>();
+        Iterator<Task> iterator = startingAfter(from);
+        while (result.size() < limit && iterator.hasNext()) {
+            result.add(iterator.next());
+        }
+        return result;
+    }
+
+    // Задачи, которые идут в момент time: start <= time < end.
+    public List<Task> activeAt(LocalDateTime time) {
+        List<Task> result = new ArrayList<>();
+        overlapping(time, time.plusNanos(1)).forEachRemaining(result::add);
+        return result;
+    }
+
+    private Node findOverlap(Node node, LocalDateTime start, LocalDateTime end, boolean isExcluded,
+                             int excludedId) {
+        if (node == null || !node.maxEnd.isAfter(start)) {
+            return null;
+        }
+        Node found = findOverlap(node.left, start, end, isExcluded, excludedId);
+        if (found != null) {
+            return found;
+        }
+        if (!node.start.isBefore(end)) {
+            return null;
+        }
+        if (node.end.isAfter(start) && !(isExcluded && node.id == excludedId)) {
+            return node;
+        }
+        return findOverlap(node.right, start, end, isExcluded, excludedId);
+    }
+
+    // Конец первого по порядку интервала поддерева с концом позже after, за которым
+    // до следующего интервала (nextStart - начало первого интервала правее поддерева)
+    // свободно не меньше length (null - правее интервалов нет); null, если такого нет. Поддеревья отсекаются по maxEnd
+    // и по наибольшему промежутку, поэтому спуск идёт по двум путям: O(log n).
+    // Насыщение промежутков не мешает поиску: поддерево с нужным промежутком не отсекается,
+    // а ложный ответ при двух насыщенных значениях отсеивает проверка в findFreeSlot.
+    private LocalDateTime findGap(Node node, LocalDateTime after, long length, LocalDateTime nextStart) {
+        if (node == null || !node.maxEnd.isAfter(after)
+                || Math.max(node.maxGap, gap(node.maxEnd, nextStart)) < length) {
+            return null;
+        }
+        LocalDateTime found = findGap(node.left, after, length, node.start);
+        if (found != null) {
+            return found;
+        }
+        LocalDateTime successorStart = (node.right == null) ? nextStart : node.right.minStart;
+        if (node.end.isAfter(after) && gap(node.end, successorStart) >= length) {
+            return node.end;
+        }
+        return findGap(node.right, after, length, nextStart);
+    }
+
+    // Длина [end, nextStart) в наносекундах с насыщением; nextStart == null - бесконечность.
+    private static long gap(LocalDateTime end, LocalDateTime nextStart) {
+        if (nextStart == null) {
+            return Long.MAX_VALUE;
+        }
+        long seconds = nextStart.toEpochSecond(ZoneOffset.UTC) - end.toEpochSecond(ZoneOffset.UTC);
+        if (seconds > MAX_SECONDS) {
+            return Long.MAX_VALUE;
+        }
+        if (seconds < -MAX_SECONDS) {
+            return Long.MIN_VALUE;
+        }
+        return seconds * NANOS_PER_SECOND + (nextStart.getNano() - end.getNano());
+    }
+
+    private Node build(Node[] nodes, int from, int to) {
+        if (from > to) {
+            return null;
+        }
+        int middle = (from + to) >>> 1;
+        Node node = nodes[middle];
+        node.left = build(nodes, from, middle - 1);
+        node.right = build(nodes, middle + 1, to);
+        update(node);
+        return node;
+    }
+
+    private Node insert(Node node, Node newNode) {
+        if (node == null) {
+            return newNode;
+        }
+        if (compare(newNode.start, newNode.id, node) < 0) {
+            node.left = insert(node.left, newNode);
+        } else {
+            node.right = insert(node.right, newNode);
+        }
+        return balance(node);
+    }
+
+    private Node delete(Node node, LocalDateTime start, int id) {
+        if (node == null) {
+            return null;
+        }
+        int cmp = compare(start, id, node);
+        if (cmp < 0) {
+            node.left = delete(node.left, start, id);
+        } else if (cmp > 0) {
+            node.right = delete(node.right, start, id);
+        } else {
+            if (node.left == null) {
+                return node.right;
+            }
+            if (node.right == null) {
+                return node.left;
+            }
+            Node successor = node.right;
+            while (successor.left != null) {
+                successor = successor.left;
+            }
+            successor.right = deleteMin(node.right);
+            successor.left = node.left;
+            return balance(successor);
+        }
+        return balance(node);
+    }
+
+    private Node deleteMin(Node node) {
+        if (node.left == null) {
+            return node.right;
+        }
+        node.left = deleteMin(node.left);
+        return balance(node);
+    }
+
+    private int compare(LocalDateTime start, int id, Node node) {
+        int cmp = start.compareTo(node.start);
+        return (cmp != 0) ? cmp : Integer.compare(id, node.id);
+    }
+
+    private Node balance(Node node) {
+        update(node);
+        int factor = height(node.left) - height(node.right);
+        if (factor > 1) {
+            if (height(node.left.left) < height(node.left.right)) {
+                node.left = rotateLeft(node.left);
+            }
+            return rotateRight(node);
+        }
+        if (factor < -1) {
+            if (height(node.right.right) < height(node.right.left)) {
+                node.right = rotateRight(node.right);
+            }
+            return rotateLeft(node);
+        }
+        return node;
+    }
+
+    private Node rotateRight(Node node) {
+        Node left = node.left;
+        node.left = left.right;
+        left.right = node;
+        update(node);
+        update(left);
+        return left;
+    }
+
+    private Node rotateLeft(Node node) {
+        Node right = node.right;
+        node.right = right.left;
+        right.left = node;
+        update(node);
+        update(right);
+        return right;
+    }
+
+    private void update(Node node) {
+        node.height = 1 + Math.max(height(node.left), height(node.right));
+        LocalDateTime maxEnd = node.end;
+        if (node.left != null && node.left.maxEnd.isAfter(maxEnd)) {
+            maxEnd = node.left.maxEnd;
+        }
+        if (node.right != null && node.right.maxEnd.isAfter(maxEnd)) {
+            maxEnd = node.right.maxEnd;
+        }
+        node.maxEnd = maxEnd;
+
+        node.minStart = (node.left == null) ? node.start : node.left.minStart;
+        long maxGap = Long.MIN_VALUE;
+        if (node.left != null) {
+            maxGap = Math.max(node.left.maxGap, gap(node.left.maxEnd, node.start));
+        }
+        if (node.right != null) {
+            maxGap = Math.max(maxGap, Math.max(node.right.maxGap, gap(node.end, node.right.minStart)));
+        }
+        node.maxGap = maxGap;
+    }
+
+    private int height(Node node) {
+        return (node == null) ? 0 : node.height;
+    }
+
+    // Симметричный обход по стеку: в стек попадают только узлы, которые могут подойти.
+    // to == null - без правой границы; без isOverlap берутся задачи с началом строго позже from.
+    private class RangeIterator implements Iterator<Task> {
+        private final LocalDateTime from;
+        private final LocalDateTime to;
+        private final boolean isOverlap;
+        private final Deque<Node> stack = new ArrayDeque<>();
+        private Task next;
+
+        private RangeIterator(LocalDateTime from, LocalDateTime to, boolean isOverlap) {
+            this.from = from;
+            this.to = to;
+            this.isOverlap = isOverlap;
+            descend(root);
+            advance();
+        }
+
+        @Override
+        public boolean hasNext() {
+            return next != null;
+        }
+
+        @Override
+        public Task next() {
+            if (next == null) {
+                throw new NoSuchElementException();
+            }
+            Task current = next;
+            advance();
+            return current;
+        }
+
+        private void descend(Node node) {
+            while (node != null) {
+                if (isOverlap && !node.maxEnd.isAfter(from)) {
+                    return;
+                }
+                if (to != null && !node.start.isBefore(to)) {
+                    node = node.left;
+                } else if (!isOverlap && !node.start.isAfter(from)) {
+                    node = node.right;
+                } else {
+                    stack.push(node);
+                    node = node.left;
+                }
+            }
+        }
+
+        private void advance() {
+            next = null;
+            while (!stack.isEmpty()) {
+                Node node = stack.pop();
+                descend(node.right);
+                if (!isOverlap || node.end.isAfter(from)) {
+                    next = node.task;
+                    return;
+                }
+            }
+        }
+    }
+
+    private static class Node {
+        private final Task task;
+        private final int id;
+        private final LocalDateTime start;
+        private final LocalDateTime end;
+        private LocalDateTime maxEnd;
+        private LocalDateTime minStart;
+        // Наибольший промежуток между соседними интервалами поддерева; MIN_VALUE, если интервал один.
+        private long maxGap = Long.MIN_VALUE;
+        private int height = 1;
+        private Node left;
+        private Node right;
+
+        private Node(int id, Task task) {
+            this.task = task;
+            this.id = id;
+            this.start = task.getStartTime();
+            this.end = task.getEndTime();
+            this.maxEnd = this.end;
+            this.minStart = this.start;
+        }
+    }
+}
@@ -0,0 +1,130 @@
+package managers;
+
+import java.util.Arrays;
+
+// Таблица с ключами long без упаковки, устроенная так же, как IntObjectMap:
+// два массива, линейное пробирование и удаление сдвигом цепочки, null в качестве
+// значения не допускается. Только операции по ключу, без представлений Map.
+class LongObjectMap<V> {
+    private static final int MIN_CAPACITY = 16;
+
+    private long[] keys;
+    private Object[] values;
+    private int mask;
+    private int size = 0;
+    // Расширение при заполнении больше чем на 3/4.
+    private int threshold;
+
+    LongObjectMap() {
+        allocate(MIN_CAPACITY);
+    }
+
+    V get(long key) {
+        int position = find(key);
+        return (position < 0) ? null : value(position);
+    }
+
+    V put(long key, V value) {
+        if (value == null) {
+            throw new NullPointerException("Значение не может быть null!");
+        }
+        int position = hash(key) & mask;
+        while (values[position] != null) {
+            if (keys[position] == key) {
+                V oldValue = value(position);
+                values[position] = value;
+                return oldValue;
+            }
+            position = (position + 1) & mask;
+        }
+        keys[position] = key;
+        values[position] = value;
+        if (++size > threshold) {
+            allocate(keys.length * 2);
+        }
+        return null;
+    }
+
+    V remove(long key) {
+        int position = find(key);
+        if (position < 0) {
+            return null;
+        }
+        V oldValue = value(position);
+        delete(position);
+        return oldValue;
+    }
+
+    int size() {
+        return size;
+    }
+
+    void clear() {
+        Arrays.fill(values, null);
+        size = 0;
+    }
+
+    @SuppressWarnings("unchecked")
+    private V value(int position) {
+        return (V) values[position];
+    }
+
+    private int find(long key) {
+        int position = hash(key) & mask;
+        while (values[position] != null) {
+            if (keys[position] == key) {
+                return position;
+            }
+            position = (position + 1) & mask;
+        }
+        return -1;
+    }
+
+    // Удаление со сдвигом: следующие элементы цепочки подтягиваются в дыру.
+    private void delete(int position) {
+        int gap = position;
+        int current = position;
+        while (true) {
+            current = (current + 1) & mask;
+            if (values[current] == null) {
+                break;
+            }
+            int home = hash(keys[current]) & mask;
+            if (((current - home) & mask) >= ((current - gap) & mask)) {
+                keys[gap] = keys[current];
+                values[gap] = values[current];
+                gap = current;
+            }
+        }
+        values[gap] = null;
+        size--;
+    }
+
+    private void allocate(int capacity) {
+        long[] oldKeys = keys;
+        Object[] oldValues = values;
+        keys = new long[capacity];
+        values = new Object[capacity];
+        mask = capacity - 1;
+        threshold = capacity / 4 * 3;
+        if (oldValues == null) {
+            return;
+        }
+        for (int i = 0; i < oldValues.length; i++) {
+            if (oldValues[i] != null) {
+                int position = hash(oldKeys[i]) & mask;
+                while (values[position] != null) {
+                    position = (position + 1) & mask;
+                }
+                keys[position] = oldKeys[i];
+                values[position] = oldValues[i];
+            }
+        }
+    }
+
+    // Ключи-тройки отличаются в основном младшими битами каждого символа,
+    // поэтому биты перемешиваются умножением (хэширование Фибоначчи).
+    private static int hash(long key) {
+        return (int) ((key * 0x9E3779B97F4A7C15L) >>> 32);
+    }
+}
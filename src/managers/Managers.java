@@ -1,11 +1,33 @@
 package managers;
 
+import java.time.Clock;
+import java.time.Duration;
+
 public class Managers {
     public static TaskManager getDefault() {
         return new FileBackedTasksManager("resources/tasks.csv");
     }
 
+    // Для одновременного доступа из многих потоков без внешней блокировки.
+    public static TaskManager getConcurrent() {
+        return new ConcurrentTaskManager();
+    }
+
     public static HistoryManager getDefaultHistory() {
         return new InMemoryHistoryManager();
     }
+
+    // Ограниченная история: хранится не более capacity последних просмотров.
+    public static HistoryManager getDefaultHistory(int capacity) {
+        return new InMemoryHistoryManager(capacity);
+    }
+
+    public static HistoryManager getDefaultHistory(int capacity, Duration timeToLive) {
+        return new InMemoryHistoryManager(capacity, timeToLive, Clock.systemUTC());
+    }
+
+    // История на массивах номеров задач: в разы меньше памяти на длинной истории.
+    public static HistoryManager getCompactHistory() {
+        return new ArrayHistoryManager();
+    }
 }
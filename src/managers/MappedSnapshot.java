@@ -0,0 +1,242 @@
+package managers;
+
+import tasks.Task;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDateTime;
+import java.util.Arrays;
+import java.util.zip.CRC32;
+
+// Двоичный снимок, отображённый в память. При открытии строится только индекс
+// id -> смещение записи, сами задачи декодируются по запросу.
+public class MappedSnapshot {
+    private final ByteBuffer buffer;
+    // Индекс отсортирован по id.
+    private final int[] ids;
+    private final int[] offsets;
+    private final byte[] types;
+    private final int[] epicIds;
+    // Подзадачи эпика: subtasksOfEpic[subtaskStarts[i]..subtaskStarts[i + 1]) для эпика с индексом i.
+    private final int[] subtaskStarts;
+    private final int[] subtasksOfEpic;
+    private final int[] history;
+
+    private MappedSnapshot(ByteBuffer buffer) {
+        this.buffer = buffer;
+        checkHeader();
+
+        int count = readVarInt(buffer);
+        int[] fileIds = new int[count];
+        int[] fileOffsets = new int[count];
+        byte[] fileTypes = new byte[count];
+        int[] fileEpicIds = new int[count];
+        for (int i = 0; i < count; i++) {
+            fileOffsets[i] = buffer.position();
+            fileIds[i] = readVarInt(buffer);
+            fileTypes[i] = buffer.get();
+            buffer.get();
+            if (BinarySerializator.TYPES[fileTypes[i]] == TypeTask.SUBTASK) {
+                fileEpicIds[i] = readVarInt(buffer);
+            }
+            readVarLong(buffer);
+            readVarLong(buffer);
+            skipString(buffer);
+            skipString(buffer);
+        }
+        this.history = new int[readVarInt(buffer)];
+        for (int i = 0; i < history.length; i++) {
+            history[i] = readVarInt(buffer);
+        }
+
+        // Сортировка по id через упакованные пары (id, позиция в файле).
+        long[] order = new long[count];
+        for (int i = 0; i < count; i++) {
+            order[i] = ((long) fileIds[i] << 32) | i;
+        }
+        Arrays.sort(order);
+        this.ids = new int[count];
+        this.offsets = new int[count];
+        this.types = new byte[count];
+        this.epicIds = new int[count];
+        for (int i = 0; i < count; i++) {
+            int position = (int) order[i];
+            ids[i] = fileIds[position];
+            offsets[i] = fileOffsets[position];
+            types[i] = fileTypes[position];
+            epicIds[i] = fileEpicIds[position];
+        }
+
+        this.subtaskStarts = new int[count + 1];
+        int subtaskCount = 0;
+        for (int i = 0; i < count; i++) {
+            int epicIndex = epicIndexOf(i);
+            if (epicIndex >= 0) {
+                subtaskStarts[epicIndex + 1]++;
+                subtaskCount++;
+            }
+        }
+        for (int i = 0; i < count; i++) {
+            subtaskStarts[i + 1] += subtaskStarts[i];
+        }
+        this.subtasksOfEpic = new int[subtaskCount];
+        int[] next = Arrays.copyOf(subtaskStarts, count);
+        for (int i = 0; i < count; i++) {
+            int epicIndex = epicIndexOf(i);
+            if (epicIndex >= 0) {
+                subtasksOfEpic[next[epicIndex]++] = i;
+            }
+        }
+    }
+
+    public static MappedSnapshot open(String fileName) {
+        Path path = Paths.get(fileName);
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            long size = channel.size();
+            if (size > Integer.MAX_VALUE) {
+                throw new ManagerSaveException("Снимок слишком велик для отображения в память: " + fileName);
+            }
+            // Отображение остаётся доступным и после закрытия канала.
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, size);
+            return new MappedSnapshot(buffer);
+        } catch (IOException e) {
+            throw new ManagerSaveException(e.getMessage());
+        } catch (RuntimeException e) {
+            if (e instanceof ManagerSaveException) {
+                throw e;
+            }
+            throw new ManagerSaveException("Повреждённый снимок: " + fileName);
+        }
+    }
+
+    public int size() {
+        return ids.length;
+    }
+
+    public int maxId() {
+        return (ids.length == 0) ? 0 : ids[ids.length - 1];
+    }
+
+    public int[] getHistory() {
+        return history;
+    }
+
+    // Индекс задачи или отрицательное число, если такого id в снимке нет.
+    public int indexOf(int id) {
+        return Arrays.binarySearch(ids, id);
+    }
+
+    public int idAt(int index) {
+        return ids[index];
+    }
+
+    public TypeTask typeAt(int index) {
+        return BinarySerializator.TYPES[types[index]];
+    }
+
+    public int epicIdAt(int index) {
+        return epicIds[index];
+    }
+
+    public int[] subtaskIndexes(int epicIndex) {
+        return Arrays.copyOfRange(subtasksOfEpic, subtaskStarts[epicIndex], subtaskStarts[epicIndex + 1]);
+    }
+
+    public Task decode(int index) {
+        ByteBuffer record = buffer.duplicate();
+        record.position(offsets[index]);
+        int id = readVarInt(record);
+        TypeTask type = BinarySerializator.TYPES[record.get()];
+        StatusTask status = BinarySerializator.STATUSES[record.get()];
+        int epicId = (type == TypeTask.SUBTASK) ? readVarInt(record) : 0;
+        LocalDateTime startTime = BinarySerializator.fromEpochMinute(
+                BinarySerializator.unZigZag(readVarLong(record)));
+        long duration = readVarLong(record);
+        String name = readString(record);
+        String description = readString(record);
+        return BinarySerializator.newTask(id, type, status, epicId, startTime, duration, name, description);
+    }
+
+    private int epicIndexOf(int index) {
+        if (typeAt(index) != TypeTask.SUBTASK) {
+            return -1;
+        }
+        int epicIndex = indexOf(epicIds[index]);
+        if (epicIndex < 0 || typeAt(epicIndex) != TypeTask.EPIC) {
+            throw new ManagerSaveException(String.format("Эпик с номером [%d] не существует!", epicIds[index]));
+        }
+        return epicIndex;
+    }
+
+    private void checkHeader() {
+        int length = buffer.limit();
+        if (length < BinarySerializator.MAGIC.length + 1 + Integer.BYTES) {
+            throw new ManagerSaveException("Файл не является двоичным снимком задач!");
+        }
+        for (int i = 0; i < BinarySerializator.MAGIC.length; i++) {
+            if (buffer.get() != BinarySerializator.MAGIC[i]) {
+                throw new ManagerSaveException("Файл не является двоичным снимком задач!");
+            }
+        }
+        int version = buffer.get() & 0xFF;
+        if (version != BinarySerializator.VERSION) {
+            throw new ManagerSaveException("Неподдерживаемая версия снимка: " + version);
+        }
+
+        CRC32 crc = new CRC32();
+        ByteBuffer content = buffer.duplicate();
+        content.position(0).limit(length - Integer.BYTES);
+        crc.update(content);
+        if ((int) crc.getValue() != buffer.getInt(length - Integer.BYTES)) {
+            throw new ManagerSaveException("Контрольная сумма снимка не совпадает!");
+        }
+        buffer.limit(length - Integer.BYTES);
+    }
+
+    private static int readVarInt(ByteBuffer buffer) {
+        int value = 0;
+        for (int shift = 0; shift < 35; shift += 7) {
+            int b = buffer.get() & 0xFF;
+            value |= (b & 0x7F) << shift;
+            if ((b & 0x80) == 0) {
+                return value;
+            }
+        }
+        throw new ManagerSaveException("Повреждённое число в снимке!");
+    }
+
+    private static long readVarLong(ByteBuffer buffer) {
+        long value = 0;
+        for (int shift = 0; shift < 70; shift += 7) {
+            int b = buffer.get() & 0xFF;
+            value |= (long) (b & 0x7F) << shift;
+            if ((b & 0x80) == 0) {
+                return value;
+            }
+        }
+        throw new ManagerSaveException("Повреждённое число в снимке!");
+    }
+
+    private static void skipString(ByteBuffer buffer) {
+        int length = readVarInt(buffer);
+        if (length > 0) {
+            buffer.position(buffer.position() + length - 1);
+        }
+    }
+
+    private static String readString(ByteBuffer buffer) {
+        int length = readVarInt(buffer);
+        if (length == 0) {
+            return null;
+        }
+        byte[] bytes = new byte[length - 1];
+        buffer.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+}
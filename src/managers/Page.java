@@ -0,0 +1,51 @@
+package managers;
+
+import tasks.Task;
+
+import java.util.List;
+
+// Страница задач по возрастанию номера. Токен продолжения - номер последней задачи
+// страницы: следующая страница начинается сразу после него, поэтому созданные
+// и удалённые между запросами задачи не сдвигают уже выданные страницы.
+public class Page<T extends Task> {
+    private final List<T> items;
+    private final String nextToken;
+
+    Page(List<T> items, String nextToken) {
+        this.items = items;
+        this.nextToken = nextToken;
+    }
+
+    public List<T> getItems() {
+        return items;
+    }
+
+    // null, если страница последняя.
+    public String getNextToken() {
+        return nextToken;
+    }
+
+    public boolean hasNext() {
+        return nextToken != null;
+    }
+
+    static String token(int lastId) {
+        return Integer.toString(lastId);
+    }
+
+    // Номер, с которого начинается страница; null - первая страница.
+    static int firstId(String token) {
+        if (token == null) {
+            return Integer.MIN_VALUE;
+        }
+        try {
+            int lastId = Integer.parseInt(token);
+            if (lastId == Integer.MAX_VALUE) {
+                throw new IllegalArgumentException("Неверный токен страницы: " + token);
+            }
+            return lastId + 1;
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Неверный токен страницы: " + token);
+        }
+    }
+}
@@ -0,0 +1,71 @@
+package managers;
+
+// Политика записи на диск для FileBackedTasksManager.
+// IMMEDIATE - изменения пишутся после каждой изменяющей операции;
+// BATCHED - изменения копятся и пишутся раз в maxPendingOperations операций
+// или не позже чем через flushIntervalMillis мс после прошлой записи, даже если
+// новых операций нет (тогда запись делает фоновый поток менеджера);
+// FSYNC - как IMMEDIATE, но каждая запись дополнительно сбрасывается на устройство;
+// ASYNC - записи журнала передаются фоновому потоку через очередь из queueCapacity мест.
+// Просмотры задач только помечают историю изменённой и диск не трогают: в режиме
+// BATCHED история попадёт на диск с фоновой записью, в остальных режимах - со следующей
+// изменяющей операцией, flush() или close(). При сбое до этого просмотры теряются.
+// Ошибка фоновой записи выбрасывается следующему вызову flush() или изменяющей операции.
+public class PersistencePolicy {
+    private final Durability durability;
+    private final int maxPendingOperations;
+    private final long flushIntervalMillis;
+    private final int queueCapacity;
+    private final boolean isSync;
+
+    private PersistencePolicy(Durability durability, int maxPendingOperations, long flushIntervalMillis,
+                              int queueCapacity, boolean isSync) {
+        this.durability = durability;
+        this.maxPendingOperations = maxPendingOperations;
+        this.flushIntervalMillis = flushIntervalMillis;
+        this.queueCapacity = queueCapacity;
+        this.isSync = isSync;
+    }
+
+    public static PersistencePolicy immediate() {
+        return new PersistencePolicy(Durability.IMMEDIATE, 1, 0, 0, false);
+    }
+
+    public static PersistencePolicy batched(int maxPendingOperations, long flushIntervalMillis) {
+        if (maxPendingOperations < 1 || flushIntervalMillis < 0) {
+            throw new IllegalArgumentException("Неверные параметры групповой записи!");
+        }
+        return new PersistencePolicy(Durability.BATCHED, maxPendingOperations, flushIntervalMillis, 0, false);
+    }
+
+    public static PersistencePolicy fsync() {
+        return new PersistencePolicy(Durability.FSYNC, 1, 0, 0, true);
+    }
+
+    public static PersistencePolicy async(int queueCapacity, boolean isSync) {
+        if (queueCapacity < 1) {
+            throw new IllegalArgumentException("Неверный размер очереди записи!");
+        }
+        return new PersistencePolicy(Durability.ASYNC, 1, 0, queueCapacity, isSync);
+    }
+
+    public Durability getDurability() {
+        return durability;
+    }
+
+    public int getMaxPendingOperations() {
+        return maxPendingOperations;
+    }
+
+    public long getFlushIntervalMillis() {
+        return flushIntervalMillis;
+    }
+
+    public int getQueueCapacity() {
+        return queueCapacity;
+    }
+
+    public boolean isSync() {
+        return isSync;
+    }
+}
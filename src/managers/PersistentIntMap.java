@@ -0,0 +1,420 @@
+package managers;
+
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Set;
+import java.util.Spliterator;
+import java.util.function.Consumer;
+
+// Неизменяемая таблица с ключами int - префиксное дерево с битовыми масками (HAMT).
+// plus и minus возвращают новую таблицу за O(log32 n), копируя только путь от корня
+// до изменённого узла; остальные узлы общие со старой версией, поэтому старая версия
+// остаётся целой и её можно обходить параллельно с изменениями.
+// Ключ разбирается по 5 бит начиная со старших, поэтому обход идёт по возрастанию ключа.
+public final class PersistentIntMap<V> extends AbstractMap<Integer, V> {
+    private static final int LAST_LEVEL = 6;
+    private static final PersistentIntMap<?> EMPTY = new PersistentIntMap<>(null, 0);
+
+    private final Node root;
+    private final int size;
+    private Set<Entry<Integer, V>> entrySet;
+
+    private PersistentIntMap(Node root, int size) {
+        this.root = root;
+        this.size = size;
+    }
+
+    @SuppressWarnings("unchecked")
+    public static <V> PersistentIntMap<V> empty() {
+        return (PersistentIntMap<V>) EMPTY;
+    }
+
+    public V get(int key) {
+        Node node = root;
+        for (int level = 0; node != null; level++) {
+            int bit = 1 << chunk(key, level);
+            if ((node.bitmap & bit) == 0) {
+                return null;
+            }
+            Object slot = node.slots[Integer.bitCount(node.bitmap & (bit - 1))];
+            if (slot instanceof Leaf) {
+                Leaf<?> leaf = (Leaf<?>) slot;
+                return (leaf.key == key) ? value(leaf) : null;
+            }
+            node = (Node) slot;
+        }
+        return null;
+    }
+
+    public boolean containsKey(int key) {
+        return get(key) != null;
+    }
+
+    // null в качестве значения не допускается.
+    public PersistentIntMap<V> plus(int key, V value) {
+        if (value == null) {
+            throw new NullPointerException("Значение не может быть null!");
+        }
+        boolean[] isAdded = new boolean[1];
+        Node newRoot = (root == null) ? leafNode(new Leaf<>(key, value), 0) : put(root, 0, key, value, isAdded);
+        if (newRoot == root) {
+            return this;
+        }
+        return new PersistentIntMap<>(newRoot, (root == null || isAdded[0]) ? size + 1 : size);
+    }
+
+    public PersistentIntMap<V> minus(int key) {
+        if (root == null || !containsKey(key)) {
+            return this;
+        }
+        Object newRoot = remove(root, 0, key);
+        if (newRoot instanceof Leaf) {
+            newRoot = leafNode((Leaf<?>) newRoot, 0);
+        }
+        return new PersistentIntMap<>((Node) newRoot, size - 1);
+    }
+
+    // Значения по возрастанию ключа.
+    public List<V> valuesList() {
+        List<V> values = new ArrayList<>(size);
+        for (Entry<Integer, V> entry : entrySet()) {
+            values.add(entry.getValue());
+        }
+        return values;
+    }
+
+    // Обход по возрастанию ключа, начиная с первого ключа не меньше from.
+    // Поиск начала стоит O(log32 n), память обхода не зависит от размера таблицы.
+    public Iterator<Entry<Integer, V>> iteratorFrom(int from) {
+        return new EntryIterator(root, from);
+    }
+
+    // Значения по возрастанию ключа. Разделение режет диапазон ячеек узла пополам,
+    // а когда ячейка одна - спускается в неё, поэтому годится для параллельных потоков.
+    public Spliterator<V> valuesSpliterator() {
+        return (root == null) ? new ValueSpliterator(new Object[0], 0, 0)
+                : new ValueSpliterator(new Object[]{root}, size, 1);
+    }
+
+    @Override
+    public V get(Object key) {
+        return (key instanceof Integer) ? get((int) (Integer) key) : null;
+    }
+
+    @Override
+    public boolean containsKey(Object key) {
+        return (key instanceof Integer) && containsKey((int) (Integer) key);
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    @Override
+    public Set<Entry<Integer, V>> entrySet() {
+        if (entrySet == null) {
+            entrySet = new AbstractSet<>() {
+                @Override
+                public Iterator<Entry<Integer, V>> iterator() {
+                    return new EntryIterator(root);
+                }
+
+                @Override
+                public int size() {
+                    return size;
+                }
+            };
+        }
+        return entrySet;
+    }
+
+    private Node put(Node node, int level, int key, V value, boolean[] isAdded) {
+        int bit = 1 << chunk(key, level);
+        int position = Integer.bitCount(node.bitmap & (bit - 1));
+        if ((node.bitmap & bit) == 0) {
+            isAdded[0] = true;
+            return node.insert(bit, position, new Leaf<>(key, value));
+        }
+        Object slot = node.slots[position];
+        if (slot instanceof Node) {
+            Node child = put((Node) slot, level + 1, key, value, isAdded);
+            return (child == slot) ? node : node.replace(position, child);
+        }
+        Leaf<?> leaf = (Leaf<?>) slot;
+        if (leaf.key == key) {
+            return (leaf.value == value) ? node : node.replace(position, new Leaf<>(key, value));
+        }
+        isAdded[0] = true;
+        return node.replace(position, merge(leaf, new Leaf<>(key, value), level + 1));
+    }
+
+    // Возвращает узел, лист (если в узле остался один лист) или null.
+    private Object remove(Node node, int level, int key) {
+        int bit = 1 << chunk(key, level);
+        int position = Integer.bitCount(node.bitmap & (bit - 1));
+        Object slot = node.slots[position];
+        Object newSlot = (slot instanceof Node) ? remove((Node) slot, level + 1, key) : null;
+        if (newSlot == null) {
+            if (node.slots.length == 1) {
+                return null;
+            }
+            Node rest = node.delete(bit, position);
+            if (rest.slots.length == 1 && rest.slots[0] instanceof Leaf) {
+                return rest.slots[0];
+            }
+            return rest;
+        }
+        if (newSlot instanceof Leaf && node.slots.length == 1) {
+            return newSlot;
+        }
+        return node.replace(position, newSlot);
+    }
+
+    private static Node merge(Leaf<?> first, Leaf<?> second, int level) {
+        int firstChunk = chunk(first.key, level);
+        int secondChunk = chunk(second.key, level);
+        if (firstChunk == secondChunk) {
+            return new Node(1 << firstChunk, new Object[]{merge(first, second, level + 1)});
+        }
+        Object[] slots = (firstChunk < secondChunk) ? new Object[]{first, second} : new Object[]{second, first};
+        return new Node((1 << firstChunk) | (1 << secondChunk), slots);
+    }
+
+    private static Node leafNode(Leaf<?> leaf, int level) {
+        return new Node(1 << chunk(leaf.key, level), new Object[]{leaf});
+    }
+
+    // Ключ со сдвинутым знаком, чтобы отрицательные ключи шли раньше положительных.
+    private static int chunk(int key, int level) {
+        int unsigned = key ^ Integer.MIN_VALUE;
+        if (level == LAST_LEVEL) {
+            return unsigned & 3;
+        }
+        return (unsigned >>> (27 - 5 * level)) & 31;
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <V> V value(Leaf<?> leaf) {
+        return (V) leaf.value;
+    }
+
+    private static final class Node {
+        private final int bitmap;
+        private final Object[] slots;
+
+        private Node(int bitmap, Object[] slots) {
+            this.bitmap = bitmap;
+            this.slots = slots;
+        }
+
+        private Node insert(int bit, int position, Object slot) {
+            Object[] newSlots = new Object[slots.length + 1];
+            System.arraycopy(slots, 0, newSlots, 0, position);
+            newSlots[position] = slot;
+            System.arraycopy(slots, position, newSlots, position + 1, slots.length - position);
+            return new Node(bitmap | bit, newSlots);
+        }
+
+        private Node replace(int position, Object slot) {
+            Object[] newSlots = slots.clone();
+            newSlots[position] = slot;
+            return new Node(bitmap, newSlots);
+        }
+
+        private Node delete(int bit, int position) {
+            Object[] newSlots = new Object[slots.length - 1];
+            System.arraycopy(slots, 0, newSlots, 0, position);
+            System.arraycopy(slots, position + 1, newSlots, position, slots.length - position - 1);
+            return new Node(bitmap & ~bit, newSlots);
+        }
+    }
+
+    private static final class Leaf<V> implements Entry<Integer, V> {
+        private final int key;
+        private final V value;
+
+        private Leaf(int key, V value) {
+            this.key = key;
+            this.value = value;
+        }
+
+        @Override
+        public Integer getKey() {
+            return key;
+        }
+
+        @Override
+        public V getValue() {
+            return value;
+        }
+
+        @Override
+        public V setValue(V value) {
+            throw new UnsupportedOperationException("Таблица неизменяемая!");
+        }
+
+        @Override
+        public boolean equals(Object obj) {
+            if (!(obj instanceof Entry)) {
+                return false;
+            }
+            Entry<?, ?> other = (Entry<?, ?>) obj;
+            return getKey().equals(other.getKey()) && value.equals(other.getValue());
+        }
+
+        @Override
+        public int hashCode() {
+            return Integer.hashCode(key) ^ value.hashCode();
+        }
+    }
+
+    // Обход в глубину по возрастанию индексов ячеек: стек узлов и позиций в них.
+    private class EntryIterator implements Iterator<Entry<Integer, V>> {
+        private final Node[] nodes = new Node[LAST_LEVEL + 1];
+        private final int[] positions = new int[LAST_LEVEL + 1];
+        private int depth;
+        private Leaf<V> next;
+
+        private EntryIterator(Node start) {
+            depth = (start == null) ? -1 : 0;
+            nodes[0] = start;
+            advance();
+        }
+
+        // Спуск по пути ключа from: в каждом узле позиция ставится на первую ячейку,
+        // которая может содержать ключи не меньше from.
+        private EntryIterator(Node start, int from) {
+            depth = (start == null) ? -1 : 0;
+            nodes[0] = start;
+            for (int level = 0; depth >= 0; level++) {
+                Node node = nodes[depth];
+                int bit = 1 << chunk(from, level);
+                int position = Integer.bitCount(node.bitmap & (bit - 1));
+                if ((node.bitmap & bit) == 0) {
+                    positions[depth] = position;
+                    break;
+                }
+                Object slot = node.slots[position];
+                if (slot instanceof Leaf) {
+                    positions[depth] = (((Leaf<?>) slot).key < from) ? position + 1 : position;
+                    break;
+                }
+                positions[depth] = position + 1;
+                depth++;
+                nodes[depth] = (Node) slot;
+            }
+            advance();
+        }
+
+        @Override
+        public boolean hasNext() {
+            return next != null;
+        }
+
+        @Override
+        public Entry<Integer, V> next() {
+            if (next == null) {
+                throw new NoSuchElementException();
+            }
+            Leaf<V> current = next;
+            advance();
+            return current;
+        }
+
+        @SuppressWarnings("unchecked")
+        private void advance() {
+            next = null;
+            while (depth >= 0) {
+                Node node = nodes[depth];
+                if (positions[depth] == node.slots.length) {
+                    positions[depth] = 0;
+                    depth--;
+                    continue;
+                }
+                Object slot = node.slots[positions[depth]++];
+                if (slot instanceof Leaf) {
+                    next = (Leaf<V>) slot;
+                    return;
+                }
+                depth++;
+                nodes[depth] = (Node) slot;
+                positions[depth] = 0;
+            }
+        }
+    }
+
+    private class ValueSpliterator implements Spliterator<V> {
+        private Object[] slots;
+        private int index;
+        private int end;
+        private long estimate;
+        private EntryIterator current;
+
+        private ValueSpliterator(Object[] slots, long estimate, int end) {
+            this.slots = slots;
+            this.estimate = estimate;
+            this.end = end;
+        }
+
+        @Override
+        public boolean tryAdvance(Consumer<? super V> action) {
+            while (true) {
+                if (current != null) {
+                    if (current.hasNext()) {
+                        action.accept(current.next().getValue());
+                        return true;
+                    }
+                    current = null;
+                }
+                if (index == end) {
+                    return false;
+                }
+                Object slot = slots[index++];
+                if (slot instanceof Leaf) {
+                    action.accept(value((Leaf<?>) slot));
+                    return true;
+                }
+                current = new EntryIterator((Node) slot);
+            }
+        }
+
+        // Возвращает начало диапазона, чтобы сохранялся порядок по возрастанию ключа.
+        @Override
+        public Spliterator<V> trySplit() {
+            if (current != null) {
+                return null;
+            }
+            if (end - index == 1 && slots[index] instanceof Node) {
+                slots = ((Node) slots[index]).slots;
+                index = 0;
+                end = slots.length;
+            }
+            if (end - index < 2) {
+                return null;
+            }
+            int middle = (index + end) >>> 1;
+            long prefixEstimate = estimate * (middle - index) / (end - index);
+            ValueSpliterator prefix = new ValueSpliterator(slots, prefixEstimate, middle);
+            prefix.index = index;
+            index = middle;
+            estimate -= prefixEstimate;
+            return prefix;
+        }
+
+        @Override
+        public long estimateSize() {
+            return estimate;
+        }
+
+        @Override
+        public int characteristics() {
+            return ORDERED | NONNULL | IMMUTABLE;
+        }
+    }
+}
@@ -0,0 +1,350 @@
+package managers;
+
+import tasks.Task;
+
+import java.time.LocalDateTime;
+import java.util.AbstractList;
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.ConcurrentModificationException;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+
+// Задачи по приоритету: ключ (startTime, id), поэтому задачи с одинаковым
+// временем начала не затирают друг друга. Задачи без продолжительности
+// хранятся отдельным сегментом и при обходе идут после задач со сроками.
+// Сегменты - AVL-деревья с размерами поддеревьев, поэтому и вставка, и
+// доступ к представлению по индексу занимают O(log n).
+public class PrioritizedTasks {
+    private static final Comparator<Entry> ORDER = Comparator.comparing((Entry entry) -> entry.startTime)
+            .thenComparingInt(entry -> entry.id);
+
+    private final Segment timed = new Segment();
+    private final Segment untimed = new Segment();
+    private final IntObjectMap<Entry> entriesById = new IntObjectMap<>();
+    private final View view = new View();
+    private int modCount = 0;
+
+    public void add(Task task) {
+        remove(task.getId());
+        Entry entry = new Entry(task);
+        segment(entry).add(entry);
+        entriesById.putInt(entry.id, entry);
+        modCount++;
+    }
+
+    // Пустые сегменты строятся сразу сбалансированными из отсортированного массива: O(n log n) на сортировку
+    // и O(n) на построение вместо поочерёдных вставок с поворотами.
+    public void addAll(Collection<Task> tasks) {
+        if (!entriesById.isEmpty()) {
+            for (Task task : tasks) {
+                add(task);
+            }
+            return;
+        }
+        Entry[] entries = new Entry[tasks.size()];
+        int timedCount = 0;
+        int i = 0;
+        for (Task task : tasks) {
+            Entry entry = new Entry(task);
+            entries[i++] = entry;
+            entriesById.putInt(entry.id, entry);
+            if (entry.isTimed) {
+                timedCount++;
+            }
+        }
+        if (entriesById.size() != entries.length) {
+            // Повторяющиеся id: последняя версия задачи должна заменить предыдущие.
+            entriesById.clear();
+            for (Task task : tasks) {
+                add(task);
+            }
+            return;
+        }
+        Arrays.sort(entries, ORDER);
+        Entry[] timedEntries = new Entry[timedCount];
+        Entry[] untimedEntries = new Entry[entries.length - timedCount];
+        int timedIndex = 0;
+        int untimedIndex = 0;
+        for (Entry entry : entries) {
+            if (entry.isTimed) {
+                timedEntries[timedIndex++] = entry;
+            } else {
+                untimedEntries[untimedIndex++] = entry;
+            }
+        }
+        timed.build(timedEntries);
+        untimed.build(untimedEntries);
+        modCount++;
+    }
+
+    public void remove(int id) {
+        Entry entry = entriesById.remove(id);
+        if (entry != null) {
+            segment(entry).remove(entry);
+            modCount++;
+        }
+    }
+
+    public void clear() {
+        timed.clear();
+        untimed.clear();
+        entriesById.clear();
+        modCount++;
+    }
+
+    public int size() {
+        return entriesById.size();
+    }
+
+    // Живое представление только для чтения: не копирует задачи при каждом вызове,
+    // get(index) спускается по размерам поддеревьев за O(log n).
+    public List<Task> view() {
+        return view;
+    }
+
+    private Segment segment(Entry entry) {
+        return entry.isTimed ? timed : untimed;
+    }
+
+    private static class Entry {
+        private final LocalDateTime startTime;
+        private final int id;
+        private final boolean isTimed;
+        private final Task task;
+
+        private Entry(Task task) {
+            this.startTime = task.getStartTime();
+            this.id = task.getId();
+            this.isTimed = task.getDuration() != 0;
+            this.task = task;
+        }
+    }
+
+    // AVL-дерево порядковых статистик: каждый узел хранит размер своего поддерева.
+    private static class Segment {
+        private Node root = null;
+
+        int size() {
+            return size(root);
+        }
+
+        void add(Entry entry) {
+            root = insert(root, new Node(entry));
+        }
+
+        void remove(Entry entry) {
+            root = delete(root, entry);
+        }
+
+        void clear() {
+            root = null;
+        }
+
+        void build(Entry[] entries) {
+            Node[] nodes = new Node[entries.length];
+            for (int i = 0; i < entries.length; i++) {
+                nodes[i] = new Node(entries[i]);
+            }
+            root = build(nodes, 0, nodes.length - 1);
+        }
+
+        Entry get(int index) {
+            Node node = root;
+            while (true) {
+                int leftSize = size(node.left);
+                if (index < leftSize) {
+                    node = node.left;
+                } else if (index > leftSize) {
+                    index -= leftSize + 1;
+                    node = node.right;
+                } else {
+                    return node.entry;
+                }
+            }
+        }
+
+        private Node build(Node[] nodes, int from, int to) {
+            if (from > to) {
+                return null;
+            }
+            int middle = (from + to) >>> 1;
+            Node node = nodes[middle];
+            node.left = build(nodes, from, middle - 1);
+            node.right = build(nodes, middle + 1, to);
+            update(node);
+            return node;
+        }
+
+        private Node insert(Node node, Node newNode) {
+            if (node == null) {
+                return newNode;
+            }
+            if (ORDER.compare(newNode.entry, node.entry) < 0) {
+                node.left = insert(node.left, newNode);
+            } else {
+                node.right = insert(node.right, newNode);
+            }
+            return balance(node);
+        }
+
+        private Node delete(Node node, Entry entry) {
+            if (node == null) {
+                return null;
+            }
+            int cmp = ORDER.compare(entry, node.entry);
+            if (cmp < 0) {
+                node.left = delete(node.left, entry);
+            } else if (cmp > 0) {
+                node.right = delete(node.right, entry);
+            } else {
+                if (node.left == null) {
+                    return node.right;
+                }
+                if (node.right == null) {
+                    return node.left;
+                }
+                Node successor = node.right;
+                while (successor.left != null) {
+                    successor = successor.left;
+                }
+                successor.right = deleteMin(node.right);
+                successor.left = node.left;
+                return balance(successor);
+            }
+            return balance(node);
+        }
+
+        private Node deleteMin(Node node) {
+            if (node.left == null) {
+                return node.right;
+            }
+            node.left = deleteMin(node.left);
+            return balance(node);
+        }
+
+        private Node balance(Node node) {
+            update(node);
+            int factor = height(node.left) - height(node.right);
+            if (factor > 1) {
+                if (height(node.left.left) < height(node.left.right)) {
+                    node.left = rotateLeft(node.left);
+                }
+                return rotateRight(node);
+            }
+            if (factor < -1) {
+                if (height(node.right.right) < height(node.right.left)) {
+                    node.right = rotateRight(node.right);
+                }
+                return rotateLeft(node);
+            }
+            return node;
+        }
+
+        private Node rotateRight(Node node) {
+            Node left = node.left;
+            node.left = left.right;
+            left.right = node;
+            update(node);
+            update(left);
+            return left;
+        }
+
+        private Node rotateLeft(Node node) {
+            Node right = node.right;
+            node.right = right.left;
+            right.left = node;
+            update(node);
+            update(right);
+            return right;
+        }
+
+        private static void update(Node node) {
+            node.height = 1 + Math.max(height(node.left), height(node.right));
+            node.size = 1 + size(node.left) + size(node.right);
+        }
+
+        private static int height(Node node) {
+            return (node == null) ? 0 : node.height;
+        }
+
+        private static int size(Node node) {
+            return (node == null) ? 0 : node.size;
+        }
+    }
+
+    private static class Node {
+        private final Entry entry;
+        private int height = 1;
+        private int size = 1;
+        private Node left;
+        private Node right;
+
+        private Node(Entry entry) {
+            this.entry = entry;
+        }
+    }
+
+    private class View extends AbstractList<Task> {
+        @Override
+        public Task get(int index) {
+            if (index < 0 || index >= size()) {
+                throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + size());
+            }
+            int timedSize = timed.size();
+            return (index < timedSize) ? timed.get(index).task : untimed.get(index - timedSize).task;
+        }
+
+        @Override
+        public int size() {
+            return timed.size() + untimed.size();
+        }
+
+        // Симметричный обход обоих сегментов по стеку, без спуска от корня на каждом шаге.
+        @Override
+        public Iterator<Task> iterator() {
+            return new Iterator<>() {
+                private final Deque<Node> stack = new ArrayDeque<>();
+                private final int expectedModCount = modCount;
+                private boolean isUntimed = false;
+
+                {
+                    descend(timed.root);
+                }
+
+                @Override
+                public boolean hasNext() {
+                    if (stack.isEmpty() && !isUntimed) {
+                        isUntimed = true;
+                        descend(untimed.root);
+                    }
+                    return !stack.isEmpty();
+                }
+
+                @Override
+                public Task next() {
+                    if (modCount != expectedModCount) {
+                        throw new ConcurrentModificationException();
+                    }
+                    if (!hasNext()) {
+                        throw new NoSuchElementException();
+                    }
+                    Node node = stack.pop();
+                    descend(node.right);
+                    return node.entry.task;
+                }
+
+                private void descend(Node node) {
+                    while (node != null) {
+                        stack.push(node);
+                        node = node.left;
+                    }
+                }
+            };
+        }
+    }
+}
@@ -0,0 +1,14 @@
+package managers;
+
+import tasks.Task;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+
+// Проверки расписания, на которые опирается пакетное создание задач (BatchResult).
+interface Schedule {
+    // Задача, период которой пересекается с [startTime, endTime), кроме idForUpdateTask; null, если такой нет.
+    Task findOverlap(LocalDateTime startTime, LocalDateTime endTime, Integer idForUpdateTask);
+
+    LocalDateTime findFreeSlot(Duration duration, LocalDateTime notBefore);
+}
@@ -0,0 +1,25 @@
+package managers;
+
+import tasks.Task;
+
+import java.util.List;
+
+// Содержимое снимка: задачи в порядке записи (эпики раньше своих подзадач)
+// и id из истории просмотров от последнего к первому.
+public class SnapshotData {
+    private final List<Task> tasks;
+    private final int[] history;
+
+    public SnapshotData(List<Task> tasks, int[] history) {
+        this.tasks = tasks;
+        this.history = history;
+    }
+
+    public List<Task> getTasks() {
+        return tasks;
+    }
+
+    public int[] getHistory() {
+        return history;
+    }
+}
@@ -0,0 +1,22 @@
+package managers;
+
+import tasks.Task;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+public interface SnapshotSerializator {
+    void write(OutputStream out, List<Task> tasks, List<Task> history) throws IOException;
+
+    SnapshotData read(InputStream in) throws IOException;
+
+    default SnapshotData read(Path file) throws IOException {
+        try (InputStream in = Files.newInputStream(file)) {
+            return read(in);
+        }
+    }
+}
@@ -0,0 +1,117 @@
+package managers;
+
+import tasks.Task;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+
+// Вторичный индекс задач по типу и статусу. Для каждой пары хранится плотный массив
+// задач: удаление переставляет последнюю задачу на место удалённой, поэтому изменения
+// стоят O(1), подсчёт - O(1), а выборка - пропорционально её размеру.
+// Статус задачи, изменённой на месте, учитывается при следующем put.
+public class StatusIndex {
+    private static final int STATUSES = StatusTask.values().length;
+
+    private final Task[][] buckets = new Task[TypeTask.values().length * STATUSES][];
+    private final int[] sizes = new int[buckets.length];
+    // Номер задачи -> её ячейка в индексе.
+    private final IntObjectMap<Slot> slots = new IntObjectMap<>();
+
+    public StatusIndex() {
+        Arrays.fill(buckets, new Task[0]);
+    }
+
+    // Добавляет задачу или переносит её в ячейку нового статуса.
+    public void put(Task task) {
+        int bucket = bucket(task.getType(), task.getStatus());
+        Slot slot = slots.get(task.getId());
+        if (slot != null) {
+            if (slot.bucket == bucket) {
+                buckets[bucket][slot.position] = task;
+                return;
+            }
+            detach(slot);
+        } else {
+            slot = new Slot();
+            slots.putInt(task.getId(), slot);
+        }
+        if (sizes[bucket] == buckets[bucket].length) {
+            buckets[bucket] = Arrays.copyOf(buckets[bucket], Math.max(8, sizes[bucket] * 2));
+        }
+        slot.bucket = bucket;
+        slot.position = sizes[bucket]++;
+        buckets[bucket][slot.position] = task;
+    }
+
+    public void remove(int id) {
+        Slot slot = slots.remove(id);
+        if (slot != null) {
+            detach(slot);
+        }
+    }
+
+    public void clear() {
+        Arrays.fill(buckets, new Task[0]);
+        Arrays.fill(sizes, 0);
+        slots.clear();
+    }
+
+    // Задачи данного типа и статуса; порядок не определён.
+    public List<Task> get(TypeTask type, StatusTask status) {
+        int bucket = bucket(type, status);
+        return new ArrayList<>(Arrays.asList(buckets[bucket]).subList(0, sizes[bucket]));
+    }
+
+    public List<Task> get(StatusTask status) {
+        List<Task> result = new ArrayList<>(count(status));
+        for (TypeTask type : TypeTask.values()) {
+            int bucket = bucket(type, status);
+            result.addAll(Arrays.asList(buckets[bucket]).subList(0, sizes[bucket]));
+        }
+        return result;
+    }
+
+    public int count(TypeTask type, StatusTask status) {
+        return sizes[bucket(type, status)];
+    }
+
+    public int count(StatusTask status) {
+        int count = 0;
+        for (TypeTask type : TypeTask.values()) {
+            count += sizes[bucket(type, status)];
+        }
+        return count;
+    }
+
+    // Число задач по каждому статусу, включая нулевые.
+    public Map<StatusTask, Integer> counts() {
+        Map<StatusTask, Integer> counts = new EnumMap<>(StatusTask.class);
+        for (StatusTask status : StatusTask.values()) {
+            counts.put(status, count(status));
+        }
+        return counts;
+    }
+
+    private void detach(Slot slot) {
+        Task[] bucket = buckets[slot.bucket];
+        int last = --sizes[slot.bucket];
+        if (slot.position != last) {
+            Task moved = bucket[last];
+            bucket[slot.position] = moved;
+            slots.get(moved.getId()).position = slot.position;
+        }
+        bucket[last] = null;
+    }
+
+    private static int bucket(TypeTask type, StatusTask status) {
+        return type.ordinal() * STATUSES + status.ordinal();
+    }
+
+    private static final class Slot {
+        private int bucket;
+        private int position;
+    }
+}
@@ -0,0 +1,180 @@
+package managers;
+
+import java.io.BufferedWriter;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.RandomAccessFile;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.List;
+
+// Журнал операций: каждая операция менеджера дописывается в конец файла
+// одной строкой. Полный снимок хранилища пишется только при компактизации.
+public class TaskJournal {
+    public static final String PUT = "P";
+    public static final String DELETE = "D";
+    public static final String VIEW = "V";
+    public static final String CLEAR = "C";
+    // Заголовок группы записей одной транзакции: число следующих за ним записей.
+    public static final String TRANSACTION = "T";
+
+    private final Path path;
+    private final Path segmentPath;
+    private FileOutputStream stream;
+    private BufferedWriter writer;
+    private int size;
+
+    public TaskJournal(String fileName, boolean isAppend) {
+        this.path = Paths.get(fileName);
+        this.segmentPath = Paths.get(fileName + ".old");
+        this.size = isAppend ? truncateTornRecord() : 0;
+        this.writer = open(isAppend);
+    }
+
+    public Path getSegmentPath() {
+        return segmentPath;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public void append(String record) {
+        try {
+            writer.write(record);
+            writer.write("\n");
+            size++;
+        } catch (IOException e) {
+            throw new ManagerSaveException(e.getMessage());
+        }
+    }
+
+    public void flush(boolean isSync) {
+        try {
+            writer.flush();
+            if (isSync) {
+                stream.getChannel().force(false);
+            }
+        } catch (IOException e) {
+            throw new ManagerSaveException(e.getMessage());
+        }
+    }
+
+    // Текущий журнал становится сегментом для компактизации, записи продолжаются в новый файл.
+    public Path rotate() {
+        try {
+            writer.close();
+            Files.move(path, segmentPath, StandardCopyOption.REPLACE_EXISTING);
+            writer = open(false);
+            size = 0;
+            return segmentPath;
+        } catch (IOException e) {
+            throw new ManagerSaveException(e.getMessage());
+        }
+    }
+
+    public void close() {
+        try {
+            writer.close();
+        } catch (IOException e) {
+            throw new ManagerSaveException(e.getMessage());
+        }
+    }
+
+    // Повреждённый заголовок группы считается пустой группой.
+    public static int parseGroupSize(String header) {
+        try {
+            return Math.max(Integer.parseInt(header.substring(TRANSACTION.length() + 1)), 0);
+        } catch (NumberFormatException e) {
+            return 0;
+        }
+    }
+
+    public static String record(String operation, String payload) {
+        return operation + "," + payload;
+    }
+
+    public static List<String> readRecords(Path file) {
+        List<String> records = new ArrayList<>();
+        if (!Files.exists(file)) {
+            return records;
+        }
+        try {
+            splitRecords(Files.readAllBytes(file), records, null);
+        } catch (IOException e) {
+            throw new ManagerSaveException(e.getMessage());
+        }
+        return records;
+    }
+
+    // Запись заканчивается переводом строки вне кавычек: поля по RFC 4180 могут содержать
+    // переводы строк. Кавычки и перевод строки однобайтовые и в UTF-8 не встречаются внутри
+    // других символов. Возвращает длину целых записей, оборванный при сбое хвост не разбирается.
+    // В starts, если он задан, попадают смещения начала записей.
+    private static int splitRecords(byte[] bytes, List<String> records, List<Integer> starts) {
+        boolean isQuoted = false;
+        int start = 0;
+        for (int i = 0; i < bytes.length; i++) {
+            if (bytes[i] == '"') {
+                isQuoted = !isQuoted;
+            } else if (bytes[i] == '\n' && !isQuoted) {
+                int end = (i > start && bytes[i - 1] == '\r') ? i - 1 : i;
+                if (end > start) {
+                    records.add(new String(bytes, start, end - start, StandardCharsets.UTF_8));
+                    if (starts != null) {
+                        starts.add(start);
+                    }
+                }
+                start = i + 1;
+            }
+        }
+        return start;
+    }
+
+    // Новые записи не должны склеиться с оборванной последней записью, поэтому она отрезается.
+    // Так же отрезается недописанная группа транзакции: иначе новые записи считались бы её частью.
+    private int truncateTornRecord() {
+        if (!Files.exists(path)) {
+            return 0;
+        }
+        try (RandomAccessFile file = new RandomAccessFile(path.toFile(), "rw")) {
+            byte[] bytes = new byte[(int) file.length()];
+            file.readFully(bytes);
+            List<String> records = new ArrayList<>();
+            List<Integer> starts = new ArrayList<>();
+            int length = splitRecords(bytes, records, starts);
+            int count = records.size();
+            for (int i = 0; i < records.size(); i++) {
+                if (records.get(i).startsWith(TRANSACTION + ",")) {
+                    int groupSize = parseGroupSize(records.get(i));
+                    if (i + groupSize >= records.size()) {
+                        length = starts.get(i);
+                        count = i;
+                        break;
+                    }
+                    i += groupSize;
+                }
+            }
+            if (length < bytes.length) {
+                file.setLength(length);
+            }
+            return count;
+        } catch (IOException e) {
+            throw new ManagerSaveException(e.getMessage());
+        }
+    }
+
+    private BufferedWriter open(boolean isAppend) {
+        try {
+            stream = new FileOutputStream(path.toFile(), isAppend);
+            return new BufferedWriter(new OutputStreamWriter(stream, StandardCharsets.UTF_8));
+        } catch (IOException e) {
+            throw new ManagerSaveException(e.getMessage());
+        }
+    }
+}
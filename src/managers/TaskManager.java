@@ -4,9 +4,14 @@ import tasks.Epic;
 import tasks.Subtask;
 import tasks.Task;
 
+import java.time.Duration;
 import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
 
 public interface TaskManager {
     List<Task> getHistory();
@@ -25,6 +30,71 @@ public interface TaskManager {
 
     void createEpic(Epic epic);
 
+    // Пакетное создание задач любых типов. Подзадачи могут ссылаться только на уже созданные эпики.
+    BatchResult createAll(Collection<? extends Task> tasks);
+
+    // Пакетное создание с автоматической расстановкой: задачи со сроками в порядке передачи
+    // занимают первые подходящие свободные промежутки не раньше notBefore.
+    BatchResult createAll(Collection<? extends Task> tasks, LocalDateTime notBefore);
+
+    // Самое раннее начало не раньше notBefore, с которого задача длиной duration
+    // ни с чем не пересекается.
+    LocalDateTime findFreeSlot(Duration duration, LocalDateTime notBefore);
+
+    // Задача ставится на findFreeSlot своей продолжительности и создаётся.
+    void createTaskAtEarliest(Task task, LocalDateTime notBefore);
+
+    // Неизменяемый согласованный срез хранилища.
+    TaskSnapshot snapshot();
+
+    // Выборки по индексу статусов: время пропорционально размеру ответа, порядок не определён.
+    List<Task> getByStatus(StatusTask status);
+
+    List<Task> getByStatus(TypeTask type, StatusTask status);
+
+    // Число задач всех типов по каждому статусу.
+    Map<StatusTask, Integer> countByStatus();
+
+    // Запросы по расписанию: задачи со сроками по возрастанию начала за O(log n + k).
+    // Задачи без продолжительности в расписание не входят.
+    Stream<Task> getTasksInRange(LocalDateTime from, LocalDateTime to);
+
+    List<Task> getTasksStartingAfter(LocalDateTime time, int limit);
+
+    List<Task> getActiveAt(LocalDateTime time);
+
+    // Поиск по словам названий и описаний: задачи, содержащие все слова запроса,
+    // от лучших совпадений к худшим, не больше limit.
+    List<Task> search(String query, int limit);
+
+    // Потоки и страницы читаются из среза: не копируют хранилище и не блокируют запись.
+    default Stream<Task> streamTasks() {
+        return snapshot().streamTasks();
+    }
+
+    default Stream<Epic> streamEpics() {
+        return snapshot().streamEpics();
+    }
+
+    default Stream<Subtask> streamSubtasks() {
+        return snapshot().streamSubtasks();
+    }
+
+    default Page<Task> getTasksPage(String token, int limit) {
+        return snapshot().getTasksPage(token, limit);
+    }
+
+    default Page<Epic> getEpicsPage(String token, int limit) {
+        return snapshot().getEpicsPage(token, limit);
+    }
+
+    default Page<Subtask> getSubtasksPage(String token, int limit) {
+        return snapshot().getSubtasksPage(token, limit);
+    }
+
+    // Группа изменений, которая применяется целиком: исключение из body отменяет все её изменения.
+    void transaction(Consumer<TaskManager> body);
+
     void updatedTask(Task task);
 
     void updatedEpic(Epic epic);
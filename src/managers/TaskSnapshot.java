@@ -0,0 +1,176 @@
+package managers;
+
+import tasks.Epic;
+import tasks.Subtask;
+import tasks.Task;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+// Неизменяемый согласованный срез хранилища. Срез получается за O(1) и не мешает
+// дальнейшим изменениям: менеджер строит новые версии таблиц, разделяя с ним узлы.
+// Сами объекты задач не копируются: состав среза неизменен, но поля задачи,
+// изменённой на месте (например, статус эпика), читаются текущими.
+public class TaskSnapshot {
+    static final TaskSnapshot EMPTY = new TaskSnapshot(PersistentIntMap.empty(), PersistentIntMap.empty(),
+            PersistentIntMap.empty(), PersistentIntMap.empty());
+
+    private final PersistentIntMap<Task> tasks;
+    private final PersistentIntMap<Epic> epics;
+    private final PersistentIntMap<Subtask> subtasks;
+    // Номер эпика -> его подзадачи.
+    private final PersistentIntMap<PersistentIntMap<Subtask>> subtasksByEpic;
+
+    private TaskSnapshot(PersistentIntMap<Task> tasks, PersistentIntMap<Epic> epics,
+                         PersistentIntMap<Subtask> subtasks,
+                         PersistentIntMap<PersistentIntMap<Subtask>> subtasksByEpic) {
+        this.tasks = tasks;
+        this.epics = epics;
+        this.subtasks = subtasks;
+        this.subtasksByEpic = subtasksByEpic;
+    }
+
+    public Map<Integer, Task> getTask() {
+        return tasks;
+    }
+
+    public Map<Integer, Epic> getEpic() {
+        return epics;
+    }
+
+    public Map<Integer, Subtask> getSubTask() {
+        return subtasks;
+    }
+
+    public List<Task> getAllTasks() {
+        return tasks.valuesList();
+    }
+
+    public List<Epic> getAllEpics() {
+        return epics.valuesList();
+    }
+
+    public List<Subtask> getAllSubtasks() {
+        return subtasks.valuesList();
+    }
+
+    // Потоки по возрастанию номера без копирования таблиц; поддерживают parallel().
+    public Stream<Task> streamTasks() {
+        return StreamSupport.stream(tasks.valuesSpliterator(), false);
+    }
+
+    public Stream<Epic> streamEpics() {
+        return StreamSupport.stream(epics.valuesSpliterator(), false);
+    }
+
+    public Stream<Subtask> streamSubtasks() {
+        return StreamSupport.stream(subtasks.valuesSpliterator(), false);
+    }
+
+    // Страница из не более чем limit задач после токена; token == null - первая страница.
+    public Page<Task> getTasksPage(String token, int limit) {
+        return page(tasks, token, limit);
+    }
+
+    public Page<Epic> getEpicsPage(String token, int limit) {
+        return page(epics, token, limit);
+    }
+
+    public Page<Subtask> getSubtasksPage(String token, int limit) {
+        return page(subtasks, token, limit);
+    }
+
+    // Задача любого типа по номеру; null, если её нет в срезе.
+    public Task findTask(int id) {
+        Task task = tasks.get(id);
+        if (task == null) {
+            task = epics.get(id);
+        }
+        if (task == null) {
+            task = subtasks.get(id);
+        }
+        return task;
+    }
+
+    // Подзадачи эпика по возрастанию номера; null, если эпика нет в срезе.
+    public List<Subtask> getListSubTasks(int idEpic) {
+        if (!epics.containsKey(idEpic)) {
+            return null;
+        }
+        PersistentIntMap<Subtask> members = subtasksByEpic.get(idEpic);
+        return (members == null) ? List.of() : members.valuesList();
+    }
+
+    public int size() {
+        return tasks.size() + epics.size() + subtasks.size();
+    }
+
+    // Новая версия среза с задачей; подзадача с тем же номером переносится между эпиками.
+    TaskSnapshot with(Task task) {
+        int id = task.getId();
+        switch (task.getType()) {
+            case EPIC:
+                return new TaskSnapshot(tasks, epics.plus(id, (Epic) task), subtasks, subtasksByEpic);
+            case SUBTASK:
+                Subtask subtask = (Subtask) task;
+                PersistentIntMap<PersistentIntMap<Subtask>> members = subtasksByEpic;
+                Subtask oldSubtask = subtasks.get(id);
+                if (oldSubtask != null && oldSubtask.getIdEpic() != subtask.getIdEpic()) {
+                    members = withoutMember(members, oldSubtask);
+                }
+                PersistentIntMap<Subtask> epicMembers = members.get(subtask.getIdEpic());
+                if (epicMembers == null) {
+                    epicMembers = PersistentIntMap.empty();
+                }
+                members = members.plus(subtask.getIdEpic(), epicMembers.plus(id, subtask));
+                return new TaskSnapshot(tasks, epics, subtasks.plus(id, subtask), members);
+            default:
+                return new TaskSnapshot(tasks.plus(id, task), epics, subtasks, subtasksByEpic);
+        }
+    }
+
+    // Новая версия среза без задачи с номером id данного типа.
+    TaskSnapshot without(int id, TypeTask type) {
+        switch (type) {
+            case EPIC:
+                return new TaskSnapshot(tasks, epics.minus(id), subtasks, subtasksByEpic.minus(id));
+            case SUBTASK:
+                Subtask oldSubtask = subtasks.get(id);
+                if (oldSubtask == null) {
+                    return this;
+                }
+                return new TaskSnapshot(tasks, epics, subtasks.minus(id),
+                        withoutMember(subtasksByEpic, oldSubtask));
+            default:
+                return new TaskSnapshot(tasks.minus(id), epics, subtasks, subtasksByEpic);
+        }
+    }
+
+    private static <T extends Task> Page<T> page(PersistentIntMap<T> map, String token, int limit) {
+        if (limit <= 0) {
+            throw new IllegalArgumentException("Неверный размер страницы: " + limit);
+        }
+        Iterator<Map.Entry<Integer, T>> iterator = map.iteratorFrom(Page.firstId(token));
+        List<T> items = new ArrayList<>(Math.min(limit, map.size()));
+        while (items.size() < limit && iterator.hasNext()) {
+            items.add(iterator.next().getValue());
+        }
+        String nextToken = iterator.hasNext() ? Page.token(items.get(items.size() - 1).getId()) : null;
+        return new Page<>(items, nextToken);
+    }
+
+    private static PersistentIntMap<PersistentIntMap<Subtask>> withoutMember(
+            PersistentIntMap<PersistentIntMap<Subtask>> members, Subtask subtask) {
+        PersistentIntMap<Subtask> epicMembers = members.get(subtask.getIdEpic());
+        if (epicMembers == null) {
+            return members;
+        }
+        epicMembers = epicMembers.minus(subtask.getId());
+        return epicMembers.isEmpty() ? members.minus(subtask.getIdEpic())
+                : members.plus(subtask.getIdEpic(), epicMembers);
+    }
+}
@@ -0,0 +1,408 @@
+package managers;
+
+import tasks.Task;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.NavigableMap;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.TreeMap;
+
+// Обратный индекс по названиям и описаниям задач. Текст режется на слова из букв
+// и цифр (кириллица и латиница, без учёта регистра, ё = е). Для каждого слова и для
+// каждой тройки букв внутри слов хранится отсортированный массив номеров задач.
+// Слово запроса из трёх и более букв ищется пересечением списков его троек (совпадение
+// с любой частью слова), более короткое - как начало слова по словарю.
+// Результаты ранжируются: совпадение слова целиком выше начала слова, начало выше
+// середины, совпадение в названии выше совпадения в описании. Из кандидатов
+// отбираются только limit лучших - кучей за O(n log limit), без полной сортировки.
+public class TextIndex {
+    private static final int WHOLE = 3;
+    private static final int PREFIX = 2;
+    private static final int INFIX = 1;
+    // Худший результат - в голове кучи: меньший счёт, при равном - больший номер.
+    private static final Comparator<long[]> WORSE_FIRST = (first, second) -> (first[0] != second[0])
+            ? Long.compare(first[0], second[0]) : Long.compare(second[1], first[1]);
+
+    private final NavigableMap<String, Postings> words = new TreeMap<>();
+    private final LongObjectMap<Postings> trigrams = new LongObjectMap<>();
+    // Номер задачи -> её слова: сначала из названия, затем из описания.
+    private final IntObjectMap<Document> documents = new IntObjectMap<>();
+
+    public void put(Task task) {
+        List<String> nameWords = tokenize(task.getName());
+        Set<String> allWords = new LinkedHashSet<>(nameWords);
+        int nameCount = allWords.size();
+        allWords.addAll(tokenize(task.getDescription()));
+        Document document = new Document(allWords.toArray(new String[0]), nameCount);
+
+        Document oldDocument = documents.get(task.getId());
+        if (oldDocument != null) {
+            if (oldDocument.equals(document)) {
+                return;
+            }
+            remove(task.getId());
+        }
+        documents.putInt(task.getId(), document);
+        for (String word : document.words) {
+            words.computeIfAbsent(word, key -> new Postings()).add(task.getId());
+        }
+        for (long trigram : trigramsOf(document.words)) {
+            Postings postings = trigrams.get(trigram);
+            if (postings == null) {
+                postings = new Postings();
+                trigrams.put(trigram, postings);
+            }
+            postings.add(task.getId());
+        }
+    }
+
+    public void remove(int id) {
+        Document document = documents.remove(id);
+        if (document == null) {
+            return;
+        }
+        for (String word : document.words) {
+            Postings postings = words.get(word);
+            if (postings.remove(id)) {
+                words.remove(word);
+            }
+        }
+        for (long trigram : trigramsOf(document.words)) {
+            Postings postings = trigrams.get(trigram);
+            if (postings.remove(id)) {
+                trigrams.remove(trigram);
+            }
+        }
+    }
+
+    public void clear() {
+        words.clear();
+        trigrams.clear();
+        documents.clear();
+    }
+
+    // Номера задач, в которых нашлись все слова запроса, от лучших к худшим.
+    public List<Integer> search(String query, int limit) {
+        if (limit <= 0) {
+            throw new IllegalArgumentException("Неверное число задач: " + limit);
+        }
+        List<String> queryWords = new ArrayList<>(new LinkedHashSet<>(tokenize(query)));
+        if (queryWords.isEmpty()) {
+            return List.of();
+        }
+        List<int[]> candidates = new ArrayList<>();
+        for (String word : queryWords) {
+            candidates.add(candidates(word));
+        }
+        // Самый короткий список кандидатов проверяется первым.
+        int shortest = 0;
+        for (int i = 1; i < candidates.size(); i++) {
+            if (candidates.get(i).length < candidates.get(shortest).length) {
+                shortest = i;
+            }
+        }
+
+        PriorityQueue<long[]> best = new PriorityQueue<>(WORSE_FIRST);
+        for (int id : candidates.get(shortest)) {
+            Document document = documents.get(id);
+            long score = 0;
+            for (String word : queryWords) {
+                int wordScore = document.score(word);
+                if (wordScore == 0) {
+                    score = 0;
+                    break;
+                }
+                score += wordScore;
+            }
+            if (score == 0) {
+                continue;
+            }
+            long[] entry = {score, id};
+            if (best.size() < limit) {
+                best.add(entry);
+            } else if (WORSE_FIRST.compare(entry, best.peek()) > 0) {
+                best.poll();
+                best.add(entry);
+            }
+        }
+        List<Integer> result = new ArrayList<>(best.size());
+        while (!best.isEmpty()) {
+            result.add((int) best.poll()[1]);
+        }
+        Collections.reverse(result);
+        return result;
+    }
+
+    static List<String> tokenize(String text) {
+        List<String> tokens = new ArrayList<>();
+        if (text == null) {
+            return tokens;
+        }
+        StringBuilder token = new StringBuilder();
+        for (int i = 0; i < text.length(); i++) {
+            char symbol = text.charAt(i);
+            if (Character.isLetterOrDigit(symbol)) {
+                symbol = Character.toLowerCase(symbol);
+                token.append(symbol == 'ё' ? 'е' : symbol);
+            } else if (token.length() > 0) {
+                tokens.add(token.toString());
+                token.setLength(0);
+            }
+        }
+        if (token.length() > 0) {
+            tokens.add(token.toString());
+        }
+        return tokens;
+    }
+
+    // Надмножество задач, в словах которых есть word; точная проверка - в Document.score.
+    private int[] candidates(String word) {
+        if (word.length() < 3) {
+            List<int[]> lists = new ArrayList<>();
+            for (Postings postings : words.subMap(word, true, word + Character.MAX_VALUE, false).values()) {
+                lists.add(postings.toArray());
+            }
+            return union(lists);
+        }
+        List<Postings> lists = new ArrayList<>();
+        for (int i = 0; i + 3 <= word.length(); i++) {
+            Postings postings = trigrams.get(trigram(word, i));
+            if (postings == null) {
+                return new int[0];
+            }
+            lists.add(postings);
+        }
+        lists.sort((first, second) -> Integer.compare(first.size(), second.size()));
+        int[] result = lists.get(0).toArray();
+        int count = 0;
+        for (int id : result) {
+            boolean isEverywhere = true;
+            for (int j = 1; j < lists.size() && isEverywhere; j++) {
+                isEverywhere = lists.get(j).contains(id);
+            }
+            if (isEverywhere) {
+                result[count++] = id;
+            }
+        }
+        return Arrays.copyOf(result, count);
+    }
+
+    // Объединение отсортированных списков попарными слияниями по уровням: O(n log k) для k списков.
+    private static int[] union(List<int[]> lists) {
+        if (lists.isEmpty()) {
+            return new int[0];
+        }
+        while (lists.size() > 1) {
+            List<int[]> merged = new ArrayList<>((lists.size() + 1) / 2);
+            for (int i = 0; i + 1 < lists.size(); i += 2) {
+                merged.add(union(lists.get(i), lists.get(i + 1)));
+            }
+            if (lists.size() % 2 == 1) {
+                merged.add(lists.get(lists.size() - 1));
+            }
+            lists = merged;
+        }
+        return lists.get(0);
+    }
+
+    private static int[] union(int[] first, int[] second) {
+        int[] result = new int[first.length + second.length];
+        int count = 0;
+        int i = 0;
+        int j = 0;
+        while (i < first.length && j < second.length) {
+            if (first[i] < second[j]) {
+                result[count++] = first[i++];
+            } else if (first[i] > second[j]) {
+                result[count++] = second[j++];
+            } else {
+                result[count++] = first[i++];
+                j++;
+            }
+        }
+        while (i < first.length) {
+            result[count++] = first[i++];
+        }
+        while (j < second.length) {
+            result[count++] = second[j++];
+        }
+        return (count == result.length) ? result : Arrays.copyOf(result, count);
+    }
+
+    private static Set<Long> trigramsOf(String[] words) {
+        Set<Long> result = new LinkedHashSet<>();
+        for (String word : words) {
+            for (int i = 0; i + 3 <= word.length(); i++) {
+                result.add(trigram(word, i));
+            }
+        }
+        return result;
+    }
+
+    // Три символа по 16 бит в одном long.
+    private static long trigram(String word, int from) {
+        return ((long) word.charAt(from) << 32) | ((long) word.charAt(from + 1) << 16) | word.charAt(from + 2);
+    }
+
+    private static final class Document {
+        private final String[] words;
+        private final int nameCount;
+
+        private Document(String[] words, int nameCount) {
+            this.words = words;
+            this.nameCount = nameCount;
+        }
+
+        // Лучшее совпадение слова запроса со словами задачи; 0 - совпадений нет.
+        // Короткое слово запроса, как и при поиске кандидатов, ищется только в начале слов.
+        private int score(String queryWord) {
+            int best = 0;
+            for (int i = 0; i < words.length; i++) {
+                String word = words[i];
+                int score = word.equals(queryWord) ? WHOLE
+                        : word.startsWith(queryWord) ? PREFIX
+                        : (queryWord.length() >= 3 && word.contains(queryWord)) ? INFIX : 0;
+                if (score > 0 && i < nameCount) {
+                    score += WHOLE;
+                }
+                best = Math.max(best, score);
+            }
+            return best;
+        }
+
+        @Override
+        public boolean equals(Object obj) {
+            if (!(obj instanceof Document)) {
+                return false;
+            }
+            Document other = (Document) obj;
+            return nameCount == other.nameCount && Arrays.equals(words, other.words);
+        }
+
+        @Override
+        public int hashCode() {
+            return 31 * Arrays.hashCode(words) + nameCount;
+        }
+    }
+
+    // Отсортированный массив номеров задач. Новые задачи получают растущие номера,
+    // поэтому добавление обычно дописывает номер в конец за O(1). Удаление только ставит
+    // надгробие за O(log n), а повторное добавление того же номера (обновление задачи)
+    // его снимает. Номер меньше последнего, которого в массиве нет, попадает в небольшой
+    // отсортированный буфер. Надгробия выбрасываются, а буфер вливается в массив одним
+    // слиянием, когда надгробий больше половины или буфер заполнен: в среднем O(1) на операцию.
+    private static final class Postings {
+        private static final int PENDING_CAPACITY = 32;
+
+        private int[] ids = new int[2];
+        private int size;
+        // Позиции удалённых номеров в ids; создаётся при первом удалении.
+        private BitSet removed;
+        private int removedCount;
+        private int[] pending;
+        private int pendingSize;
+
+        private void add(int id) {
+            int position = Arrays.binarySearch(ids, 0, size, id);
+            if (position >= 0) {
+                if (removed != null && removed.get(position)) {
+                    removed.clear(position);
+                    removedCount--;
+                }
+                return;
+            }
+            if (size == 0 || id > ids[size - 1]) {
+                if (size == ids.length) {
+                    ids = Arrays.copyOf(ids, size * 2);
+                }
+                ids[size++] = id;
+                return;
+            }
+            if (pending == null) {
+                pending = new int[PENDING_CAPACITY];
+            }
+            position = Arrays.binarySearch(pending, 0, pendingSize, id);
+            if (position >= 0) {
+                return;
+            }
+            position = -position - 1;
+            System.arraycopy(pending, position, pending, position + 1, pendingSize - position);
+            pending[position] = id;
+            if (++pendingSize == PENDING_CAPACITY) {
+                compact();
+            }
+        }
+
+        // true, если список стал пустым.
+        private boolean remove(int id) {
+            int position = Arrays.binarySearch(ids, 0, size, id);
+            if (position >= 0) {
+                if (removed == null) {
+                    removed = new BitSet();
+                }
+                if (!removed.get(position)) {
+                    removed.set(position);
+                    removedCount++;
+                    if (removedCount * 2 > size) {
+                        compact();
+                    }
+                }
+            } else if (pendingSize > 0) {
+                position = Arrays.binarySearch(pending, 0, pendingSize, id);
+                if (position >= 0) {
+                    System.arraycopy(pending, position + 1, pending, position, pendingSize - position - 1);
+                    pendingSize--;
+                }
+            }
+            return size() == 0;
+        }
+
+        private boolean contains(int id) {
+            int position = Arrays.binarySearch(ids, 0, size, id);
+            if (position >= 0) {
+                return removed == null || !removed.get(position);
+            }
+            return pendingSize > 0 && Arrays.binarySearch(pending, 0, pendingSize, id) >= 0;
+        }
+
+        private int size() {
+            return size - removedCount + pendingSize;
+        }
+
+        // Живые номера по возрастанию: слияние массива (без надгробий) и буфера.
+        private int[] toArray() {
+            int[] result = new int[size()];
+            int count = 0;
+            int next = 0;
+            for (int i = 0; i < size; i++) {
+                if (removed != null && removed.get(i)) {
+                    continue;
+                }
+                while (next < pendingSize && pending[next] < ids[i]) {
+                    result[count++] = pending[next++];
+                }
+                result[count++] = ids[i];
+            }
+            while (next < pendingSize) {
+                result[count++] = pending[next++];
+            }
+            return result;
+        }
+
+        private void compact() {
+            int[] alive = toArray();
+            ids = (alive.length < 2) ? Arrays.copyOf(alive, 2) : alive;
+            size = alive.length;
+            removed = null;
+            removedCount = 0;
+            pendingSize = 0;
+        }
+    }
+}
@@ -0,0 +1,117 @@
+package managers;
+
+import tasks.Epic;
+import tasks.Subtask;
+import tasks.Task;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+// Журнал отката транзакции. Прежнее состояние задачи запоминается копией полей, когда
+// менеджер впервые выдаёт или меняет её в транзакции. Вместе с эпиком запоминаются его
+// подзадачи: они доступны через getListSubTask() и могут быть изменены на месте.
+// Таблицы, расписание и индексы по восстановленным задачам перестраивает сам менеджер.
+class UndoLog {
+    // Номер -> задача и её поля до транзакции (null, если задачи не было).
+    private final Map<Integer, TaskState> tasks = new HashMap<>();
+    private final List<EpicState> epics = new ArrayList<>();
+
+    boolean contains(int id) {
+        return tasks.containsKey(id);
+    }
+
+    // task - задача с номером id на момент вызова; null, если её нет.
+    void remember(int id, Task task) {
+        if (tasks.containsKey(id)) {
+            return;
+        }
+        tasks.put(id, (task == null) ? null : new TaskState(task));
+        if (task != null && task.getType() == TypeTask.EPIC) {
+            Epic epic = (Epic) task;
+            epics.add(new EpicState(epic));
+            for (Subtask subtask : epic.getListSubTask()) {
+                remember(subtask.getId(), subtask);
+            }
+        }
+    }
+
+    Set<Integer> ids() {
+        return tasks.keySet();
+    }
+
+    // Возвращает прежние поля задачам и прежние списки и сводки эпикам.
+    // Результат - номер -> задача для задач, которые существовали до транзакции.
+    Map<Integer, Task> restore() {
+        Map<Integer, Task> restored = new LinkedHashMap<>();
+        for (Map.Entry<Integer, TaskState> entry : tasks.entrySet()) {
+            TaskState state = entry.getValue();
+            if (state != null) {
+                state.restore();
+                restored.put(entry.getKey(), state.task);
+            }
+        }
+        for (EpicState state : epics) {
+            state.restore();
+        }
+        return restored;
+    }
+
+    private static class TaskState {
+        private final Task task;
+        private final String name;
+        private final String description;
+        private final StatusTask status;
+        private final LocalDateTime startTime;
+        private final Long duration;
+
+        private TaskState(Task task) {
+            this.task = task;
+            this.name = task.getName();
+            this.description = task.getDescription();
+            this.status = task.getStatus();
+            this.startTime = task.getStartTime();
+            this.duration = task.getDuration();
+        }
+
+        private void restore() {
+            task.setName(name);
+            task.setDescription(description);
+            task.setStatus(status);
+            task.setStartTime(startTime);
+            task.setDuration(duration);
+        }
+    }
+
+    private static class EpicState {
+        private final Epic epic;
+        private final StatusTask status;
+        private final LocalDateTime startTime;
+        private final LocalDateTime endTime;
+        private final List<Subtask> subtasks;
+
+        private EpicState(Epic epic) {
+            this.epic = epic;
+            this.status = epic.getStatus();
+            this.startTime = epic.getStartTime();
+            this.endTime = epic.getEndTimeEpic();
+            this.subtasks = new ArrayList<>(epic.getListSubTask());
+        }
+
+        private void restore() {
+            for (Subtask subtask : new ArrayList<>(epic.getListSubTask())) {
+                epic.deleteSubTask(subtask);
+            }
+            for (Subtask subtask : subtasks) {
+                epic.setListSubTask(subtask);
+            }
+            epic.setStatus(status);
+            epic.setStartTime(startTime);
+            epic.setEndTimeEpic(endTime);
+        }
+    }
+}
@@ -1,20 +1,37 @@
 package tasks;
 
 import managers.CSVSerializator;
+import managers.StatusTask;
 import managers.TypeTask;
 
 import java.time.LocalDateTime;
-import java.util.ArrayList;
+import java.util.AbstractList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Objects;
+import java.util.TreeMap;
 
+// Эпик ведёт сводку по подзадачам: счётчики статусов и упорядоченные мультимножества
+// дат начала и окончания. Сводка меняется за O(log k) при добавлении и удалении
+// подзадачи, а статус и сроки эпика читаются за O(1) и O(log k).
+// Подзадачи хранятся по номеру в порядке добавления: добавление и удаление за O(1).
 public class Epic extends Task {
+    private static final StatusTask[] STATUSES = StatusTask.values();
+
     private LocalDateTime endTimeEpic = LocalDateTime.now();
-    private List<Subtask> subtasks;
+    // Вместе с подзадачей хранятся учтённые в сводке значения: её могли изменить на месте до удаления.
+    private final Map<Integer, Member> subtasks = new LinkedHashMap<>();
+    private final List<Subtask> subtasksView = new SubtasksView();
+    private int version = 0;
+
+    private final int[] statusCounts = new int[STATUSES.length];
+    private final TreeMap<LocalDateTime, Integer> startTimes = new TreeMap<>();
+    private final TreeMap<LocalDateTime, Integer> endTimes = new TreeMap<>();
 
     public Epic(TypeTask type, String name, String description, LocalDateTime startTime, Long duration) {
         super(type, name, description, startTime, duration);
-        this.subtasks = new ArrayList<>();
     }
 
     public LocalDateTime getEndTimeEpic() {
@@ -25,33 +42,75 @@ public class Epic extends Task {
         this.endTimeEpic = endTime;
     }
 
+    // Подзадача с тем же номером заменяется и переходит в конец списка.
     public void setListSubTask(Subtask subTask) {
-        this.subtasks.add(subTask);
+        uncount(subtasks.remove(subTask.getId()));
+        version++;
+        Member member = new Member(subTask);
+        subtasks.put(subTask.getId(), member);
+        statusCounts[member.status.ordinal()]++;
+        increment(startTimes, member.startTime);
+        increment(endTimes, member.endTime);
     }
 
+    // Список только для чтения, отражает текущий состав эпика.
     public List<Subtask> getListSubTask() {
-        return subtasks;
+        return subtasksView;
     }
 
     public void deleteSubTask(Subtask subTask) {
-        this.subtasks.remove(subTask);
+        Member member = subtasks.remove(subTask.getId());
+        if (member != null) {
+            uncount(member);
+            version++;
+        }
+    }
+
+    // Статус по подзадачам: все NEW (или подзадач нет) - NEW, все DONE - DONE, иначе IN_PROGRESS.
+    public StatusTask getSubtasksStatus() {
+        int total = subtasks.size();
+        if (statusCounts[StatusTask.NEW.ordinal()] == total) {
+            return StatusTask.NEW;
+        } else if (statusCounts[StatusTask.DONE.ordinal()] == total) {
+            return StatusTask.DONE;
+        }
+        return StatusTask.IN_PROGRESS;
+    }
+
+    // null, если подзадач нет.
+    public LocalDateTime getSubtasksStartTime() {
+        return startTimes.isEmpty() ? null : startTimes.firstKey();
+    }
+
+    public LocalDateTime getSubtasksEndTime() {
+        return endTimes.isEmpty() ? null : endTimes.lastKey();
+    }
+
+    private void uncount(Member member) {
+        if (member == null) {
+            return;
+        }
+        statusCounts[member.status.ordinal()]--;
+        decrement(startTimes, member.startTime);
+        decrement(endTimes, member.endTime);
+    }
+
+    private static void increment(TreeMap<LocalDateTime, Integer> times, LocalDateTime time) {
+        times.merge(time, 1, Integer::sum);
     }
 
+    private static void decrement(TreeMap<LocalDateTime, Integer> times, LocalDateTime time) {
+        times.computeIfPresent(time, (key, count) -> (count == 1) ? null : count - 1);
+    }
+
+    // Эпик определяется номером: сравнение и хэш не зависят от числа подзадач.
     @Override
     public boolean equals(Object obj) {
         if (this == obj) return true;
         if (obj == null) return false;
         if (this.getClass() != obj.getClass()) return false;
         Epic otherTask = (Epic) obj;
-        return (id == otherTask.id) &&
-                Objects.equals(type, otherTask.type) &&
-                Objects.equals(name, otherTask.name) &&
-                Objects.equals(description, otherTask.description) &&
-                Objects.equals(status, otherTask.status) &&
-                Objects.equals(startTime, otherTask.startTime) &&
-                Objects.equals(duration, otherTask.duration) &&
-                Objects.equals(endTimeEpic, otherTask.endTimeEpic) &&
-                Objects.equals(subtasks, otherTask.subtasks);
+        return id == otherTask.id;
     }
 
     @Override
@@ -69,7 +128,71 @@ public class Epic extends Task {
 
     @Override
     public int hashCode() {
-        return Objects.hash(this.id, this.type, this.name, this.description, this.status,
-                this.startTime, this.duration, this.endTimeEpic, this.subtasks);
+        return Integer.hashCode(this.id);
+    }
+
+    private static class Member {
+        private final Subtask subtask;
+        private final StatusTask status;
+        private final LocalDateTime startTime;
+        private final LocalDateTime endTime;
+
+        private Member(Subtask subtask) {
+            this.subtask = subtask;
+            this.status = subtask.getStatus();
+            this.startTime = subtask.getStartTime();
+            this.endTime = subtask.getEndTime();
+        }
+    }
+
+    // Обход идёт прямо по таблице; для доступа по индексу копия массива
+    // строится заново только после изменения состава эпика.
+    private class SubtasksView extends AbstractList<Subtask> {
+        private Subtask[] snapshot;
+        private int snapshotVersion = -1;
+
+        @Override
+        public Subtask get(int index) {
+            Objects.checkIndex(index, subtasks.size());
+            if (snapshotVersion != version) {
+                snapshot = new Subtask[subtasks.size()];
+                int i = 0;
+                for (Member member : subtasks.values()) {
+                    snapshot[i++] = member.subtask;
+                }
+                snapshotVersion = version;
+            }
+            return snapshot[index];
+        }
+
+        @Override
+        public Iterator<Subtask> iterator() {
+            Iterator<Member> members = subtasks.values().iterator();
+            return new Iterator<>() {
+                @Override
+                public boolean hasNext() {
+                    return members.hasNext();
+                }
+
+                @Override
+                public Subtask next() {
+                    return members.next().subtask;
+                }
+            };
+        }
+
+        @Override
+        public int size() {
+            return subtasks.size();
+        }
+
+        @Override
+        public boolean contains(Object obj) {
+            if (!(obj instanceof Subtask)) {
+                return false;
+            }
+            Member member = subtasks.get(((Subtask) obj).getId());
+            return member != null && member.subtask.equals(obj);
+        }
     }
 }